@@ -0,0 +1,84 @@
+package com.library.libraryapi.actuator;
+
+import com.library.libraryapi.profiling.FlightRecordings;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Gravacoes do Java Flight Recorder pelo actuator:
+ * <ul>
+ *     <li>{@code GET /actuator/jfr}: gravacao continua e gravacoes sob demanda;</li>
+ *     <li>{@code POST /actuator/jfr} com {@code {"name", "durationSeconds", "settings"}}: inicia uma gravacao;</li>
+ *     <li>{@code GET /actuator/jfr/{id|continuous}}: metodos mais quentes, que mais alocam e eventos da aplicacao;</li>
+ *     <li>{@code DELETE /actuator/jfr/{id}}: para a gravacao e grava o arquivo .jfr.</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    private final FlightRecordings recordings;
+
+    public FlightRecorderEndpoint(FlightRecordings recordings) {
+        this.recordings = recordings;
+    }
+
+    @ReadOperation
+    public Map<String, Object> recordings() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", recordings.isEnabled());
+        if (recordings.isEnabled()) {
+            result.put("continuous", recordings.getContinuous());
+            result.put("recordings", recordings.getRecordings());
+        }
+        return result;
+    }
+
+    @ReadOperation
+    public Map<String, Object> summary(@Selector String recording) {
+        return invoke(() -> {
+            try {
+                return recordings.summarize(recording);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @WriteOperation
+    public Object start(@Nullable String name, @Nullable Long durationSeconds, @Nullable String settings) {
+        return invoke(() -> recordings.start(name, durationSeconds, settings));
+    }
+
+    @DeleteOperation
+    public Object stop(@Selector String recording) {
+        return invoke(() -> {
+            try {
+                return recordings.stop(Long.parseLong(recording));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unknown recording: " + recording);
+            }
+        });
+    }
+
+    //pedidos invalidos viram 400 em vez de 500
+    private static <T> T invoke(Supplier<T> operation) {
+        try {
+            return operation.get();
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.library.libraryapi.actuator;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estatisticas do Hibernate ({@code hibernate.generate_statistics}) por entidade, por
+ * consulta e por regiao do cache de segundo nivel, junto com o tempo de cada metodo de
+ * repositorio e as ultimas chamadas lentas do {@link RepositoryMetrics}.
+ * {@code DELETE /actuator/hibernate} zera os contadores do Hibernate.
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+    private final Statistics statistics;
+    private final RepositoryMetrics repositoryMetrics;
+    private final int topQueries;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory, RepositoryMetrics repositoryMetrics,
+                                       @Value("${application.persistence.statistics.top-queries:20}") int topQueries) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.repositoryMetrics = repositoryMetrics;
+        this.topQueries = topQueries;
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        if (statistics.isStatisticsEnabled()) {
+            result.put("session", session());
+            result.put("entities", entities());
+            result.put("queries", queries());
+            if (statistics.getSecondLevelCacheRegionNames().length > 0) {
+                result.put("secondLevelCache", secondLevelCache());
+            }
+        }
+        result.put("repositories", repositoryMetrics.getTimings());
+        result.put("slowQueries", repositoryMetrics.getSlowQueries());
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+    }
+
+    private Map<String, Object> session() {
+        Map<String, Object> session = new LinkedHashMap<>();
+        session.put("sessionsOpened", statistics.getSessionOpenCount());
+        session.put("transactions", statistics.getTransactionCount());
+        session.put("statementsPrepared", statistics.getPrepareStatementCount());
+        session.put("flushes", statistics.getFlushCount());
+        session.put("queryExecutions", statistics.getQueryExecutionCount());
+        session.put("queryExecutionMaxMs", statistics.getQueryExecutionMaxTime());
+        session.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        session.put("collectionsFetched", statistics.getCollectionFetchCount());
+        return session;
+    }
+
+    private Map<String, Object> entities() {
+        Map<String, Object> entities = new LinkedHashMap<>();
+        for (String name : statistics.getEntityNames()) {
+            EntityStatistics entity = statistics.getEntityStatistics(name);
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("loads", entity.getLoadCount());
+            counts.put("fetches", entity.getFetchCount());
+            counts.put("inserts", entity.getInsertCount());
+            counts.put("updates", entity.getUpdateCount());
+            counts.put("deletes", entity.getDeleteCount());
+            counts.put("optimisticFailures", entity.getOptimisticFailureCount());
+            entities.put(name.substring(name.lastIndexOf('.') + 1), counts);
+        }
+        return entities;
+    }
+
+    //as consultas com maior tempo total primeiro
+    private Map<String, Object> queries() {
+        Map<String, Object> queries = new LinkedHashMap<>();
+        Arrays.stream(statistics.getQueries())
+                .sorted(Comparator.comparingLong((String query) -> statistics.getQueryStatistics(query).getExecutionTotalTime())
+                        .reversed())
+                .limit(topQueries)
+                .forEach(query -> {
+                    QueryStatistics stats = statistics.getQueryStatistics(query);
+                    Map<String, Object> timings = new LinkedHashMap<>();
+                    timings.put("executions", stats.getExecutionCount());
+                    timings.put("rows", stats.getExecutionRowCount());
+                    timings.put("totalMs", stats.getExecutionTotalTime());
+                    timings.put("avgMs", stats.getExecutionAvgTime());
+                    timings.put("maxMs", stats.getExecutionMaxTime());
+                    queries.put(query, timings);
+                });
+        return queries;
+    }
+
+    private Map<String, Object> secondLevelCache() {
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics cache = statistics.getDomainDataRegionStatistics(region);
+            long requests = cache.getHitCount() + cache.getMissCount();
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("hits", cache.getHitCount());
+            counts.put("misses", cache.getMissCount());
+            counts.put("puts", cache.getPutCount());
+            counts.put("hitRatio", requests == 0 ? 0 : (double) cache.getHitCount() / requests);
+            regions.put(region, counts);
+        }
+        return regions;
+    }
+}
@@ -0,0 +1,126 @@
+package com.library.libraryapi.actuator;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Mede cada metodo dos repositorios Spring Data (timer {@code library.repository}, com
+ * as tags repository e method). Chamadas acima de {@code application.persistence.slow-query-ms}
+ * vao para o log e para a lista de consultas lentas do endpoint {@code hibernate}, com o
+ * SQL gerado sem os valores dos parametros e apenas os tipos dos argumentos.
+ */
+@Component
+@Slf4j
+public class RepositoryMetrics {
+
+    private final MeterRegistry registry;
+    private final long slowThresholdNanos;
+    private final int slowQueriesKept;
+    private final Map<String, Map<Method, Timer>> timers = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    public RepositoryMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                             @Value("${application.persistence.slow-query-ms:500}") long slowThresholdMillis,
+                             @Value("${application.persistence.slow-query-kept:50}") int slowQueriesKept) {
+        this.registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowQueriesKept = slowQueriesKept;
+    }
+
+    //metodos herdados (save, findById...) sao declarados no CrudRepository; a tag usa o repositorio do proxy
+    public Object invoke(String repository, MethodInvocation invocation) throws Throwable {
+        boolean outermost = SqlStatementCapture.begin();
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timer(repository, invocation.getMethod()).record(elapsed, TimeUnit.NANOSECONDS);
+            if (outermost) {
+                List<String> statements = SqlStatementCapture.end();
+                if (elapsed >= slowThresholdNanos) {
+                    slow(repository, invocation, elapsed, statements);
+                }
+            }
+        }
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public Map<String, Map<String, Object>> getTimings() {
+        return registry.find("library.repository").timers().stream()
+                .filter(timer -> timer.count() > 0)
+                .sorted((a, b) -> Double.compare(b.totalTime(TimeUnit.MILLISECONDS), a.totalTime(TimeUnit.MILLISECONDS)))
+                .collect(Collectors.toMap(
+                        timer -> timer.getId().getTag("repository") + "." + timer.getId().getTag("method"),
+                        RepositoryMetrics::summary,
+                        (a, b) -> a,
+                        LinkedHashMap::new));
+    }
+
+    private Timer timer(String repository, Method method) {
+        return timers.computeIfAbsent(repository, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> Timer.builder("library.repository")
+                        .tag("repository", repository)
+                        .tag("method", key.getName())
+                        .register(registry));
+    }
+
+    private void slow(String repository, MethodInvocation invocation, long elapsedNanos, List<String> statements) {
+        String method = repository + "." + invocation.getMethod().getName();
+        String arguments = Arrays.stream(invocation.getArguments())
+                .map(argument -> argument == null ? "null" : argument.getClass().getSimpleName())
+                .collect(Collectors.joining(", ", "(", ")"));
+        List<String> redacted = statements.stream().map(SqlStatementCapture::redact).collect(Collectors.toList());
+        long millis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        log.warn(" Slow repository call {}{} took {} ms: {} ", method, arguments, millis, redacted);
+        synchronized (slowQueries) {
+            if (slowQueries.size() >= slowQueriesKept) {
+                slowQueries.removeFirst();
+            }
+            slowQueries.addLast(new SlowQuery(System.currentTimeMillis(), method + arguments, millis, redacted));
+        }
+    }
+
+    private static Map<String, Object> summary(Timer timer) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", timer.count());
+        summary.put("totalMs", timer.totalTime(TimeUnit.MILLISECONDS));
+        summary.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        summary.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        return summary;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class SlowQuery {
+        private long timestamp;
+        private String method;
+        private long millis;
+        private List<String> statements;
+    }
+}
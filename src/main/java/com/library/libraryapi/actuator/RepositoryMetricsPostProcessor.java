@@ -0,0 +1,40 @@
+package com.library.libraryapi.actuator;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Acrescenta o {@link RepositoryMetrics} aos proxies dos repositorios Spring Data. O
+ * RepositoryMetrics so e criado na primeira chamada, para este post-processor nao
+ * antecipar a criacao do MeterRegistry.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<RepositoryMetrics> repositoryMetrics;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<RepositoryMetrics> repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof Repository) || !(bean instanceof Advised)) {
+            return bean;
+        }
+        Advised proxy = (Advised) bean;
+        String repository = Arrays.stream(proxy.getProxiedInterfaces())
+                .filter(Repository.class::isAssignableFrom)
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse(beanName);
+        proxy.addAdvice(0, (MethodInterceptor) invocation -> repositoryMetrics.getObject().invoke(repository, invocation));
+        return bean;
+    }
+}
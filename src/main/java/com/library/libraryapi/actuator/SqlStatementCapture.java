@@ -0,0 +1,54 @@
+package com.library.libraryapi.actuator;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Guarda o SQL gerado pelo Hibernate durante uma chamada de repositorio medida pelo
+ * {@link RepositoryMetrics}, para o log de consultas lentas. Registrado em
+ * {@code hibernate.session_factory.statement_inspector}; fora de uma chamada medida nao
+ * faz nada. Literais de texto e numericos sao trocados por {@code ?}, como os parametros.
+ */
+public class SqlStatementCapture implements StatementInspector {
+
+    static final int MAX_STATEMENTS = 20;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?");
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = CAPTURED.get();
+        if (statements != null && statements.size() < MAX_STATEMENTS) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * @return false se ja havia uma captura em andamento nesta thread (chamada aninhada)
+     */
+    static boolean begin() {
+        if (CAPTURED.get() != null) {
+            return false;
+        }
+        CAPTURED.set(new ArrayList<>());
+        return true;
+    }
+
+    static List<String> end() {
+        List<String> statements = CAPTURED.get();
+        CAPTURED.remove();
+        return statements == null ? Collections.emptyList() : statements;
+    }
+
+    static String redact(String sql) {
+        String redacted = STRING_LITERAL.matcher(sql).replaceAll("?");
+        return NUMERIC_LITERAL.matcher(redacted).replaceAll("?");
+    }
+}
@@ -0,0 +1,65 @@
+package com.library.libraryapi.actuator;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registra, em milissegundos desde o inicio da JVM, as fases de subida da
+ * aplicacao ate o primeiro request atendido.
+ */
+@Component
+public class StartupTimeline extends OncePerRequestFilter {
+
+    private final long jvmStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private volatile boolean firstRequestServed;
+
+    @EventListener
+    public void onContextRefreshed(ContextRefreshedEvent event) {
+        record("contextRefreshed");
+    }
+
+    @EventListener
+    public void onApplicationStarted(ApplicationStartedEvent event) {
+        record("applicationStarted");
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        record("applicationReady");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!firstRequestServed) {
+                firstRequestServed = true;
+                record("firstRequest");
+            }
+        }
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    private synchronized void record(String phase) {
+        phases.putIfAbsent(phase, System.currentTimeMillis() - jvmStartTime);
+    }
+}
@@ -0,0 +1,21 @@
+package com.library.libraryapi.actuator;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Endpoint(id = "startuptimeline")
+@RequiredArgsConstructor
+public class StartupTimelineEndpoint {
+
+    private final StartupTimeline timeline;
+
+    @ReadOperation
+    public Map<String, Long> timeline() {
+        return timeline.getPhases();
+    }
+}
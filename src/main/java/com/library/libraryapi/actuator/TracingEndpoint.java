@@ -0,0 +1,58 @@
+package com.library.libraryapi.actuator;
+
+import com.library.libraryapi.tracing.InMemorySpanExporter;
+import com.library.libraryapi.tracing.OtlpJson;
+import com.library.libraryapi.tracing.OtlpJsonFileSpanExporter;
+import com.library.libraryapi.tracing.Span;
+import com.library.libraryapi.tracing.Tracer;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Configuracao do tracing e, com o exporter memory, os ultimos spans no formato OTLP/JSON.
+ * {@code GET /actuator/tracing?traceId=...} filtra um trace; {@code DELETE} limpa o buffer.
+ */
+@Component
+@Endpoint(id = "tracing")
+@ConditionalOnProperty(name = "application.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingEndpoint {
+
+    private final Tracer tracer;
+
+    public TracingEndpoint(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @ReadOperation
+    public Map<String, Object> tracing(@Nullable String traceId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampleRatio", tracer.getSampleRatio());
+        result.put("exporter", tracer.getExporter().getClass().getSimpleName());
+        if (tracer.getExporter() instanceof OtlpJsonFileSpanExporter) {
+            result.put("dropped", ((OtlpJsonFileSpanExporter) tracer.getExporter()).getDroppedCount());
+        }
+        if (tracer.getExporter() instanceof InMemorySpanExporter) {
+            List<Span> spans = ((InMemorySpanExporter) tracer.getExporter()).getSpans().stream()
+                    .filter(span -> traceId == null || traceId.equals(span.getTraceId()))
+                    .collect(Collectors.toList());
+            result.put("spans", spans.stream().map(OtlpJson::span).collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        if (tracer.getExporter() instanceof InMemorySpanExporter) {
+            ((InMemorySpanExporter) tracer.getExporter()).clear();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.library.libraryapi.api;
 
 import com.library.libraryapi.api.exception.ApiErrors;
 import com.library.libraryapi.exception.BusinessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -11,6 +12,8 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
@@ -32,4 +35,13 @@ public class ApplicationControllerAdvice {
     public ResponseEntity handleResponseStatusException(ResponseStatusException ex){
         return new ResponseEntity(new ApiErrors(ex),ex.getStatus());
     }
+
+    //pool do tipo de carga saturado: o cliente deve tentar de novo mais tarde
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity handleRejectedExecutionException(RejectedExecutionException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ApiErrors(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Service temporarily unavailable")));
+    }
 }
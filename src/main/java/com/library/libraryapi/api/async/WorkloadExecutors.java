@@ -0,0 +1,68 @@
+package com.library.libraryapi.api.async;
+
+import com.library.libraryapi.logging.CorrelationId;
+import com.library.libraryapi.tracing.Tracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pools dedicados aos endpoints assincronos, separados por tipo de carga: uma busca
+ * lenta ocupa no maximo o pool de buscas e nunca as threads do Tomcat ou os emprestimos.
+ * Com o pool e a fila cheios a tarefa e recusada com {@link RejectedExecutionException},
+ * respondida como 503.
+ */
+public class WorkloadExecutors {
+
+    private final ThreadPoolExecutor searchPool;
+    private final ThreadPoolExecutor checkoutPool;
+    private final ExecutorService search;
+    private final ExecutorService checkout;
+
+    public WorkloadExecutors(int searchThreads, int searchQueue, int checkoutThreads, int checkoutQueue,
+                             MeterRegistry registry) {
+        this.searchPool = createPool("search", searchThreads, searchQueue, registry);
+        this.checkoutPool = createPool("checkout", checkoutThreads, checkoutQueue, registry);
+        this.search = ExecutorServiceMetrics.monitor(registry, searchPool, "library.search", Tags.empty());
+        this.checkout = ExecutorServiceMetrics.monitor(registry, checkoutPool, "library.checkout", Tags.empty());
+    }
+
+    public ExecutorService search() {
+        return search;
+    }
+
+    public ExecutorService checkout() {
+        return checkout;
+    }
+
+    public void shutdown() {
+        searchPool.shutdown();
+        checkoutPool.shutdown();
+    }
+
+    private static ThreadPoolExecutor createPool(String name, int threads, int queueCapacity, MeterRegistry registry) {
+        Counter rejected = registry.counter("library.executor.rejected", "name", "library." + name);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(name + "-"),
+                (task, executor) -> {
+                    rejected.increment();
+                    throw new RejectedExecutionException(name + " executor saturated");
+                }) {
+            //os logs e spans da tarefa saem com o correlation id e o trace do request que a submeteu
+            @Override
+            public void execute(Runnable command) {
+                super.execute(CorrelationId.propagate(Tracer.propagate(command)));
+            }
+        };
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.libraryapi.api.client;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Endereco do cliente de uma requisicao. O X-Forwarded-For so vale quando a conexao vem
+ * de um proxy confiavel, e mesmo assim o cliente e o salto mais a direita que nao e um
+ * desses proxies: os saltos a esquerda sao escritos pelo proprio cliente.
+ */
+public class ClientAddressResolver {
+
+    private final Set<String> trustedProxies;
+
+    public ClientAddressResolver(String... trustedProxies) {
+        this.trustedProxies = new HashSet<>(Arrays.asList(trustedProxies));
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (!trustedProxies.contains(remoteAddr) || forwardedFor == null || forwardedFor.isEmpty()) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remoteAddr;
+    }
+}
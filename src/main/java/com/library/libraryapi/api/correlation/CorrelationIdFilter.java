@@ -0,0 +1,48 @@
+package com.library.libraryapi.api.correlation;
+
+import com.library.libraryapi.logging.CorrelationId;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Primeiro filtro da cadeia: reaproveita o {@code X-Correlation-Id} recebido ou gera
+ * um, coloca no MDC para os logs do request e devolve no header da resposta. O dispatch
+ * assincrono que conclui a resposta tambem passa por aqui e recebe o mesmo id.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    private static final String ATTRIBUTE = CorrelationIdFilter.class.getName() + ".ID";
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String correlationId = (String) request.getAttribute(ATTRIBUTE);
+        if (correlationId == null) {
+            correlationId = CorrelationId.resolve(request.getHeader(CorrelationId.HEADER));
+            request.setAttribute(ATTRIBUTE, correlationId);
+            response.setHeader(CorrelationId.HEADER, correlationId);
+        }
+        MDC.put(CorrelationId.MDC_KEY, correlationId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(CorrelationId.MDC_KEY);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.library.libraryapi.api.dto;
 
+import com.library.libraryapi.api.validation.ValidIsbn;
 import lombok.*;
 
 import javax.validation.constraints.NotEmpty;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -19,7 +21,13 @@ public class BooKDTO {
     private String author;
 
     @NotEmpty
+    @ValidIsbn
     private String isbn;
 
+    private Long totalLoans;
+
+    private Boolean activeLoan;
+
+    private LocalDate lastLoanDate;
 
 }
@@ -0,0 +1,19 @@
+package com.library.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLoanCountDTO {
+
+    private Long bookId;
+    private String title;
+    private String isbn;
+    private Long totalLoans;
+
+}
@@ -0,0 +1,22 @@
+package com.library.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.PositiveOrZero;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConsumerOffsetDTO {
+
+    private String consumer;
+
+    @NotNull
+    @PositiveOrZero
+    private Long offset;
+}
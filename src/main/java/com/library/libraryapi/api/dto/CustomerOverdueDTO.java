@@ -0,0 +1,17 @@
+package com.library.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOverdueDTO {
+
+    private String customer;
+    private Long overdueLoans;
+
+}
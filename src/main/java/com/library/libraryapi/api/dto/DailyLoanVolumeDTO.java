@@ -0,0 +1,19 @@
+package com.library.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyLoanVolumeDTO {
+
+    private LocalDate date;
+    private Long checkouts;
+
+}
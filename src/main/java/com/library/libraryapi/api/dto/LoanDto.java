@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.validation.constraints.NotEmpty;
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -21,5 +22,7 @@ public class LoanDto {
     @NotEmpty
     private String email;
     private BooKDTO book;
+    private LocalDate dueDate;
+    private Boolean overdue;
 
 }
@@ -4,6 +4,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
 
 @Data
 @Builder
@@ -11,7 +14,25 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class LoanFilterDTO {
 
+    public enum Match { ALL, ANY }
+
     private String isbn;
     private String customer;
+    private String email;
+    private Long bookId;
+    private Boolean returned;
+
+    //emprestimos nao devolvidos com vencimento ate hoje
+    private Boolean overdue;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate loanDateFrom;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate loanDateTo;
+
+    //ANY mantem o comportamento original (isbn OU customer)
+    @Builder.Default
+    private Match match = Match.ANY;
 
 }
@@ -0,0 +1,28 @@
+package com.library.libraryapi.api.dto;
+
+import com.library.libraryapi.model.entity.MailSuppression;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class MailSuppressionDTO {
+
+    @NotEmpty
+    @Email
+    private String email;
+
+    @NotNull
+    private MailSuppression.Reason reason;
+
+    private LocalDate suppressedAt;
+}
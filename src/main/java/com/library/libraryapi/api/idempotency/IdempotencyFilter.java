@@ -0,0 +1,134 @@
+package com.library.libraryapi.api.idempotency;
+
+import com.library.libraryapi.api.client.ClientAddressResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Honra o header Idempotency-Key nos POST de livros e emprestimos: uma repeticao
+ * com a mesma chave e o mesmo corpo recebe a resposta original sem passar pelo controller.
+ * As chaves sao escolhidas pelo cliente, entao valem apenas para o cliente que as enviou.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final String KEY_ATTRIBUTE = IdempotencyFilter.class.getName() + ".KEY";
+
+    private final IdempotencyStore store;
+    private final ClientAddressResolver clientAddresses;
+
+    public IdempotencyFilter(
+            @Value("${application.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${application.idempotency.ttl-minutes:1440}") long ttlMinutes,
+            @Value("${application.trusted-proxies:}") String[] trustedProxies) {
+        this.store = new IdempotencyStore(maxEntries, ttlMinutes);
+        this.clientAddresses = new ClientAddressResolver(trustedProxies);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return request.getHeader(HEADER) == null
+                || !"POST".equals(request.getMethod())
+                || !("/api/books".equals(path) || "/api/loans".equals(path));
+    }
+
+    //a resposta de um endpoint assincrono so fica pronta no dispatch ASYNC
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            boolean failed = true;
+            try {
+                chain.doFilter(request, response);
+                failed = false;
+            } finally {
+                complete(request, WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class), failed);
+            }
+            return;
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String key = client(request) + ":" + request.getRequestURI() + ":" + request.getHeader(HEADER);
+        String fingerprint = DigestUtils.md5DigestAsHex(body);
+
+        IdempotentResponse existing = store.reserve(key, fingerprint);
+        if (existing != null) {
+            replay(existing, fingerprint, response);
+            return;
+        }
+
+        request.setAttribute(KEY_ATTRIBUTE, key);
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean failed = true;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+            failed = false;
+        } finally {
+            complete(request, responseWrapper, failed);
+        }
+    }
+
+    private String client(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : clientAddresses.resolve(request);
+    }
+
+    private void complete(HttpServletRequest request, ContentCachingResponseWrapper responseWrapper, boolean failed)
+            throws IOException {
+        String key = (String) request.getAttribute(KEY_ATTRIBUTE);
+        if (responseWrapper == null || key == null || (!failed && isAsyncStarted(request))) {
+            return;
+        }
+        //erros do servidor nao sao memorizados: a repeticao deve tentar de novo
+        if (failed || responseWrapper.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+            store.release(key);
+        } else {
+            store.complete(key, responseWrapper.getStatus(), responseWrapper.getContentType(),
+                    responseWrapper.getContentAsByteArray());
+        }
+        responseWrapper.copyBodyToResponse();
+    }
+
+    private void replay(IdempotentResponse existing, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!existing.getFingerprint().equals(fingerprint)) {
+            error(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key already used with a different request");
+            return;
+        }
+        if (!existing.isCompleted()) {
+            error(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+            return;
+        }
+        response.setStatus(existing.getStatus());
+        if (existing.getContentType() != null) {
+            response.setContentType(existing.getContentType());
+        }
+        response.getOutputStream().write(existing.getBody());
+    }
+
+    private void error(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"errors\":[\"" + message + "\"]}");
+    }
+}
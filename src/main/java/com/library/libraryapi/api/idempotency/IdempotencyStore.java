@@ -0,0 +1,63 @@
+package com.library.libraryapi.api.idempotency;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Respostas ja entregues por chave de idempotencia, limitado em quantidade (descarta
+ * as mais antigas) e em tempo de vida.
+ */
+public class IdempotencyStore {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, IdempotentResponse> entries;
+
+    public IdempotencyStore(int maxEntries, long ttlMinutes) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMinutes * 60_000L;
+        this.entries = new LinkedHashMap<String, IdempotentResponse>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotentResponse> eldest) {
+                return size() > IdempotencyStore.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Reserva a chave para uma nova requisicao.
+     *
+     * @return a resposta ja registrada para a chave, ou null se a reserva foi feita
+     */
+    public synchronized IdempotentResponse reserve(String key, String fingerprint) {
+        evictExpired();
+        IdempotentResponse existing = entries.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        entries.put(key, IdempotentResponse.inProgress(fingerprint));
+        return null;
+    }
+
+    public synchronized void complete(String key, int status, String contentType, byte[] body) {
+        IdempotentResponse reserved = entries.get(key);
+        if (reserved != null) {
+            entries.put(key, new IdempotentResponse(reserved.getFingerprint(), reserved.getCreatedAt(),
+                    status, contentType, body));
+        }
+    }
+
+    public synchronized void release(String key) {
+        entries.remove(key);
+    }
+
+    //entradas em ordem de insercao: as expiradas estao sempre no inicio
+    private void evictExpired() {
+        long expiredBefore = System.currentTimeMillis() - ttlMillis;
+        Iterator<IdempotentResponse> iterator = entries.values().iterator();
+        while (iterator.hasNext() && iterator.next().getCreatedAt() <= expiredBefore) {
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.library.libraryapi.api.idempotency;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IdempotentResponse {
+
+    private final String fingerprint;
+    private final long createdAt;
+
+    //nulos enquanto a primeira requisicao ainda esta em andamento
+    private final Integer status;
+    private final String contentType;
+    private final byte[] body;
+
+    public static IdempotentResponse inProgress(String fingerprint) {
+        return new IdempotentResponse(fingerprint, System.currentTimeMillis(), null, null, null);
+    }
+
+    public boolean isCompleted() {
+        return status != null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.libraryapi.api.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de concorrencia AIMD: cresce aditivamente enquanto a latencia fica abaixo
+ * do alvo e cai multiplicativamente quando o banco comeca a responder devagar.
+ * <p>
+ * Emprestimos e devolucoes sempre entram, mas ocupam vagas do limite: as buscas so usam
+ * o que sobra deles, e quando nao sobra esperam numa fila curta antes de serem descartadas.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private double limit;
+    private int inFlight;
+    private int priorityInFlight;
+    private int queued;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetLatencyMillis) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyMillis * 1_000_000L;
+    }
+
+    public synchronized boolean tryAcquire() {
+        return tryAcquire(0, 0);
+    }
+
+    /**
+     * @return false quando a fila ja tem maxQueued buscas ou quando nenhuma vaga abriu
+     * em maxWaitMillis
+     */
+    public synchronized boolean tryAcquire(int maxQueued, long maxWaitMillis) {
+        if (hasCapacity()) {
+            inFlight++;
+            return true;
+        }
+        if (maxWaitMillis <= 0 || queued >= maxQueued) {
+            return false;
+        }
+        queued++;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        try {
+            while (!hasCapacity()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            inFlight++;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued--;
+        }
+    }
+
+    public synchronized void release(long latencyNanos) {
+        inFlight--;
+        adjust(latencyNanos);
+    }
+
+    public synchronized void acquirePriority() {
+        priorityInFlight++;
+    }
+
+    public synchronized void releasePriority(long latencyNanos) {
+        priorityInFlight--;
+        adjust(latencyNanos);
+    }
+
+    private boolean hasCapacity() {
+        return inFlight + priorityInFlight < (int) limit;
+    }
+
+    private void adjust(long latencyNanos) {
+        if (latencyNanos > targetLatencyNanos) {
+            limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+        } else {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getPriorityInFlight() {
+        return priorityInFlight;
+    }
+
+    public synchronized int getQueued() {
+        return queued;
+    }
+}
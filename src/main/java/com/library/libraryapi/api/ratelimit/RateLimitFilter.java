@@ -0,0 +1,184 @@
+package com.library.libraryapi.api.ratelimit;
+
+import com.library.libraryapi.api.client.ClientAddressResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final long clientCapacity;
+    private final long clientRefillPerSecond;
+    private final int maxTrackedClients;
+    private final ClientAddressResolver clientAddresses;
+
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    //clientes novos enquanto o mapa esta cheio dividem um balde por classe ate a proxima limpeza
+    private final Map<RequestClass, TokenBucket> overflowBuckets = new EnumMap<>(RequestClass.class);
+    private final Map<RequestClass, TokenBucket> endpointBuckets = new EnumMap<>(RequestClass.class);
+    private final AdaptiveConcurrencyLimit searchLimit;
+    private final int maxQueuedSearches;
+    private final long maxQueueWaitMillis;
+    private final Map<RequestClass, Counter> rateLimited = new EnumMap<>(RequestClass.class);
+    private final Counter shed;
+
+    public RateLimitFilter(
+            @Value("${application.ratelimit.enabled:true}") boolean enabled,
+            @Value("${application.ratelimit.client.capacity:100}") long clientCapacity,
+            @Value("${application.ratelimit.client.refill-per-second:50}") long clientRefillPerSecond,
+            @Value("${application.ratelimit.client.max-tracked:10000}") int maxTrackedClients,
+            @Value("${application.trusted-proxies:}") String[] trustedProxies,
+            @Value("${application.ratelimit.search.capacity:500}") long searchCapacity,
+            @Value("${application.ratelimit.search.refill-per-second:200}") long searchRefillPerSecond,
+            @Value("${application.ratelimit.checkout.capacity:2000}") long checkoutCapacity,
+            @Value("${application.ratelimit.checkout.refill-per-second:1000}") long checkoutRefillPerSecond,
+            @Value("${application.ratelimit.search.concurrency.initial:20}") int initialConcurrency,
+            @Value("${application.ratelimit.search.concurrency.min:2}") int minConcurrency,
+            @Value("${application.ratelimit.search.concurrency.max:200}") int maxConcurrency,
+            @Value("${application.ratelimit.search.concurrency.target-latency-ms:250}") long targetLatencyMillis,
+            @Value("${application.ratelimit.search.queue.max:50}") int maxQueuedSearches,
+            @Value("${application.ratelimit.search.queue.max-wait-ms:100}") long maxQueueWaitMillis,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.enabled = enabled;
+        this.clientCapacity = clientCapacity;
+        this.clientRefillPerSecond = clientRefillPerSecond;
+        this.maxTrackedClients = maxTrackedClients;
+        this.clientAddresses = new ClientAddressResolver(trustedProxies);
+        for (RequestClass requestClass : RequestClass.values()) {
+            this.overflowBuckets.put(requestClass, new TokenBucket(clientCapacity, clientRefillPerSecond));
+        }
+        this.endpointBuckets.put(RequestClass.SEARCH, new TokenBucket(searchCapacity, searchRefillPerSecond));
+        this.endpointBuckets.put(RequestClass.CHECKOUT, new TokenBucket(checkoutCapacity, checkoutRefillPerSecond));
+        this.searchLimit = new AdaptiveConcurrencyLimit(initialConcurrency, minConcurrency, maxConcurrency, targetLatencyMillis);
+        this.maxQueuedSearches = maxQueuedSearches;
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        for (RequestClass requestClass : RequestClass.values()) {
+            rateLimited.put(requestClass, registry.counter("library.requests.rejected",
+                    "class", requestClass.name().toLowerCase(), "reason", "rate_limit"));
+        }
+        this.shed = registry.counter("library.requests.rejected", "class", "search", "reason", "shed");
+        registry.gauge("library.requests.inflight", searchLimit, AdaptiveConcurrencyLimit::getInFlight);
+        registry.gauge("library.requests.queued", searchLimit, AdaptiveConcurrencyLimit::getQueued);
+        registry.gauge("library.requests.concurrency.limit", searchLimit, AdaptiveConcurrencyLimit::getLimit);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestClass requestClass = RequestClass.of(request);
+
+        TokenBucket endpointBucket = endpointBuckets.get(requestClass);
+        if (!clientBucket(request, requestClass).tryConsume()
+                || (endpointBucket != null && !endpointBucket.tryConsume())) {
+            rateLimited.get(requestClass).increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+            return;
+        }
+
+        if (requestClass == RequestClass.CHECKOUT) {
+            //nunca descartado, mas ocupa o limite e tira vagas das buscas
+            searchLimit.acquirePriority();
+            proceed(request, response, chain, searchLimit::releasePriority);
+            return;
+        }
+        if (requestClass != RequestClass.SEARCH) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!searchLimit.tryAcquire(maxQueuedSearches, maxQueueWaitMillis)) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Search temporarily unavailable");
+            return;
+        }
+        proceed(request, response, chain, searchLimit::release);
+    }
+
+    private void proceed(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                         LongConsumer release) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+            if (async) {
+                //a requisicao continua em outro pool: a vaga so e liberada quando ela termina
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release.accept(System.nanoTime() - start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            }
+        } finally {
+            if (!async) {
+                release.accept(System.nanoTime() - start);
+            }
+        }
+    }
+
+    //descarta os clientes ociosos, cujo balde ja esta cheio
+    @Scheduled(fixedDelayString = "${application.ratelimit.client.evict-interval-ms:10000}")
+    public void evictIdleClients() {
+        clientBuckets.values().removeIf(TokenBucket::isFull);
+    }
+
+    private TokenBucket clientBucket(HttpServletRequest request, RequestClass requestClass) {
+        String key = clientAddresses.resolve(request) + ":" + requestClass;
+        TokenBucket bucket = clientBuckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= maxTrackedClients) {
+            return overflowBuckets.get(requestClass);
+        }
+        return clientBuckets.computeIfAbsent(key, k -> new TokenBucket(clientCapacity, clientRefillPerSecond));
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"errors\":[\"" + message + "\"]}");
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.libraryapi.api.ratelimit;
+
+import javax.servlet.http.HttpServletRequest;
+
+public enum RequestClass {
+
+    CHECKOUT,
+    SEARCH,
+    OTHER;
+
+    //emprestimos e devolucoes tem prioridade sobre as buscas
+    public static RequestClass of(HttpServletRequest request) {
+        String method = request.getMethod();
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        if (path.startsWith("/api/loans") && ("POST".equals(method) || "PATCH".equals(method))) {
+            return CHECKOUT;
+        }
+        if ("GET".equals(method) && ("/api/books".equals(path) || "/api/loans".equals(path))) {
+            return SEARCH;
+        }
+        return OTHER;
+    }
+}
@@ -1,5 +1,6 @@
 package com.library.libraryapi.api.resource;
 
+import com.library.libraryapi.api.async.WorkloadExecutors;
 import com.library.libraryapi.api.dto.BooKDTO;
 import com.library.libraryapi.api.dto.LoanDto;
 import com.library.libraryapi.model.entity.Book;
@@ -21,7 +22,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -34,6 +37,7 @@ public class BookController {
     private final BookService service;
     private final ModelMapper modelMapper;
     private final LoanService loanService;
+    private final WorkloadExecutors executors;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -83,31 +87,37 @@ public class BookController {
 
     @GetMapping
     @ApiOperation("Find books by params")
-    public Page<BooKDTO> find(BooKDTO dto, Pageable pageableRequest){
-        Book filter = modelMapper.map(dto,Book.class);
-        Page<Book> result = service.find(filter, pageableRequest);
-        List<BooKDTO> list = result.getContent().stream()
-                        .map( entity -> modelMapper.map(entity,BooKDTO.class) )
-                        .collect(Collectors.toList());
+    public CompletableFuture<Page<BooKDTO>> find(BooKDTO dto, Pageable pageableRequest){
+        return CompletableFuture.supplyAsync(() -> {
+            Book filter = modelMapper.map(dto,Book.class);
+            Page<Book> result = service.find(filter, pageableRequest);
+            List<BooKDTO> list = result.getContent().stream()
+                            .map( entity -> modelMapper.map(entity,BooKDTO.class) )
+                            .collect(Collectors.toList());
 
-        return new PageImpl<BooKDTO>(list,pageableRequest,result.getTotalElements());
+            return new PageImpl<BooKDTO>(list,pageableRequest,result.getTotalElements());
+        }, executors.search());
     }
 
     @GetMapping("{id}/loans")
     @ApiOperation("Obtains a book loans")
-    public Page<LoanDto> loansByBook(@PathVariable Long id, Pageable pageable){
-        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
-        List<LoanDto> list = result.getContent()
-                .stream()
-                .map(loan -> {
-                    Book loanBook = loan.getBook();
-                    BooKDTO bookDTO = modelMapper.map(loanBook, BooKDTO.class);
-                    LoanDto loanDto = modelMapper.map(loan, LoanDto.class);
-                    loanDto.setBook(bookDTO);
-                    return loanDto;
-                }).collect(Collectors.toList());
+    public CompletableFuture<Page<LoanDto>> loansByBook(@PathVariable Long id, Pageable pageable){
+        return CompletableFuture.supplyAsync(() -> {
+            Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            Page<Loan> result = loanService.getLoansByBook(book, pageable);
+            //todos os emprestimos sao do mesmo livro: mapeia uma unica vez
+            BooKDTO bookDTO = modelMapper.map(book, BooKDTO.class);
+            LocalDate today = LocalDate.now();
+            List<LoanDto> list = result.getContent()
+                    .stream()
+                    .map(loan -> {
+                        LoanDto loanDto = modelMapper.map(loan, LoanDto.class);
+                        loanDto.setBook(bookDTO);
+                        loanDto.setOverdue(loan.isOverdue(today));
+                        return loanDto;
+                    }).collect(Collectors.toList());
 
-        return new PageImpl<LoanDto>(list, pageable, result.getTotalElements());
+            return new PageImpl<LoanDto>(list, pageable, result.getTotalElements());
+        }, executors.search());
     }
 }
@@ -0,0 +1,144 @@
+package com.library.libraryapi.api.resource;
+
+import com.library.libraryapi.api.dto.ConsumerOffsetDTO;
+import com.library.libraryapi.service.event.ChangeEvent;
+import com.library.libraryapi.service.event.ChangeEventBatch;
+import com.library.libraryapi.service.event.ChangeEventLog;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Leitura do log de alteracoes. O offset devolvido em {@code nextOffset} (e no id de cada
+ * evento do stream) e a posicao seguinte no log: basta envia-lo de volta em {@code from},
+ * em {@code Last-Event-ID} ou grava-lo como offset do consumidor.
+ */
+@RestController
+@RequestMapping("/api/events")
+@ConditionalOnProperty(name = "application.events.enabled", havingValue = "true")
+@Api("Change Events API")
+@Slf4j
+public class ChangeEventController {
+
+    private static final int MAX_LIMIT = 1000;
+    private static final int STREAM_BATCH = 500;
+
+    private final ChangeEventLog eventLog;
+    private final ThreadPoolExecutor streams;
+    private final long heartbeatMillis;
+    private final long streamTimeoutMillis;
+
+    //cada stream aberto ocupa uma thread; acima do limite a conexao e recusada com 503
+    public ChangeEventController(ChangeEventLog eventLog,
+                                 @Value("${application.events.stream.max-subscribers:64}") int maxSubscribers,
+                                 @Value("${application.events.stream.heartbeat-ms:15000}") long heartbeatMillis,
+                                 @Value("${application.events.stream.timeout-ms:1800000}") long streamTimeoutMillis) {
+        this.eventLog = eventLog;
+        this.heartbeatMillis = heartbeatMillis;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.streams = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new CustomizableThreadFactory("events-stream-"),
+                (task, executor) -> {
+                    throw new RejectedExecutionException("events stream executor saturated");
+                });
+        this.streams.allowCoreThreadTimeOut(true);
+    }
+
+    @GetMapping
+    @ApiOperation("Reads change events from an offset, a consumer position or the start of the log")
+    public ChangeEventBatch read(@RequestParam(required = false) Long from,
+                                 @RequestParam(required = false) String consumer,
+                                 @RequestParam(defaultValue = "100") int limit) {
+        long offset = from != null ? from : consumerOffset(consumer, eventLog.startOffset());
+        return eventLog.read(offset, Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation("Tails change events as Server-Sent Events, from now unless an offset is given")
+    public SseEmitter stream(@RequestParam(required = false) Long from,
+                             @RequestParam(required = false) String consumer,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long offset = lastEventId != null ? lastEventId
+                : from != null ? from : consumerOffset(consumer, eventLog.endOffset());
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+        streams.execute(() -> tail(emitter, offset, open));
+        return emitter;
+    }
+
+    @GetMapping("/consumers/{consumer}")
+    @ApiOperation("Obtains the committed offset of a consumer")
+    public ConsumerOffsetDTO getConsumer(@PathVariable String consumer) {
+        long offset = eventLog.getConsumerOffset(consumer)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return new ConsumerOffsetDTO(consumer, offset);
+    }
+
+    @PutMapping("/consumers/{consumer}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @ApiOperation("Commits the offset of a consumer")
+    public void commitConsumer(@PathVariable String consumer, @RequestBody @Valid ConsumerOffsetDTO dto) {
+        eventLog.commitOffset(consumer, dto.getOffset());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.shutdownNow();
+    }
+
+    private long consumerOffset(String consumer, long fallback) {
+        return consumer == null ? fallback : eventLog.getConsumerOffset(consumer).orElse(fallback);
+    }
+
+    private void tail(SseEmitter emitter, long from, AtomicBoolean open) {
+        long offset = from;
+        try {
+            while (open.get()) {
+                ChangeEventBatch batch = eventLog.read(offset, STREAM_BATCH);
+                List<ChangeEvent> events = batch.getEvents();
+                for (int i = 0; i < events.size(); i++) {
+                    ChangeEvent event = events.get(i);
+                    long next = i + 1 < events.size() ? events.get(i + 1).getOffset() : batch.getNextOffset();
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(next))
+                            .name(event.getType().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                }
+                offset = batch.getNextOffset();
+                if (events.isEmpty() && !eventLog.await(offset, heartbeatMillis)) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            //cliente desconectado ou emitter ja encerrado
+            log.debug(" Change event stream closed at offset {}: {} ", offset, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (RuntimeException e) {
+            emitter.completeWithError(e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.library.libraryapi.api.resource;
 
+import com.library.libraryapi.api.async.WorkloadExecutors;
 import com.library.libraryapi.api.dto.BooKDTO;
 import com.library.libraryapi.api.dto.LoanDto;
 import com.library.libraryapi.api.dto.LoanFilterDTO;
@@ -22,6 +23,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -34,56 +36,64 @@ public class LoanController {
     private final LoanService service;
     private final BookService bookService;
     private final ModelMapper modelMapper;
+    private final WorkloadExecutors executors;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @ApiOperation("Creates a loan")
-    public Long create(@RequestBody LoanDto dto){
+    public CompletableFuture<Long> create(@RequestBody LoanDto dto){
+        return CompletableFuture.supplyAsync(() -> {
 
-        Book book = bookService
-                .getBookByIsbn(dto.getIsbn())
-                .orElseThrow(()->
-                        new ResponseStatusException(HttpStatus.BAD_REQUEST,"Book not found for passed isbn"));
+            Book book = bookService
+                    .getBookByIsbn(dto.getIsbn())
+                    .orElseThrow(()->
+                            new ResponseStatusException(HttpStatus.BAD_REQUEST,"Book not found for passed isbn"));
 
-        Loan entity = Loan.builder()
-                .book(book)
-                .customer(dto.getCustomer())
-                .loanDate(LocalDate.now())
-                .build();
+            Loan entity = Loan.builder()
+                    .book(book)
+                    .customer(dto.getCustomer())
+                    .loanDate(LocalDate.now())
+                    .build();
 
-        entity = service.save(entity);
-        return entity.getId();
+            return service.save(entity).getId();
 
+        }, executors.checkout());
     }
 
     @PatchMapping("{id}")
     @ResponseStatus(HttpStatus.OK)
     @ApiOperation("Updates a loan")
-    public void returnBook (
+    public CompletableFuture<Void> returnBook (
             @PathVariable Long id,
             @RequestBody ReturnedLoanDTO dto){
-        Loan loan = service.getById(id).orElseThrow(()->new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(dto.getReturned());
+        return CompletableFuture.runAsync(() -> {
+            Loan loan = service.getById(id).orElseThrow(()->new ResponseStatusException(HttpStatus.NOT_FOUND));
+            loan.setReturned(dto.getReturned());
 
-        service.update(loan);
+            service.update(loan);
+        }, executors.checkout());
     }
 
     @GetMapping
     @ApiOperation("Find loans by params")
-    public Page<LoanDto> find (LoanFilterDTO dto, Pageable pageaRequest){
-        Page<Loan> result = service.find(dto, pageaRequest);
-        List<LoanDto> loans = result
-                .getContent()
-                .stream()
-                .map(entity -> {
+    public CompletableFuture<Page<LoanDto>> find (LoanFilterDTO dto, Pageable pageaRequest){
+        return CompletableFuture.supplyAsync(() -> {
+            LocalDate today = LocalDate.now();
+            Page<Loan> result = service.find(dto, pageaRequest);
+            List<LoanDto> loans = result
+                    .getContent()
+                    .stream()
+                    .map(entity -> {
 
-                    Book book = entity.getBook();
-                    BooKDTO booKDTO = modelMapper.map(book, BooKDTO.class);
-                    LoanDto loanDTO = modelMapper.map(entity, LoanDto.class);
-                    loanDTO.setBook(booKDTO);
-                    return loanDTO;
+                        Book book = entity.getBook();
+                        BooKDTO booKDTO = modelMapper.map(book, BooKDTO.class);
+                        LoanDto loanDTO = modelMapper.map(entity, LoanDto.class);
+                        loanDTO.setBook(booKDTO);
+                        loanDTO.setOverdue(entity.isOverdue(today));
+                        return loanDTO;
 
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDto>(loans,pageaRequest,result.getTotalElements());
+                    }).collect(Collectors.toList());
+            return new PageImpl<LoanDto>(loans,pageaRequest,result.getTotalElements());
+        }, executors.search());
     }
 }
@@ -0,0 +1,41 @@
+package com.library.libraryapi.api.resource;
+
+import com.library.libraryapi.api.dto.MailSuppressionDTO;
+import com.library.libraryapi.model.entity.MailSuppression;
+import com.library.libraryapi.service.MailSuppressionService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+
+@RestController
+@RequestMapping("/api/mail-suppressions")
+@RequiredArgsConstructor
+@Api("Mail Suppression API")
+@Slf4j
+public class MailSuppressionController {
+
+    private final MailSuppressionService service;
+    private final ModelMapper modelMapper;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    @ApiOperation("Stops sending mails to an address (bounce or opt-out)")
+    public MailSuppressionDTO create(@RequestBody @Valid MailSuppressionDTO dto){
+        log.info(" Suppressing mails to an address: {} ", dto.getReason());
+        MailSuppression suppression = service.suppress(dto.getEmail(), dto.getReason());
+        return modelMapper.map(suppression, MailSuppressionDTO.class);
+    }
+
+    @DeleteMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @ApiOperation("Allows mails to an address again")
+    public void delete(@RequestParam String email){
+        service.remove(email);
+    }
+}
@@ -0,0 +1,62 @@
+package com.library.libraryapi.api.resource;
+
+import com.library.libraryapi.api.dto.BookLoanCountDTO;
+import com.library.libraryapi.api.dto.CustomerOverdueDTO;
+import com.library.libraryapi.api.dto.DailyLoanVolumeDTO;
+import com.library.libraryapi.service.ReportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Api("Report API")
+@Slf4j
+public class ReportController {
+
+    private final ReportService service;
+
+    @GetMapping("books/{id}/loans")
+    @ApiOperation("Obtains the loan count of a book")
+    public Long loanCountByBook(@PathVariable Long id){
+        return service.getLoanCountByBook(id);
+    }
+
+    @GetMapping("books/top")
+    @ApiOperation("Obtains the most borrowed books")
+    public Page<BookLoanCountDTO> topBorrowedBooks(Pageable pageable){
+        return service.getTopBorrowedBooks(pageable);
+    }
+
+    @GetMapping("customers/overdue")
+    @ApiOperation("Obtains the overdue loan count by customer")
+    public Page<CustomerOverdueDTO> overdueByCustomer(Pageable pageable){
+        return service.getOverdueByCustomer(pageable);
+    }
+
+    @GetMapping("checkouts/daily")
+    @ApiOperation("Obtains the daily checkout volume")
+    public List<DailyLoanVolumeDTO> dailyCheckouts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        return service.getDailyCheckouts(from, to);
+    }
+
+    @PostMapping("rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @ApiOperation("Rebuilds the loan reports from the loan history")
+    public void rebuild(){
+        log.info(" Rebuilding loan reports ");
+        service.rebuild();
+    }
+}
@@ -0,0 +1,30 @@
+package com.library.libraryapi.api.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.data.domain.Page;
+
+import java.io.IOException;
+
+/**
+ * Escreve uma pagina apenas com o conteudo e os totais, sem os metadados de
+ * Pageable e Sort que o PageImpl expoe por padrao.
+ */
+public class LeanPageSerializer extends StdSerializer<Page> {
+
+    public LeanPageSerializer() {
+        super(Page.class);
+    }
+
+    @Override
+    public void serialize(Page page, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName("content");
+        provider.defaultSerializeValue(page.getContent(), generator);
+        generator.writeNumberField("page", page.getNumber());
+        generator.writeNumberField("size", page.getSize());
+        generator.writeNumberField("totalElements", page.getTotalElements());
+        generator.writeEndObject();
+    }
+}
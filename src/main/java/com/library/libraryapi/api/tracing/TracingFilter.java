@@ -0,0 +1,124 @@
+package com.library.libraryapi.api.tracing;
+
+import com.library.libraryapi.tracing.Span;
+import com.library.libraryapi.tracing.Tracer;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Abre o span SERVER de cada request da API, continuando o trace do header
+ * {@code traceparent} quando o cliente enviar um. O span recebe no fim a rota e o metodo
+ * do controller ({@code LoanController.create}); nos endpoints assincronos ele so termina
+ * quando a resposta for concluida. O trace id vai para o MDC junto com o correlation id,
+ * inclusive nos traces nao amostrados.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "traceparent";
+    public static final String MDC_KEY = "traceId";
+
+    private final ObjectProvider<Tracer> tracer;
+
+    public TracingFilter(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Tracer tracer = this.tracer.getIfAvailable();
+        if (tracer == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Span span = tracer.startServerSpan(request.getMethod(), request.getHeader(HEADER));
+        //mesmo sem amostragem: os logs do request continuam agrupados pelo trace id
+        MDC.put(MDC_KEY, span.getTraceId());
+        if (span.isSampled()) {
+            span.setAttribute("http.method", request.getMethod());
+            span.setAttribute("http.target", request.getRequestURI());
+        }
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            MDC.remove(MDC_KEY);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new SpanListener(span));
+                Tracer.clearCurrent();
+            } else {
+                end(span, request, response);
+            }
+        }
+    }
+
+    private static void end(Span span, HttpServletRequest request, HttpServletResponse response) {
+        if (span.isSampled()) {
+            Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (route != null) {
+                span.setName(request.getMethod() + " " + route);
+                span.setAttribute("http.route", route);
+            }
+            Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            if (handler instanceof HandlerMethod) {
+                HandlerMethod method = (HandlerMethod) handler;
+                span.setAttribute("code.function", method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+            }
+            span.setAttribute("http.status_code", response.getStatus());
+        }
+        span.end();
+    }
+
+    private static class SpanListener implements AsyncListener {
+
+        private final Span span;
+
+        SpanListener(Span span) {
+            this.span = span;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            end(span, (HttpServletRequest) event.getSuppliedRequest(), (HttpServletResponse) event.getSuppliedResponse());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            span.setAttribute("http.timeout", true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (event.getThrowable() != null) {
+                span.recordError(event.getThrowable());
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.libraryapi.api.validation;
+
+import com.library.libraryapi.service.support.Isbn;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+//valores vazios ficam a cargo do @NotEmpty
+public class IsbnValidator implements ConstraintValidator<ValidIsbn, String> {
+
+    @Override
+    public boolean isValid(String value, ConstraintValidatorContext context) {
+        return value == null || value.isEmpty() || Isbn.pack(value) != null;
+    }
+}
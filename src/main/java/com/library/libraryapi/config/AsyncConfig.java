@@ -0,0 +1,34 @@
+package com.library.libraryapi.config;
+
+import com.library.libraryapi.api.async.WorkloadExecutors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${application.async.timeout-ms:30000}")
+    private Long timeoutMillis;
+
+    @Bean(destroyMethod = "shutdown")
+    public WorkloadExecutors workloadExecutors(
+            @Value("${application.async.search.threads:16}") int searchThreads,
+            @Value("${application.async.search.queue-capacity:200}") int searchQueue,
+            @Value("${application.async.checkout.threads:8}") int checkoutThreads,
+            @Value("${application.async.checkout.queue-capacity:500}") int checkoutQueue,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new WorkloadExecutors(searchThreads, searchQueue, checkoutThreads, checkoutQueue,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.libraryapi.config;
+
+import org.aopalliance.aop.Advice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.lang.reflect.Modifier;
+
+/**
+ * Aplica os interceptores de instrumentacao (tracing e profiling) aos beans, numa ordem
+ * fixa que nao depende da ordem dos BeanPostProcessors: o span e o mais externo, depois o
+ * evento do JFR, e so entao os interceptores do proprio bean (como a transacao), para que
+ * ambos medam a chamada inteira.
+ * <p>
+ * Proxies nao congelados recebem o interceptor na sua posicao entre os demais; os outros
+ * ganham um proxy de classe, para os metodos {@code @EventListener} continuarem visiveis.
+ */
+public final class InstrumentationAdvice {
+
+    public static final int TRACING = 0;
+    public static final int PROFILING = 1;
+
+    private InstrumentationAdvice() {
+    }
+
+    /**
+     * @return o proprio bean, quando ele ja era um proxy, o novo proxy, ou o bean sem
+     * instrumentacao quando a classe e final
+     */
+    public static Object apply(Object bean, MethodInterceptor interceptor, int order) {
+        OrderedInterceptor advice = new OrderedInterceptor(interceptor, order);
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            Advised advised = (Advised) bean;
+            advised.addAdvice(position(advised, order), advice);
+            return bean;
+        }
+        if (Modifier.isFinal(bean.getClass().getModifiers())) {
+            return bean;
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(advice);
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    //depois das instrumentacoes de ordem menor ou igual, antes de todo o resto
+    private static int position(Advised advised, int order) {
+        Advisor[] advisors = advised.getAdvisors();
+        int position = 0;
+        while (position < advisors.length && isBefore(advisors[position].getAdvice(), order)) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isBefore(Advice advice, int order) {
+        return advice instanceof OrderedInterceptor && ((OrderedInterceptor) advice).order <= order;
+    }
+
+    private static final class OrderedInterceptor implements MethodInterceptor {
+
+        private final MethodInterceptor delegate;
+        private final int order;
+
+        OrderedInterceptor(MethodInterceptor delegate, int order) {
+            this.delegate = delegate;
+            this.order = order;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            return delegate.invoke(invocation);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.libraryapi.config;
+
+import com.library.libraryapi.service.notification.FakeSmtpServer;
+import com.library.libraryapi.service.notification.InMemoryMailTransport;
+import com.library.libraryapi.service.notification.MailTransport;
+import com.library.libraryapi.service.notification.Maildir;
+import com.library.libraryapi.service.notification.MaildirMailTransport;
+import com.library.libraryapi.service.notification.SmtpMailTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Escolhe o destino dos emails por application.mail.transport: smtp (padrao, servidor de
+ * spring.mail.*), fake-smtp (servidor SMTP embutido em loopback), maildir (arquivos em
+ * disco) ou memory.
+ */
+@Configuration
+public class MailTransportConfig {
+
+    private static final String TRANSPORT = "application.mail.transport";
+
+    @Value("${application.mail.default-remetent}")
+    private String remetent;
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT, havingValue = "smtp", matchIfMissing = true)
+    public MailTransport smtpMailTransport(JavaMailSender javaMailSender) {
+        return new SmtpMailTransport(javaMailSender, remetent, "smtp");
+    }
+
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnProperty(name = TRANSPORT, havingValue = "fake-smtp")
+    public FakeSmtpServer fakeSmtpServer(
+            @Value("${application.mail.transport.fake-smtp.port:0}") int port,
+            @Value("${application.mail.transport.fake-smtp.spool:}") String spool) throws IOException {
+        FakeSmtpServer server = new FakeSmtpServer(port,
+                StringUtils.hasText(spool) ? new Maildir(Paths.get(spool)) : null);
+        server.start();
+        return server;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT, havingValue = "fake-smtp")
+    public MailTransport fakeSmtpMailTransport(FakeSmtpServer fakeSmtpServer) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(fakeSmtpServer.getPort());
+        return new SmtpMailTransport(sender, remetent, "fake-smtp");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT, havingValue = "maildir")
+    public MailTransport maildirMailTransport(
+            @Value("${application.mail.transport.maildir.directory:data/maildir}") String directory) {
+        return new MaildirMailTransport(Paths.get(directory), remetent);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT, havingValue = "memory")
+    public MailTransport inMemoryMailTransport(
+            @Value("${application.mail.transport.memory.capacity:1000}") int capacity) {
+        return new InMemoryMailTransport(capacity);
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.libraryapi.config;
+
+import com.library.libraryapi.tracing.InMemorySpanExporter;
+import com.library.libraryapi.tracing.OtlpJsonFileSpanExporter;
+import com.library.libraryapi.tracing.SpanExporter;
+import com.library.libraryapi.tracing.Tracer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * Escolhe o destino dos spans por application.tracing.exporter: memory (padrao, os ultimos
+ * spans em {@code /actuator/tracing}), file (OTLP/JSON em disco, para importar num
+ * collector depois) ou none (so a propagacao do contexto).
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    private static final String EXPORTER = "application.tracing.exporter";
+
+    @Bean
+    public Tracer tracer(SpanExporter spanExporter,
+                         @Value("${application.tracing.sample-ratio:0.1}") double sampleRatio) {
+        return new Tracer(spanExporter, sampleRatio);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = EXPORTER, havingValue = "memory", matchIfMissing = true)
+    public SpanExporter inMemorySpanExporter(
+            @Value("${application.tracing.exporter.memory.capacity:1000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = EXPORTER, havingValue = "file")
+    public SpanExporter fileSpanExporter(
+            @Value("${application.tracing.exporter.file.path:data/traces/spans.jsonl}") String path,
+            @Value("${application.tracing.exporter.file.queue-capacity:10000}") int queueCapacity,
+            @Value("${spring.application.name:library-api}") String serviceName) {
+        return new OtlpJsonFileSpanExporter(Paths.get(path), serviceName, queueCapacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = EXPORTER, havingValue = "none")
+    public SpanExporter noopSpanExporter() {
+        return span -> {
+        };
+    }
+}
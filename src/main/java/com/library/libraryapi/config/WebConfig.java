@@ -0,0 +1,37 @@
+package com.library.libraryapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.library.libraryapi.api.serializer.LeanPageSerializer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    //formato binario (application/x-jackson-smile) com envelope de pagina enxuto
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        SmileFactory smileFactory = new SmileFactory()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+
+        ObjectMapper smileMapper = objectMapperBuilder
+                .factory(smileFactory)
+                .modulesToInstall(new SimpleModule().addSerializer(new LeanPageSerializer()))
+                .build();
+
+        converters.removeIf(converter -> converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper));
+    }
+}
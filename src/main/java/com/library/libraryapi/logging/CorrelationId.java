@@ -0,0 +1,50 @@
+package com.library.libraryapi.logging;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Id que acompanha um request nos logs (MDC {@value #MDC_KEY}), inclusive nas threads
+ * dos pools assincronos via {@link #propagate(Runnable)}.
+ */
+public final class CorrelationId {
+
+    public static final String MDC_KEY = "correlationId";
+    public static final String HEADER = "X-Correlation-Id";
+
+    private static final Pattern VALID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private CorrelationId() {
+    }
+
+    //id recebido de outro servico, se valido; senao um novo
+    public static String resolve(String received) {
+        if (received != null && VALID.matcher(received).matches()) {
+            return received;
+        }
+        return String.format("%016x", ThreadLocalRandom.current().nextLong());
+    }
+
+    public static Runnable propagate(Runnable task) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        if (context == null) {
+            return task;
+        }
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(context);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previous);
+                }
+            }
+        };
+    }
+}
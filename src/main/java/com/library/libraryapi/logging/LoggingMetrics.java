@@ -0,0 +1,47 @@
+package com.library.libraryapi.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+
+/**
+ * Publica a fila e os descartes do {@link SamplingAsyncAppender} configurado no
+ * logback-spring.xml: {@code library.logging.queue}, {@code library.logging.dropped} e
+ * {@code library.logging.sampled}.
+ */
+@Component
+public class LoggingMetrics {
+
+    public LoggingMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return;
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        Logger root = ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(Logger.ROOT_LOGGER_NAME);
+        for (Iterator<Appender<ILoggingEvent>> appenders = root.iteratorForAppenders(); appenders.hasNext(); ) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof SamplingAsyncAppender) {
+                SamplingAsyncAppender async = (SamplingAsyncAppender) appender;
+                Gauge.builder("library.logging.queue", async, SamplingAsyncAppender::getNumberOfElementsInQueue)
+                        .tag("appender", async.getName())
+                        .register(registry);
+                FunctionCounter.builder("library.logging.dropped", async, SamplingAsyncAppender::getDroppedCount)
+                        .tag("appender", async.getName())
+                        .register(registry);
+                FunctionCounter.builder("library.logging.sampled", async, SamplingAsyncAppender::getSampledOutCount)
+                        .tag("appender", async.getName())
+                        .register(registry);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.library.libraryapi.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AsyncAppender do logback com fila limitada que descarta logs INFO/DEBUG/TRACE quando
+ * restam menos de {@code discardingThreshold} posicoes livres (por padrao 20% da fila);
+ * WARN e ERROR esperam por espaco e nunca sao perdidos. Os loggers em
+ * {@code sampledLoggers} (prefixos separados por virgula) tem os logs ate INFO
+ * amostrados em {@code sampleRate}: a decisao usa o {@link CorrelationId}, entao um
+ * request amostrado aparece inteiro. Descartes e amostragem sao contados para as metricas.
+ */
+public class SamplingAsyncAppender extends AsyncAppender {
+
+    private static final int SAMPLE_SCALE = 1 << 16;
+
+    private String sampledLoggers = "";
+    private double sampleRate = 1.0;
+
+    private final List<String> sampledPrefixes = new ArrayList<>();
+    private int sampleThreshold = SAMPLE_SCALE;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+
+    @Override
+    public void start() {
+        sampledPrefixes.clear();
+        for (String prefix : sampledLoggers.split(",")) {
+            if (!prefix.trim().isEmpty()) {
+                sampledPrefixes.add(prefix.trim());
+            }
+        }
+        sampleThreshold = (int) Math.round(Math.max(0, Math.min(1, sampleRate)) * SAMPLE_SCALE);
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (isDiscardable(event)) {
+            if (!sampled(event)) {
+                sampledOut.increment();
+                return;
+            }
+            if (getRemainingCapacity() < getDiscardingThreshold()) {
+                dropped.increment();
+                return;
+            }
+        }
+        super.append(event);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    public String getSampledLoggers() {
+        return sampledLoggers;
+    }
+
+    public void setSampledLoggers(String sampledLoggers) {
+        this.sampledLoggers = sampledLoggers == null ? "" : sampledLoggers;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    private boolean sampled(ILoggingEvent event) {
+        if (sampleThreshold >= SAMPLE_SCALE || !isSampledLogger(event.getLoggerName())) {
+            return true;
+        }
+        String correlationId = event.getMDCPropertyMap().get(CorrelationId.MDC_KEY);
+        int bucket = correlationId == null
+                ? ThreadLocalRandom.current().nextInt(SAMPLE_SCALE)
+                : ((correlationId.hashCode() * 0x9E3779B9) >>> 16) & (SAMPLE_SCALE - 1);
+        return bucket < sampleThreshold;
+    }
+
+    private boolean isSampledLogger(String loggerName) {
+        for (String prefix : sampledPrefixes) {
+            if (loggerName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
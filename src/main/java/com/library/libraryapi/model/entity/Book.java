@@ -6,14 +6,19 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
+import java.time.LocalDate;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_book_isbn", columnList = "isbn"),
+        @Index(name = "idx_book_isbn_key", columnList = "isbn_key", unique = true),
+        @Index(name = "idx_book_total_loans", columnList = "total_loans")
+})
 public class Book {
 
     @Id
@@ -30,6 +35,21 @@ public class Book {
     @Column
     private String isbn;
 
+    //ISBN-13 numerico; nulo apenas para registros antigos com isbn fora do padrao
+    @Column(name = "isbn_key")
+    private Long isbnKey;
+
+    //contadores mantidos pelo BookRepository a cada emprestimo/devolucao, na mesma transacao
+    //do contador de book_loan_statistic; o rebuild dos relatorios os realinha
+    @Column(name = "total_loans", updatable = false)
+    private Long totalLoans;
+
+    @Column(name = "active_loan", updatable = false)
+    private Boolean activeLoan;
+
+    @Column(name = "last_loan_date", updatable = false)
+    private LocalDate lastLoanDate;
+
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
 
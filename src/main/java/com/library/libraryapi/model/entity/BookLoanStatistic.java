@@ -0,0 +1,29 @@
+package com.library.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_loan_statistic", indexes = @Index(name = "idx_book_loan_statistic_total", columnList = "total_loans"))
+public class BookLoanStatistic {
+
+    @Id
+    @Column(name = "id_book")
+    private Long bookId;
+
+    @Column(name = "total_loans")
+    private Long totalLoans;
+
+    @Column(name = "last_loan_date")
+    private LocalDate lastLoanDate;
+
+}
@@ -0,0 +1,26 @@
+package com.library.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "daily_loan_statistic")
+public class DailyLoanStatistic {
+
+    @Id
+    @Column(name = "loan_date")
+    private LocalDate loanDate;
+
+    @Column
+    private Long checkouts;
+
+}
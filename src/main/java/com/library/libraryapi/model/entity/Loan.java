@@ -11,10 +11,19 @@ import java.time.LocalDate;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_loan_customer", columnList = "customer"),
+        @Index(name = "idx_loan_customer_email", columnList = "customer_email"),
+        @Index(name = "idx_loan_loan_date", columnList = "loanDate"),
+        @Index(name = "idx_loan_book_returned", columnList = "id_book,returned"),
+        @Index(name = "idx_loan_returned_due_date", columnList = "returned,due_date")
+})
 public class Loan {
 
+    public static final int LOAN_DAYS = 4;
+
     @Id
     @Column
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,5 +45,17 @@ public class Loan {
     @Column
     private Boolean returned;
 
+    //vence no proprio dia: a partir dele o emprestimo ja conta como atrasado
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    public boolean isOverdue(LocalDate today) {
+        LocalDate due = effectiveDueDate();
+        return !Boolean.TRUE.equals(returned) && due != null && !due.isAfter(today);
+    }
 
+    //emprestimos anteriores ao due_date, ainda nao migrados, vencem LOAN_DAYS apos o emprestimo
+    public LocalDate effectiveDueDate() {
+        return dueDate != null || loanDate == null ? dueDate : loanDate.plusDays(LOAN_DAYS);
+    }
 }
@@ -0,0 +1,79 @@
+package com.library.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Emprestimo devolvido movido da tabela Loan pelo arquivamento. Mantem o id original.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_history", indexes = @Index(name = "idx_loan_history_book", columnList = "id_book"))
+public class LoanHistory implements Persistable<Long> {
+
+    @Id
+    @Column
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne
+    private Book book;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column
+    private Boolean returned;
+
+    @Column(name = "due_date")
+    private LocalDate dueDate;
+
+    @Column
+    private LocalDate archivedAt;
+
+    public static LoanHistory of(Loan loan) {
+        return LoanHistory.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomer())
+                .customerEmail(loan.getCustomerEmail())
+                .book(loan.getBook())
+                .loanDate(loan.getLoanDate())
+                .returned(loan.getReturned())
+                .dueDate(loan.getDueDate())
+                .archivedAt(LocalDate.now())
+                .build();
+    }
+
+    public Loan toLoan() {
+        return Loan.builder()
+                .id(id)
+                .customer(customer)
+                .customerEmail(customerEmail)
+                .book(book)
+                .loanDate(loanDate)
+                .returned(returned)
+                .dueDate(dueDate)
+                .build();
+    }
+
+    //o historico so recebe inserts: evita o select do merge a cada registro
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.library.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "mail_suppression", indexes = {
+        @Index(name = "idx_mail_suppression_email", columnList = "email", unique = true)
+})
+public class MailSuppression {
+
+    public enum Reason {
+        BOUNCE,
+        OPT_OUT,
+        //ja recebeu o aviso no dia; so vale para suppressedAt
+        SENT
+    }
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String email;
+
+    @Column(length = 10, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Reason reason;
+
+    @Column(name = "suppressed_at", nullable = false)
+    private LocalDate suppressedAt;
+}
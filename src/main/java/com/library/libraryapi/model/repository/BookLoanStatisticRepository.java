@@ -0,0 +1,41 @@
+package com.library.libraryapi.model.repository;
+
+import com.library.libraryapi.model.entity.BookLoanStatistic;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookLoanStatisticRepository extends JpaRepository<BookLoanStatistic, Long> {
+
+    @Transactional
+    @Modifying
+    @Query(" update BookLoanStatistic s set s.totalLoans = s.totalLoans + 1, s.lastLoanDate = case " +
+            " when s.lastLoanDate is null or s.lastLoanDate < :loanDate then :loanDate else s.lastLoanDate end " +
+            " where s.bookId = :bookId ")
+    int incrementTotalLoans(@Param("bookId") Long bookId, @Param("loanDate") LocalDate loanDate);
+
+    @Transactional
+    @Modifying
+    @Query(value = " merge into book_loan_statistic s using (select cast(:bookId as bigint) as id_book) v " +
+            " on (s.id_book = v.id_book) when not matched then insert (id_book, total_loans) values (v.id_book, 0) ",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("bookId") Long bookId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(" select s from BookLoanStatistic s ")
+    List<BookLoanStatistic> findAllForUpdate();
+
+    @Query( value = " select s.bookId, b.title, b.isbn, s.totalLoans from BookLoanStatistic s, Book b " +
+            " where b.id = s.bookId order by s.totalLoans desc ",
+            countQuery = " select count(s.bookId) from BookLoanStatistic s ")
+    Page<Object[]> findTopBorrowed(Pageable pageable);
+}
@@ -1,13 +1,65 @@
 package com.library.libraryapi.model.repository;
 
 import com.library.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book,Long> {
 
     boolean existsByIsbn(String isbn);
 
     Optional<Book> findByIsbn(String isbn);
+
+    boolean existsByIsbnKey(Long isbnKey);
+
+    Optional<Book> findByIsbnKey(Long isbnKey);
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.totalLoans = coalesce(b.totalLoans, 0) + 1, b.activeLoan = true, b.lastLoanDate = case " +
+            " when b.lastLoanDate is null or b.lastLoanDate < :loanDate then :loanDate else b.lastLoanDate end " +
+            " where b.id = :id ")
+    int registerLoan(@Param("id") Long id, @Param("loanDate") LocalDate loanDate);
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.activeLoan = :active where b.id = :id ")
+    int updateActiveLoan(@Param("id") Long id, @Param("active") Boolean active);
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.activeLoan = :active where b.id in ( select l.book.id from Loan l where l.id in :loanIds ) ")
+    int updateActiveLoanByLoans(@Param("loanIds") Collection<Long> loanIds, @Param("active") Boolean active);
+
+    //copia os contadores de book_loan_statistic, depois de um rebuild dos relatorios
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(" update Book b set " +
+            " b.totalLoans = coalesce(( select s.totalLoans from BookLoanStatistic s where s.bookId = b.id ), 0), " +
+            " b.lastLoanDate = ( select s.lastLoanDate from BookLoanStatistic s where s.bookId = b.id ) ")
+    int copyLoanStatistics();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(" select b.id, b.isbnKey from Book b where b.isbnKey is not null ")
+    Stream<Object[]> streamIdAndIsbnKey();
+
+    @Query(" select b.id, b.isbn from Book b where b.isbnKey is null and b.isbn is not null and b.id > :afterId order by b.id ")
+    List<Object[]> findWithoutIsbnKey(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.isbnKey = :isbnKey, b.isbn = :isbn where b.id = :id ")
+    int updateIsbnKey(@Param("id") Long id, @Param("isbnKey") Long isbnKey, @Param("isbn") String isbn);
 }
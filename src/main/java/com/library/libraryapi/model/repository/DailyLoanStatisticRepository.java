@@ -0,0 +1,34 @@
+package com.library.libraryapi.model.repository;
+
+import com.library.libraryapi.model.entity.DailyLoanStatistic;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyLoanStatisticRepository extends JpaRepository<DailyLoanStatistic, LocalDate> {
+
+    @Transactional
+    @Modifying
+    @Query(" update DailyLoanStatistic s set s.checkouts = s.checkouts + 1 where s.loanDate = :loanDate ")
+    int incrementCheckouts(@Param("loanDate") LocalDate loanDate);
+
+    @Transactional
+    @Modifying
+    @Query(value = " merge into daily_loan_statistic s using (select cast(:loanDate as date) as loan_date) v " +
+            " on (s.loan_date = v.loan_date) when not matched then insert (loan_date, checkouts) values (v.loan_date, 0) ",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("loanDate") LocalDate loanDate);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(" select s from DailyLoanStatistic s ")
+    List<DailyLoanStatistic> findAllForUpdate();
+
+    List<DailyLoanStatistic> findByLoanDateBetweenOrderByLoanDate(LocalDate from, LocalDate to);
+}
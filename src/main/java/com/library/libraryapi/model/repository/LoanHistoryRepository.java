@@ -0,0 +1,29 @@
+package com.library.libraryapi.model.repository;
+
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.LoanHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long> {
+
+    List<LoanHistory> findByBook(Book book, Pageable pageable);
+
+    long countByBook(Book book);
+
+    @Query(" select min(l.id) from LoanHistory l ")
+    Long findMinId();
+
+    @Query(" select max(l.id) from LoanHistory l ")
+    Long findMaxId();
+
+    @Query(" select l.book.id, count(l.id), max(l.loanDate) from LoanHistory l where l.id between :fromId and :toId group by l.book.id ")
+    List<Object[]> countByBookBetweenIds(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query(" select l.loanDate, count(l.id) from LoanHistory l where l.id between :fromId and :toId group by l.loanDate ")
+    List<Object[]> countByLoanDateBetweenIds(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
@@ -6,25 +6,84 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
-public interface LoanRepository  extends JpaRepository<Loan, Long> {
+public interface LoanRepository  extends JpaRepository<Loan, Long>, JpaSpecificationExecutor<Loan> {
 
 
     @Query(value =  " select case when ( count(l.id) > 0 ) then true else false end " +
             "from Loan l where l.book =:book and (l.returned is null or l.returned is false ) ")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
+    @Query(" select l.id from Loan l where l.book = :book and (l.returned is null or l.returned = false) ")
+    List<Long> findIdsByBookAndNotReturned(@Param("book") Book book);
+
     @Query( value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
     Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn,@Param("customer") String customer, Pageable pageRequest );
 
     Page<Loan> findByBook( Book book, Pageable pageable );
 
-    @Query( " select l from  Loan l where l.loanDate <=:threeDaysAgo and (l.returned is null or l.returned is false )")
-    List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+    default List<Loan> findOverdue(LocalDate today) {
+        return findOverdue(today, today.minusDays(Loan.LOAN_DAYS));
+    }
+
+    //faixa sobre idx_loan_returned_due_date; os ramos com nulos so pegam emprestimos que o
+    //LoanDueDateBackfill ainda nao migrou, vencidos quando emprestados ate :loanedUntil
+    @Query( " select l from  Loan l join fetch l.book where (l.returned = false or l.returned is null) " +
+            " and (l.dueDate <= :today or (l.dueDate is null and l.loanDate <= :loanedUntil)) ")
+    List<Loan> findOverdue(@Param("today") LocalDate today, @Param("loanedUntil") LocalDate loanedUntil);
+
+    @Query(" select min(l.id) from Loan l ")
+    Long findMinId();
+
+    @Query(" select max(l.id) from Loan l ")
+    Long findMaxId();
+
+    @Query(" select l.book.id, count(l.id), max(l.loanDate) from Loan l where l.id between :fromId and :toId group by l.book.id ")
+    List<Object[]> countByBookBetweenIds(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query(" select l.loanDate, count(l.id) from Loan l where l.id between :fromId and :toId group by l.loanDate ")
+    List<Object[]> countByLoanDateBetweenIds(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    default Page<Object[]> countOverdueByCustomer(LocalDate today, Pageable pageable) {
+        return countOverdueByCustomer(today, today.minusDays(Loan.LOAN_DAYS), pageable);
+    }
+
+    @Query( value = " select l.customer, count(l.id) from Loan l where (l.returned = false or l.returned is null) " +
+            " and (l.dueDate <= :today or (l.dueDate is null and l.loanDate <= :loanedUntil)) " +
+            " group by l.customer order by count(l.id) desc ",
+            countQuery = " select count(distinct l.customer) from Loan l where (l.returned = false or l.returned is null) " +
+                    " and (l.dueDate <= :today or (l.dueDate is null and l.loanDate <= :loanedUntil)) ")
+    Page<Object[]> countOverdueByCustomer(@Param("today") LocalDate today, @Param("loanedUntil") LocalDate loanedUntil,
+                                          Pageable pageable);
+
+    @Query(" select l from Loan l where l.returned = true and l.loanDate < :cutoff order by l.id ")
+    List<Loan> findReturnedBefore(@Param("cutoff") LocalDate cutoff, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query(" update Loan l set l.returned = false where l.returned is null ")
+    int updateNullReturned();
+
+    @Query(" select distinct l.loanDate from Loan l where l.dueDate is null and l.loanDate is not null ")
+    List<LocalDate> findLoanDatesWithoutDueDate();
+
+    @Transactional
+    @Modifying
+    @Query(" update Loan l set l.dueDate = :dueDate where l.dueDate is null and l.loanDate = :loanDate ")
+    int updateDueDate(@Param("loanDate") LocalDate loanDate, @Param("dueDate") LocalDate dueDate);
+
+    @Transactional
+    @Modifying
+    @Query(" update Loan l set l.returned = :returned where l.id in :ids ")
+    int updateReturned(@Param("ids") Collection<Long> ids, @Param("returned") Boolean returned);
 }
@@ -0,0 +1,44 @@
+package com.library.libraryapi.model.repository;
+
+import com.library.libraryapi.model.entity.MailSuppression;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface MailSuppressionRepository extends JpaRepository<MailSuppression, Long> {
+
+    Optional<MailSuppression> findByEmail(String email);
+
+    List<MailSuppression> findByEmailIn(Collection<String> emails);
+
+    //SENT so suprime no proprio dia
+    @Query(" select s.email from MailSuppression s where s.email in :emails " +
+            " and ( s.reason <> :sent or s.suppressedAt >= :today ) ")
+    List<String> findSuppressed(@Param("emails") Collection<String> emails,
+                                @Param("sent") MailSuppression.Reason sent,
+                                @Param("today") LocalDate today);
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(" select s.email from MailSuppression s ")
+    Stream<String> streamEmails();
+
+    @Transactional
+    @Modifying
+    @Query(" delete from MailSuppression s where s.email = :email ")
+    int deleteByEmail(@Param("email") String email);
+
+    @Transactional
+    @Modifying
+    @Query(" delete from MailSuppression s where s.reason = :reason and s.suppressedAt < :date ")
+    int deleteByReasonBefore(@Param("reason") MailSuppression.Reason reason, @Param("date") LocalDate date);
+}
@@ -0,0 +1,123 @@
+package com.library.libraryapi.model.repository.specification;
+
+import com.library.libraryapi.api.dto.LoanFilterDTO;
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.support.Isbn;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Monta os predicados do filtro de emprestimos apenas com os campos informados,
+ * cada um sobre uma coluna indexada. O join com Book so e feito quando o isbn e usado;
+ * um ISBN-10/13 valido, com ou sem separadores, e comparado pela chave numerica.
+ */
+public class LoanSpecification {
+
+    private LoanSpecification() {
+    }
+
+    public static Specification<Loan> of(LoanFilterDTO filter) {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.getIsbn() != null) {
+                Join<Loan, Book> book = root.join("book");
+                Long isbnKey = Isbn.pack(filter.getIsbn());
+                //livro antigo que o backfill ainda nao migrou so tem o isbn original
+                predicates.add(isbnKey == null
+                        ? builder.equal(book.get("isbn"), filter.getIsbn())
+                        : builder.or(builder.equal(book.get("isbnKey"), isbnKey),
+                                builder.equal(book.get("isbn"), filter.getIsbn())));
+            }
+            if (filter.getBookId() != null) {
+                predicates.add(builder.equal(root.get("book").get("id"), filter.getBookId()));
+            }
+            if (filter.getCustomer() != null) {
+                predicates.add(builder.equal(root.get("customer"), filter.getCustomer()));
+            }
+            if (filter.getEmail() != null) {
+                predicates.add(builder.equal(root.get("customerEmail"), filter.getEmail()));
+            }
+            if (filter.getReturned() != null) {
+                predicates.add(filter.getReturned()
+                        ? builder.isTrue(root.get("returned"))
+                        : builder.or(builder.isNull(root.get("returned")), builder.isFalse(root.get("returned"))));
+            }
+            if (filter.getOverdue() != null) {
+                //sem due_date (emprestimo ainda nao migrado) o vencimento e loanDate + LOAN_DAYS,
+                //como em Loan.isOverdue
+                LocalDate today = LocalDate.now();
+                LocalDate loanedUntil = today.minusDays(Loan.LOAN_DAYS);
+                predicates.add(filter.getOverdue()
+                        ? builder.and(
+                                builder.or(builder.isNull(root.get("returned")), builder.isFalse(root.get("returned"))),
+                                builder.or(builder.lessThanOrEqualTo(root.get("dueDate"), today),
+                                        builder.and(builder.isNull(root.get("dueDate")),
+                                                builder.lessThanOrEqualTo(root.get("loanDate"), loanedUntil))))
+                        : builder.or(builder.isTrue(root.get("returned")),
+                                builder.greaterThan(root.get("dueDate"), today),
+                                builder.and(builder.isNull(root.get("dueDate")),
+                                        builder.or(builder.isNull(root.get("loanDate")),
+                                                builder.greaterThan(root.get("loanDate"), loanedUntil)))));
+            }
+            if (filter.getLoanDateFrom() != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("loanDate"), filter.getLoanDateFrom()));
+            }
+            if (filter.getLoanDateTo() != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("loanDate"), filter.getLoanDateTo()));
+            }
+
+            if (predicates.isEmpty()) {
+                return null;
+            }
+            Predicate[] array = predicates.toArray(new Predicate[0]);
+            return filter.getMatch() == LoanFilterDTO.Match.ALL ? builder.and(array) : builder.or(array);
+        };
+    }
+
+    /**
+     * Avalia o mesmo filtro em memoria, para emprestimos cujo estado mudou depois da
+     * consulta (devolucoes ainda no write-behind).
+     */
+    public static boolean matches(LoanFilterDTO filter, Loan loan, LocalDate today) {
+        List<Boolean> results = new ArrayList<>();
+
+        if (filter.getIsbn() != null) {
+            Long isbnKey = Isbn.pack(filter.getIsbn());
+            results.add(loan.getBook() != null && ((isbnKey != null && isbnKey.equals(loan.getBook().getIsbnKey()))
+                    || filter.getIsbn().equals(loan.getBook().getIsbn())));
+        }
+        if (filter.getBookId() != null) {
+            results.add(loan.getBook() != null && filter.getBookId().equals(loan.getBook().getId()));
+        }
+        if (filter.getCustomer() != null) {
+            results.add(filter.getCustomer().equals(loan.getCustomer()));
+        }
+        if (filter.getEmail() != null) {
+            results.add(filter.getEmail().equals(loan.getCustomerEmail()));
+        }
+        if (filter.getReturned() != null) {
+            results.add(filter.getReturned() == Boolean.TRUE.equals(loan.getReturned()));
+        }
+        if (filter.getOverdue() != null) {
+            results.add(filter.getOverdue() == loan.isOverdue(today));
+        }
+        if (filter.getLoanDateFrom() != null) {
+            results.add(loan.getLoanDate() != null && !loan.getLoanDate().isBefore(filter.getLoanDateFrom()));
+        }
+        if (filter.getLoanDateTo() != null) {
+            results.add(loan.getLoanDate() != null && !loan.getLoanDate().isAfter(filter.getLoanDateTo()));
+        }
+
+        if (results.isEmpty()) {
+            return true;
+        }
+        return filter.getMatch() == LoanFilterDTO.Match.ALL ? !results.contains(false) : results.contains(true);
+    }
+}
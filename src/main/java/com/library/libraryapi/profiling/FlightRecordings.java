@@ -0,0 +1,271 @@
+package com.library.libraryapi.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Gravacoes do Java Flight Recorder gerenciadas pela aplicacao. A gravacao continua
+ * ({@code application.profiling.continuous.*}) roda desde a subida com as configuracoes
+ * {@code default} do JFR (custo abaixo de 1%) mais as alocacoes por TLAB, guardando so os
+ * ultimos minutos em disco. As gravacoes sob demanda usam {@code profile}, tem duracao e
+ * tamanho limitados e sao gravadas em {@code application.profiling.directory} ao terminar.
+ */
+@Component
+@Slf4j
+public class FlightRecordings {
+
+    public static final String CONTINUOUS = "continuous";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int MAX_FINISHED = 50;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final String settings;
+    private final Duration maxDuration;
+    private final long maxSizeBytes;
+    private final int maxRunning;
+    private final List<String> summaryPackages;
+    private final int summaryTop;
+    private final Recording continuous;
+    private final Map<Long, Recording> recordings = new ConcurrentHashMap<>();
+    //gravacoes ja fechadas, das mais antigas as mais novas: o resumo so precisa do arquivo
+    private final Map<Long, RecordingInfo> finished = Collections.synchronizedMap(
+            new LinkedHashMap<Long, RecordingInfo>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, RecordingInfo> eldest) {
+                    return size() > MAX_FINISHED;
+                }
+            });
+
+    public FlightRecordings(@Value("${application.profiling.enabled:true}") boolean enabled,
+                            @Value("${application.profiling.directory:data/jfr}") String directory,
+                            @Value("${application.profiling.continuous.enabled:true}") boolean continuousEnabled,
+                            @Value("${application.profiling.continuous.settings:default}") String continuousSettings,
+                            @Value("${application.profiling.continuous.max-age-minutes:10}") long continuousMaxAgeMinutes,
+                            @Value("${application.profiling.continuous.max-size-mb:64}") long continuousMaxSizeMb,
+                            @Value("${application.profiling.continuous.allocations:true}") boolean continuousAllocations,
+                            @Value("${application.profiling.recording.settings:profile}") String settings,
+                            @Value("${application.profiling.recording.max-duration-seconds:300}") long maxDurationSeconds,
+                            @Value("${application.profiling.recording.max-size-mb:256}") long maxSizeMb,
+                            @Value("${application.profiling.recording.max-running:2}") int maxRunning,
+                            @Value("${application.profiling.summary.packages:org.modelmapper,org.hibernate,com.fasterxml.jackson,com.library.libraryapi}")
+                                    String[] summaryPackages,
+                            @Value("${application.profiling.summary.top:20}") int summaryTop) {
+        this.enabled = enabled && FlightRecorder.isAvailable();
+        this.directory = Paths.get(directory);
+        this.settings = settings;
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.maxRunning = maxRunning;
+        this.summaryPackages = Arrays.asList(summaryPackages);
+        this.summaryTop = summaryTop;
+        if (!this.enabled || !continuousEnabled) {
+            this.continuous = null;
+            return;
+        }
+        this.continuous = new Recording(configuration(continuousSettings));
+        this.continuous.setName(CONTINUOUS);
+        this.continuous.setToDisk(true);
+        this.continuous.setMaxAge(Duration.ofMinutes(continuousMaxAgeMinutes));
+        this.continuous.setMaxSize(continuousMaxSizeMb * 1024 * 1024);
+        if (continuousAllocations) {
+            //uma amostra por TLAB nova, nao por objeto: o custo acompanha a taxa de alocacao
+            this.continuous.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+            this.continuous.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+        }
+        this.continuous.start();
+        log.info(" Continuous flight recording started, keeping the last {} minutes ", continuousMaxAgeMinutes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RecordingInfo getContinuous() {
+        return continuous == null ? null : info(continuous);
+    }
+
+    public List<RecordingInfo> getRecordings() {
+        List<RecordingInfo> result = new ArrayList<>();
+        synchronized (finished) {
+            result.addAll(finished.values());
+        }
+        recordings.values().forEach(recording -> result.add(info(recording)));
+        result.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return result;
+    }
+
+    /**
+     * Inicia uma gravacao que para sozinha depois de {@code durationSeconds} (limitado por
+     * application.profiling.recording.max-duration-seconds) e grava o arquivo .jfr.
+     */
+    public RecordingInfo start(String name, Long durationSeconds, String recordingSettings) {
+        requireEnabled();
+        String recordingName = name == null ? "recording" : name;
+        if (!NAME.matcher(recordingName).matches()) {
+            throw new IllegalArgumentException("Recording name must match " + NAME.pattern());
+        }
+        Duration duration = durationSeconds == null ? maxDuration : Duration.ofSeconds(durationSeconds);
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new IllegalArgumentException("Recording duration must be between 1 and " + maxDuration.getSeconds() + " seconds");
+        }
+        synchronized (recordings) {
+            closeFinished();
+            long running = recordings.values().stream().filter(r -> r.getState() == RecordingState.RUNNING).count();
+            if (running >= maxRunning) {
+                throw new IllegalStateException("There are already " + running + " recordings running");
+            }
+            Recording recording = new Recording(configuration(recordingSettings == null ? settings : recordingSettings));
+            recording.setName(recordingName);
+            recording.setToDisk(true);
+            recording.setDuration(duration);
+            recording.setMaxSize(maxSizeBytes);
+            try {
+                Files.createDirectories(directory);
+                recording.setDestination(directory.resolve(
+                        recordingName + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr").toAbsolutePath());
+            } catch (IOException e) {
+                recording.close();
+                throw new UncheckedIOException(e);
+            }
+            recording.start();
+            recordings.put(recording.getId(), recording);
+            log.info(" Flight recording {} ({}) started for {} s ", recording.getId(), recordingName, duration.getSeconds());
+            return info(recording);
+        }
+    }
+
+    //para antes do fim da duracao; o arquivo e gravado do mesmo jeito
+    public RecordingInfo stop(long id) {
+        RecordingInfo closed = finished.get(id);
+        if (closed != null) {
+            return closed;
+        }
+        Recording recording = recording(id);
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return info(recording);
+    }
+
+    /**
+     * Resume a gravacao continua ({@link #CONTINUOUS}) ou uma gravacao sob demanda. As que
+     * ainda estao rodando sao copiadas para um arquivo temporario antes da leitura.
+     */
+    public Map<String, Object> summarize(String recording) throws IOException {
+        requireEnabled();
+        Recording source;
+        if (CONTINUOUS.equals(recording)) {
+            if (continuous == null) {
+                throw new IllegalArgumentException("Continuous recording is disabled");
+            }
+            source = continuous;
+        } else {
+            long id;
+            try {
+                id = Long.parseLong(recording);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Unknown recording: " + recording);
+            }
+            RecordingInfo closed = finished.get(id);
+            if (closed != null) {
+                return RecordingSummary.summarize(Paths.get(closed.getFile()), summaryPackages, summaryTop);
+            }
+            source = recording(id);
+        }
+        if (source.getState() != RecordingState.RUNNING) {
+            return RecordingSummary.summarize(source.getDestination(), summaryPackages, summaryTop);
+        }
+        Path snapshot = Files.createTempFile("library-", ".jfr");
+        try {
+            source.dump(snapshot);
+            return RecordingSummary.summarize(snapshot, summaryPackages, summaryTop);
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+        finished.clear();
+        if (continuous != null) {
+            continuous.close();
+        }
+    }
+
+    private Recording recording(long id) {
+        requireEnabled();
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new IllegalArgumentException("Unknown recording: " + id);
+        }
+        return recording;
+    }
+
+    //os dados ja estao no arquivo de destino; fechar libera o repositorio do JFR
+    private void closeFinished() {
+        recordings.values().removeIf(recording -> {
+            if (recording.getState() != RecordingState.STOPPED) {
+                return false;
+            }
+            recording.close();
+            finished.put(recording.getId(), info(recording));
+            return true;
+        });
+    }
+
+    private void requireEnabled() {
+        if (!enabled) {
+            throw new IllegalStateException("Flight recorder is disabled or not available in this JVM");
+        }
+    }
+
+    private static Configuration configuration(String name) {
+        try {
+            return Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown flight recorder settings: " + name);
+        }
+    }
+
+    private static RecordingInfo info(Recording recording) {
+        return RecordingInfo.builder()
+                .id(recording.getId())
+                .name(recording.getName())
+                .state(recording.getState().name())
+                .startTime(recording.getStartTime() == null ? null : recording.getStartTime().toString())
+                .durationSeconds(recording.getDuration() == null ? null : recording.getDuration().getSeconds())
+                .maxAgeSeconds(recording.getMaxAge() == null ? null : recording.getMaxAge().getSeconds())
+                .maxSizeBytes(recording.getMaxSize())
+                .file(recording.getDestination() == null ? null : recording.getDestination().toString())
+                .build();
+    }
+}
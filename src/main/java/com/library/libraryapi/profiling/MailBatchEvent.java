@@ -0,0 +1,40 @@
+package com.library.libraryapi.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de cada lote entregue ao {@code MailTransport}, gravado pelo
+ * {@code EmailServiceImpl}.
+ */
+@Name(MailBatchEvent.NAME)
+@Label("Mail Batch")
+@Category({"Library API", "Mail"})
+@Description("Envio de um lote de emails")
+@StackTrace(false)
+public class MailBatchEvent extends Event {
+
+    public static final String NAME = "com.library.libraryapi.MailBatch";
+
+    @Label("Transport")
+    private String transport;
+
+    @Label("Messages")
+    private int messages;
+
+    @Label("Failed")
+    private boolean failed;
+
+    public MailBatchEvent(String transport, int messages) {
+        this.transport = transport;
+        this.messages = messages;
+    }
+
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
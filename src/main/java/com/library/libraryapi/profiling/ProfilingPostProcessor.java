@@ -0,0 +1,73 @@
+package com.library.libraryapi.profiling;
+
+import com.library.libraryapi.config.InstrumentationAdvice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grava um {@link ServiceMethodEvent} por chamada aos beans dos pacotes de
+ * application.profiling.instrumented-packages, para as gravacoes do JFR mostrarem o tempo
+ * de cada metodo de servico ao lado das amostras de CPU e alocacao. O interceptor fica
+ * logo depois do span do tracing ({@link InstrumentationAdvice#PROFILING}).
+ */
+@Component
+@ConditionalOnProperty(name = "application.profiling.enabled", havingValue = "true", matchIfMissing = true)
+public class ProfilingPostProcessor implements BeanPostProcessor {
+
+    private final List<String> instrumentedPackages;
+
+    public ProfilingPostProcessor(@Value("${application.profiling.instrumented-packages:com.library.libraryapi.service.impl}")
+                                          String[] instrumentedPackages) {
+        this.instrumentedPackages = Arrays.asList(instrumentedPackages);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        String name = targetClass.getName();
+        if (instrumentedPackages.stream().noneMatch(prefix -> name.startsWith(prefix + "."))) {
+            return bean;
+        }
+        return InstrumentationAdvice.apply(bean, new ServiceMethodInterceptor(targetClass.getSimpleName()),
+                InstrumentationAdvice.PROFILING);
+    }
+
+    private static class ServiceMethodInterceptor implements MethodInterceptor {
+
+        private final String component;
+
+        ServiceMethodInterceptor(String component) {
+            this.component = component;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            ServiceMethodEvent event = new ServiceMethodEvent();
+            if (!event.isEnabled() || invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            event.begin();
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                event.failed = true;
+                throw e;
+            } finally {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.component = component;
+                    event.method = invocation.getMethod().getName();
+                    event.commit();
+                }
+            }
+        }
+    }
+}
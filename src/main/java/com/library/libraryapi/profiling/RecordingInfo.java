@@ -0,0 +1,18 @@
+package com.library.libraryapi.profiling;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class RecordingInfo {
+
+    private final long id;
+    private final String name;
+    private final String state;
+    private final String startTime;
+    private final Long durationSeconds;
+    private final Long maxAgeSeconds;
+    private final long maxSizeBytes;
+    private final String file;
+}
@@ -0,0 +1,205 @@
+package com.library.libraryapi.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Resume um arquivo .jfr: os metodos mais amostrados (CPU) e os que mais alocam, pelo
+ * frame do topo da pilha; a participacao de cada pacote de {@code packages} em qualquer
+ * ponto da pilha (ModelMapper, Hibernate, Jackson...); e os eventos
+ * {@link ServiceMethodEvent} e {@link MailBatchEvent} agregados.
+ */
+public final class RecordingSummary {
+
+    private static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+    private static final String ALLOCATION_IN_TLAB = "jdk.ObjectAllocationInNewTLAB";
+    private static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+
+    private final List<String> packages;
+    private final Map<String, Long> samplesByMethod = new HashMap<>();
+    private final Map<String, Long> bytesByMethod = new HashMap<>();
+    private final Map<String, Long> bytesByType = new HashMap<>();
+    private final Map<String, long[]> packageTotals = new LinkedHashMap<>();
+    private final Map<String, Timing> serviceMethods = new HashMap<>();
+    private final Map<String, Timing> mailBatches = new HashMap<>();
+    private long samples;
+    private long allocatedBytes;
+    private long events;
+    private Instant first;
+    private Instant last;
+
+    private RecordingSummary(List<String> packages) {
+        this.packages = packages;
+        packages.forEach(prefix -> packageTotals.put(prefix, new long[2]));
+    }
+
+    public static Map<String, Object> summarize(Path file, List<String> packages, int top) throws IOException {
+        RecordingSummary summary = new RecordingSummary(packages);
+        try (RecordingFile recording = new RecordingFile(file)) {
+            while (recording.hasMoreEvents()) {
+                summary.accept(recording.readEvent());
+            }
+        }
+        return summary.toMap(top);
+    }
+
+    private void accept(RecordedEvent event) {
+        events++;
+        if (first == null || event.getStartTime().isBefore(first)) {
+            first = event.getStartTime();
+        }
+        if (last == null || event.getEndTime().isAfter(last)) {
+            last = event.getEndTime();
+        }
+        switch (event.getEventType().getName()) {
+            case EXECUTION_SAMPLE:
+                samples++;
+                add(samplesByMethod, event.getStackTrace(), 1, 0);
+                break;
+            case ALLOCATION_IN_TLAB:
+                allocation(event, event.getLong("tlabSize"));
+                break;
+            case ALLOCATION_OUTSIDE_TLAB:
+                allocation(event, event.getLong("allocationSize"));
+                break;
+            case ServiceMethodEvent.NAME:
+                timing(serviceMethods, event.getString("component") + "." + event.getString("method"), event,
+                        event.getBoolean("failed"), 0);
+                break;
+            case MailBatchEvent.NAME:
+                timing(mailBatches, event.getString("transport"), event, event.getBoolean("failed"),
+                        event.getInt("messages"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void allocation(RecordedEvent event, long bytes) {
+        allocatedBytes += bytes;
+        bytesByType.merge(event.getClass("objectClass").getName(), bytes, Long::sum);
+        add(bytesByMethod, event.getStackTrace(), bytes, 1);
+    }
+
+    //o metodo do topo recebe o peso; cada pacote conta uma vez por pilha
+    private void add(Map<String, Long> byMethod, RecordedStackTrace stackTrace, long weight, int packageSlot) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return;
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        byMethod.merge(name(frames.get(0).getMethod()), weight, Long::sum);
+        for (Map.Entry<String, long[]> entry : packageTotals.entrySet()) {
+            for (RecordedFrame frame : frames) {
+                if (frame.getMethod().getType().getName().startsWith(entry.getKey())) {
+                    entry.getValue()[packageSlot] += weight;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void timing(Map<String, Timing> timings, String key, RecordedEvent event, boolean failed,
+                               int messages) {
+        Timing timing = timings.computeIfAbsent(key, k -> new Timing());
+        long nanos = event.getDuration().toNanos();
+        timing.count++;
+        timing.totalNanos += nanos;
+        timing.maxNanos = Math.max(timing.maxNanos, nanos);
+        timing.messages += messages;
+        if (failed) {
+            timing.failures++;
+        }
+    }
+
+    private Map<String, Object> toMap(int top) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("start", first == null ? null : first.toString());
+        result.put("durationSeconds", first == null ? 0 : Duration.between(first, last).getSeconds());
+        result.put("events", events);
+        result.put("executionSamples", samples);
+        result.put("allocatedBytes", allocatedBytes);
+        result.put("hotMethods", top(samplesByMethod, samples, top, "samples"));
+        result.put("allocatingMethods", top(bytesByMethod, allocatedBytes, top, "bytes"));
+        result.put("allocatedTypes", top(bytesByType, allocatedBytes, top, "bytes"));
+        Map<String, Object> byPackage = new LinkedHashMap<>();
+        packageTotals.forEach((prefix, totals) -> {
+            Map<String, Object> share = new LinkedHashMap<>();
+            share.put("samples", totals[0]);
+            share.put("samplesPercent", percent(totals[0], samples));
+            share.put("allocatedBytes", totals[1]);
+            share.put("allocatedPercent", percent(totals[1], allocatedBytes));
+            byPackage.put(prefix, share);
+        });
+        result.put("packages", byPackage);
+        result.put("serviceMethods", timings(serviceMethods, top, false));
+        result.put("mailBatches", timings(mailBatches, top, true));
+        return result;
+    }
+
+    private static List<Map<String, Object>> top(Map<String, Long> weights, long total, int top, String unit) {
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(top)
+                .map(entry -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("name", entry.getKey());
+                    item.put(unit, entry.getValue());
+                    item.put("percent", percent(entry.getValue(), total));
+                    return item;
+                })
+                .collect(Collectors.toList());
+    }
+
+    //o maior tempo total primeiro
+    private static List<Map<String, Object>> timings(Map<String, Timing> timings, int top, boolean messages) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        timings.entrySet().stream()
+                .sorted((a, b) -> Long.compare(b.getValue().totalNanos, a.getValue().totalNanos))
+                .limit(top)
+                .forEach(entry -> {
+                    Timing timing = entry.getValue();
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("name", entry.getKey());
+                    item.put("count", timing.count);
+                    item.put("failures", timing.failures);
+                    if (messages) {
+                        item.put("messages", timing.messages);
+                    }
+                    item.put("totalMs", timing.totalNanos / 1_000_000d);
+                    item.put("avgMs", timing.totalNanos / 1_000_000d / timing.count);
+                    item.put("maxMs", timing.maxNanos / 1_000_000d);
+                    result.add(item);
+                });
+        return result;
+    }
+
+    private static String name(RecordedMethod method) {
+        return method.getType().getName() + "." + method.getName();
+    }
+
+    private static double percent(long value, long total) {
+        return total == 0 ? 0 : Math.round(10_000d * value / total) / 100d;
+    }
+
+    private static class Timing {
+        private long count;
+        private long failures;
+        private long messages;
+        private long totalNanos;
+        private long maxNanos;
+    }
+}
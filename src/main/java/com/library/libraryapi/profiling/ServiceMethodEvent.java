@@ -0,0 +1,32 @@
+package com.library.libraryapi.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR de cada chamada aos beans de servico, gravado pelo {@link ProfilingPostProcessor}.
+ * Sem gravacao em andamento o evento fica desligado e a chamada nao paga nada alem do
+ * {@link #isEnabled()}.
+ */
+@Name(ServiceMethodEvent.NAME)
+@Label("Service Method")
+@Category({"Library API", "Service"})
+@Description("Execucao de um metodo de servico da aplicacao")
+@StackTrace(false)
+public class ServiceMethodEvent extends Event {
+
+    public static final String NAME = "com.library.libraryapi.ServiceMethod";
+
+    @Label("Component")
+    String component;
+
+    @Label("Method")
+    String method;
+
+    @Label("Failed")
+    boolean failed;
+}
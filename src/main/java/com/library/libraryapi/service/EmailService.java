@@ -1,7 +1,12 @@
 package com.library.libraryapi.service;
 
+import com.library.libraryapi.service.notification.MailMessage;
+
 import java.util.List;
 
 public interface EmailService{
     void sendMails(String mensagem, List<String> mailsList);
+
+    //uma mensagem por destinatario, entregues em lotes pelo MailTransport configurado
+    void send(List<MailMessage> messages);
 }
@@ -0,0 +1,6 @@
+package com.library.libraryapi.service;
+
+public interface LoanArchiveService {
+
+    int archiveReturnedLoans();
+}
@@ -0,0 +1,21 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.model.entity.MailSuppression;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Set;
+
+public interface MailSuppressionService {
+
+    MailSuppression suppress(String email, MailSuppression.Reason reason);
+
+    void remove(String email);
+
+    //emails (ja normalizados) que nao devem receber mensagens hoje
+    Set<String> findSuppressed(Collection<String> emails, LocalDate today);
+
+    void markSent(Collection<String> emails, LocalDate today);
+
+    void purgeExpired(LocalDate today);
+}
@@ -0,0 +1,26 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.api.dto.BookLoanCountDTO;
+import com.library.libraryapi.api.dto.CustomerOverdueDTO;
+import com.library.libraryapi.api.dto.DailyLoanVolumeDTO;
+import com.library.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ReportService {
+
+    void registerLoan(Loan loan);
+
+    Long getLoanCountByBook(Long bookId);
+
+    Page<BookLoanCountDTO> getTopBorrowedBooks(Pageable pageable);
+
+    Page<CustomerOverdueDTO> getOverdueByCustomer(Pageable pageable);
+
+    List<DailyLoanVolumeDTO> getDailyCheckouts(LocalDate from, LocalDate to);
+
+    void rebuild();
+}
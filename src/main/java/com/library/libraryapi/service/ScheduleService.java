@@ -1,12 +1,21 @@
 package com.library.libraryapi.service;
 
 import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.notification.Emails;
+import com.library.libraryapi.service.notification.MailMessage;
+import com.library.libraryapi.service.notification.OverdueNotice;
+import com.library.libraryapi.service.notification.OverdueNoticeRenderer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,19 +24,57 @@ public class ScheduleService {
 
     private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
 
-    @Value("${application.mail.lateloans.message}")
-    private String mensagem;
+    @Value("${application.mail.lateloans.batch-size:100}")
+    private Integer batchSize;
 
     private final LoanService loanService;
     private final EmailService emailService;
+    private final LoanArchiveService loanArchiveService;
+    private final OverdueNoticeRenderer overdueNoticeRenderer;
+    private final MailSuppressionService mailSuppressionService;
 
+    //um email por cliente com todos os seus emprestimos atrasados, enviados em lotes
     @Scheduled(cron = CRON_LATE_LOANS)
     public  void sendMainToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        mailSuppressionService.purgeExpired(today);
 
-        emailService.sendMails(mensagem,mailsList);
+        //agrupa pelo email normalizado: o mesmo cliente com caixa ou espacos diferentes recebe um unico aviso
+        Map<String, List<Loan>> loansByEmail = new LinkedHashMap<>();
+        for (Loan loan : loanService.getAllLateLoans()) {
+            String email = Emails.normalize(loan.getCustomerEmail());
+            if (email != null) {
+                loansByEmail.computeIfAbsent(email, key -> new ArrayList<>()).add(loan);
+            }
+        }
+        Set<String> suppressed = mailSuppressionService.findSuppressed(loansByEmail.keySet(), today);
+
+        List<MailMessage> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<String, List<Loan>> customer : loansByEmail.entrySet()) {
+            if (suppressed.contains(customer.getKey())) {
+                continue;
+            }
+            List<Loan> loans = customer.getValue();
+            batch.add(overdueNoticeRenderer.render(
+                    new OverdueNotice(loans.get(0).getCustomer(), customer.getKey(), loans, today)));
+            if (batch.size() == batchSize) {
+                send(batch, today);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch, today);
+        }
+    }
+
+    //registra o envio logo apos cada lote, para uma reexecucao no mesmo dia nao repetir avisos
+    private void send(List<MailMessage> batch, LocalDate today) {
+        emailService.send(batch);
+        mailSuppressionService.markSent(batch.stream().map(MailMessage::getTo).collect(Collectors.toList()), today);
+    }
+
+    @Scheduled(cron = "${application.loans.archive.cron}")
+    public void archiveReturnedLoans(){
+        loanArchiveService.archiveReturnedLoans();
     }
 }
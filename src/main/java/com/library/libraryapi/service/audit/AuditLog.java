@@ -0,0 +1,194 @@
+package com.library.libraryapi.service.audit;
+
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.support.MappedSegmentLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
+
+/**
+ * Trilha de auditoria dos emprestimos e devolucoes, gravada em registros binarios
+ * ({@link AuditRecord}) num {@link MappedSegmentLog} local em vez de uma linha por
+ * operacao no banco. Uma thread grava em disco tudo o que foi escrito desde a ultima
+ * vez (group commit) a cada {@code application.audit.fsync-interval-ms}; com
+ * {@code application.audit.sync=true} cada operacao espera essa gravacao, e operacoes
+ * concorrentes dividem o mesmo fsync. Se o fsync falhar, quem espera recebe a falha em
+ * vez de uma confirmacao, e a thread tenta de novo com espera crescente.
+ */
+@Component
+@Slf4j
+public class AuditLog {
+
+    //janela para que operacoes concorrentes entrem no mesmo fsync
+    private static final long GROUP_COMMIT_WINDOW_MS = 2;
+    private static final long MAX_RETRY_DELAY_MS = 5000;
+
+    private final boolean enabled;
+    private final boolean sync;
+    private final long flushIntervalMillis;
+    private final MappedSegmentLog segmentLog;
+    private final Thread flusher;
+
+    private final Object lock = new Object();
+    private long durable;
+    private int waiting;
+    private long failedFlushes;
+    private RuntimeException lastFailure;
+    private boolean closed;
+    private volatile boolean running;
+
+    @Autowired
+    public AuditLog(@Value("${application.audit.enabled:false}") boolean enabled,
+                    @Value("${application.audit.directory:data/audit}") String directory,
+                    @Value("${application.audit.segment-size-mb:64}") int segmentSizeMb,
+                    @Value("${application.audit.max-segments:0}") int maxSegments,
+                    @Value("${application.audit.fsync-interval-ms:200}") long flushIntervalMillis,
+                    @Value("${application.audit.sync:false}") boolean sync) {
+        this(enabled ? new MappedSegmentLog(Paths.get(directory), segmentSizeMb * 1024 * 1024, maxSegments) : null,
+                flushIntervalMillis, sync);
+    }
+
+    AuditLog(MappedSegmentLog segmentLog, long flushIntervalMillis, boolean sync) {
+        this.enabled = segmentLog != null;
+        this.sync = sync;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.segmentLog = segmentLog;
+        if (!enabled) {
+            this.flusher = null;
+            return;
+        }
+        this.durable = segmentLog.endOffset();
+        this.running = true;
+        this.flusher = new Thread(this::flushLoop, "audit-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @throws IllegalStateException em modo sincrono, quando o registro nao pode ser
+     * confirmado em disco (falha no fsync, thread interrompida ou log fechado)
+     */
+    public void record(AuditRecord.Action action, Loan loan) {
+        if (!enabled) {
+            return;
+        }
+        long offset = segmentLog.append(AuditRecord.builder()
+                .timestamp(System.currentTimeMillis())
+                .action(action)
+                .loanId(loan.getId())
+                .bookId(loan.getBook() == null ? null : loan.getBook().getId())
+                .customer(loan.getCustomer())
+                .build()
+                .encode());
+        if (sync) {
+            awaitDurable(offset);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+        try {
+            flusher.join(flushIntervalMillis + MAX_RETRY_DELAY_MS + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        segmentLog.close();
+    }
+
+    private void awaitDurable(long offset) {
+        synchronized (lock) {
+            long failedBefore = failedFlushes;
+            if (waiting++ == 0) {
+                lock.notifyAll();
+            }
+            try {
+                while (durable <= offset) {
+                    if (failedFlushes != failedBefore) {
+                        throw new IllegalStateException("Audit record could not be flushed to disk.", lastFailure);
+                    }
+                    if (closed) {
+                        throw new IllegalStateException("Audit log closed before the record was flushed.");
+                    }
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the audit record to be flushed.", e);
+            } finally {
+                waiting--;
+            }
+        }
+    }
+
+    //quem chega durante um fsync entra no proximo, junto com os demais que chegarem
+    private void flushLoop() {
+        long retryDelay = 0;
+        while (running) {
+            try {
+                synchronized (lock) {
+                    if (waiting == 0 && running) {
+                        lock.wait(flushIntervalMillis);
+                    }
+                    if (waiting > 0 && running) {
+                        lock.wait(GROUP_COMMIT_WINDOW_MS);
+                    }
+                }
+                flush();
+                retryDelay = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                retryDelay = Math.min(Math.max(retryDelay * 2, flushIntervalMillis), MAX_RETRY_DELAY_MS);
+                log.error(" Could not flush audit log, retrying in {} ms: {} ", retryDelay, e.getMessage());
+                synchronized (lock) {
+                    failedFlushes++;
+                    lastFailure = e;
+                    lock.notifyAll();
+                }
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+        //ultimo fsync antes de fechar, para quem ainda espera
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error(" Could not flush audit log on close: {} ", e.getMessage());
+        }
+    }
+
+    private void flush() {
+        long target = segmentLog.endOffset();
+        if (target > durable) {
+            segmentLog.force();
+        }
+        synchronized (lock) {
+            durable = target;
+            lock.notifyAll();
+        }
+    }
+}
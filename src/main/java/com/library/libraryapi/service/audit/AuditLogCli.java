@@ -0,0 +1,97 @@
+package com.library.libraryapi.service.audit;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Consulta o log de auditoria pela linha de comando, sem subir a aplicacao:
+ * <pre>
+ * java -cp target/classes com.library.libraryapi.service.audit.AuditLogCli data/audit \
+ *      --customer=Fulano --action=RETURN --from=2020-01-01 --to=2020-02-01 --limit=100
+ * </pre>
+ * Imprime uma linha por registro, separada por tabulacoes: instante, acao, emprestimo,
+ * livro e cliente. Datas sem hora sao no fuso da maquina.
+ */
+public final class AuditLogCli {
+
+    private AuditLogCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get("data/audit");
+        AuditQuery.AuditQueryBuilder query = AuditQuery.builder();
+        try {
+            for (String arg : args) {
+                if (!arg.startsWith("--")) {
+                    directory = Paths.get(arg);
+                    continue;
+                }
+                int separator = arg.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Missing value in " + arg);
+                }
+                String value = arg.substring(separator + 1);
+                switch (arg.substring(2, separator)) {
+                    case "loan":
+                        query.loanId(Long.valueOf(value));
+                        break;
+                    case "book":
+                        query.bookId(Long.valueOf(value));
+                        break;
+                    case "customer":
+                        query.customer(value);
+                        break;
+                    case "action":
+                        query.action(AuditRecord.Action.valueOf(value.toUpperCase()));
+                        break;
+                    case "from":
+                        query.from(parseInstant(value));
+                        break;
+                    case "to":
+                        query.to(parseInstant(value));
+                        break;
+                    case "limit":
+                        query.limit(Integer.parseInt(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: AuditLogCli [directory] [--loan=id] [--book=id] [--customer=name]"
+                    + " [--action=CHECKOUT|RETURN|REOPEN] [--from=date|instant] [--to=date|instant] [--limit=n]");
+            System.exit(2);
+            return;
+        }
+
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long matched = AuditLogReader.scan(directory, query.build(), record -> {
+            try {
+                out.write(Instant.ofEpochMilli(record.getTimestamp()) + "\t" + record.getAction() + "\t"
+                        + record.getLoanId() + "\t" + record.getBookId() + "\t" + record.getCustomer());
+                out.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+        System.err.println(matched + " record(s)");
+    }
+
+    private static long parseInstant(String value) {
+        if (value.length() == 10) {
+            return LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+}
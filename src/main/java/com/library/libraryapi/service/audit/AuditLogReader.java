@@ -0,0 +1,33 @@
+package com.library.libraryapi.service.audit;
+
+import com.library.libraryapi.service.support.SegmentFileReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Varredura sequencial do log de auditoria direto dos segmentos em disco. Pode rodar com
+ * a aplicacao no ar (le apenas o que ja foi gravado) ou sobre uma copia dos arquivos.
+ */
+public final class AuditLogReader {
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * @return quantidade de registros que atenderam o filtro
+     */
+    public static long scan(Path directory, AuditQuery query, Consumer<AuditRecord> consumer) throws IOException {
+        long[] matched = {0};
+        SegmentFileReader.scan(directory, (offset, payload) -> {
+            AuditRecord record = AuditRecord.decode(payload);
+            if (query.test(record)) {
+                consumer.accept(record);
+                matched[0]++;
+            }
+            return query.getLimit() <= 0 || matched[0] < query.getLimit();
+        });
+        return matched[0];
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.libraryapi.service.audit;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.function.Predicate;
+
+/**
+ * Filtro de uma varredura do log de auditoria; campos nulos nao filtram. O periodo e em
+ * milissegundos desde a epoch, com {@code to} exclusivo.
+ */
+@Data
+@Builder
+public class AuditQuery implements Predicate<AuditRecord> {
+
+    private Long loanId;
+    private Long bookId;
+    private String customer;
+    private AuditRecord.Action action;
+    private Long from;
+    private Long to;
+
+    //zero ou negativo: sem limite
+    private int limit;
+
+    @Override
+    public boolean test(AuditRecord record) {
+        return (loanId == null || loanId.equals(record.getLoanId()))
+                && (bookId == null || bookId.equals(record.getBookId()))
+                && (customer == null || customer.equals(record.getCustomer()))
+                && (action == null || action == record.getAction())
+                && (from == null || record.getTimestamp() >= from)
+                && (to == null || record.getTimestamp() < to);
+    }
+}
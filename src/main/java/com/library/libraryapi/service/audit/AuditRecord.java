@@ -0,0 +1,64 @@
+package com.library.libraryapi.service.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Registro de auditoria de um emprestimo. Gravado em binario:
+ * [versao:byte][acao:byte][timestamp:long][emprestimo:long][livro:long][cliente: short + UTF-8],
+ * com -1 para ids ausentes.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuditRecord {
+
+    public enum Action {
+        CHECKOUT, RETURN, REOPEN
+    }
+
+    private static final byte VERSION = 1;
+    private static final int FIXED_SIZE = 1 + 1 + 8 + 8 + 8 + 2;
+    private static final int MAX_CUSTOMER_BYTES = 0xFFFF;
+
+    private long timestamp;
+    private Action action;
+    private Long loanId;
+    private Long bookId;
+    private String customer;
+
+    public byte[] encode() {
+        byte[] name = customer == null ? new byte[0] : customer.getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_CUSTOMER_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate(FIXED_SIZE + nameLength)
+                .put(VERSION)
+                .put((byte) action.ordinal())
+                .putLong(timestamp)
+                .putLong(loanId == null ? -1 : loanId)
+                .putLong(bookId == null ? -1 : bookId)
+                .putShort((short) nameLength);
+        buffer.put(name, 0, nameLength);
+        return buffer.array();
+    }
+
+    public static AuditRecord decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported audit record version " + version);
+        }
+        Action action = Action.values()[buffer.get()];
+        long timestamp = buffer.getLong();
+        long loanId = buffer.getLong();
+        long bookId = buffer.getLong();
+        int nameLength = buffer.getShort() & 0xFFFF;
+        String customer = new String(payload, FIXED_SIZE, nameLength, StandardCharsets.UTF_8);
+        return new AuditRecord(timestamp, action, loanId < 0 ? null : loanId, bookId < 0 ? null : bookId, customer);
+    }
+}
@@ -0,0 +1,15 @@
+package com.library.libraryapi.service.datagen;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DataGenerationResult {
+
+    private long books;
+    private long loans;
+    private long openLoans;
+    private long overdueLoans;
+    private long millis;
+}
@@ -0,0 +1,51 @@
+package com.library.libraryapi.service.datagen;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Escala e distribuicoes da massa sintetica. A mesma especificacao (incluindo a seed)
+ * gera sempre os mesmos livros e emprestimos, independente do numero de threads.
+ */
+@Getter
+@Builder(toBuilder = true)
+public class DataGenerationSpec {
+
+    @Builder.Default
+    private final int books = 10_000;
+
+    //emprestimos ja devolvidos; os abertos saem de openLoanRatio
+    @Builder.Default
+    private final int loans = 50_000;
+
+    @Builder.Default
+    private final int customers = 5_000;
+
+    //popularidade dos livros: poucos titulos concentram a maior parte dos emprestimos
+    @Builder.Default
+    private final double bookZipfExponent = 1.0;
+
+    //clientes recorrentes: poucos clientes fazem muitos emprestimos
+    @Builder.Default
+    private final double customerZipfExponent = 0.8;
+
+    //fracao dos livros com um emprestimo em aberto
+    @Builder.Default
+    private final double openLoanRatio = 0.10;
+
+    //fracao dos emprestimos em aberto que ja estao atrasados
+    @Builder.Default
+    private final double overdueRatio = 0.30;
+
+    @Builder.Default
+    private final int historyDays = 3 * 365;
+
+    @Builder.Default
+    private final long seed = 42L;
+
+    @Builder.Default
+    private final int threads = 4;
+
+    @Builder.Default
+    private final int batchSize = 1_000;
+}
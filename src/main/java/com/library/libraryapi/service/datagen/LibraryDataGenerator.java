@@ -0,0 +1,305 @@
+package com.library.libraryapi.service.datagen;
+
+import com.library.libraryapi.service.impl.LoanServiceImpl;
+import com.library.libraryapi.service.support.Isbn;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Gera catalogos e historicos de emprestimo sinteticos direto via JDBC, em lotes e em
+ * paralelo. Cada lote tem seu proprio gerador aleatorio derivado da seed e do numero do
+ * lote, entao o resultado nao depende da ordem de execucao das threads.
+ *
+ * <p>Os livros recebem ISBNs 979 sequenciais a partir do maior ja gerado, o que permite
+ * rodar o gerador de novo sobre a mesma base. Os contadores do livro (total_loans,
+ * active_loan, last_loan_date) e de book_loan_statistic sao calculados numa primeira
+ * passada sobre os emprestimos, para que ja sejam gravados consistentes com eles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LibraryDataGenerator {
+
+    static final long ISBN_PREFIX = 979_000_000_000L;
+    static final long MAX_BOOKS = 1_000_000_000L;
+
+    private static final long BOOK_STREAM = 0x5DEECE66DL;
+    private static final long LOAN_STREAM = 0x2545F4914F6CDD1DL;
+    private static final int OVERDUE_SPREAD_DAYS = 60;
+
+    private static final String[] TITLE_WORDS = {"Aventuras", "Historia", "Manual", "Contos", "Cronicas",
+            "Guia", "Memorias", "Viagem", "Segredos", "Introducao", "Poemas", "Cartas"};
+    private static final String[] TITLE_SUBJECTS = {"do Mar", "da Serra", "de Java", "do Tempo", "da Cidade",
+            "do Sertao", "das Estrelas", "de Lisboa", "do Futuro", "da Floresta"};
+
+    private static final String INSERT_BOOK = " insert into book (title, author, isbn, isbn_key, total_loans, " +
+            " active_loan, last_loan_date) values (?, ?, ?, ?, ?, ?, ?) ";
+    private static final String INSERT_BOOK_STATISTIC = " insert into book_loan_statistic (id_book, total_loans, " +
+            " last_loan_date) values (?, ?, ?) ";
+    private static final String INSERT_LOAN = " insert into loan (customer, customer_email, id_book, loan_date, " +
+            " returned, due_date) values (?, ?, ?, ?, ?, ?) ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DataGenerationResult generate(DataGenerationSpec spec) {
+        long start = System.currentTimeMillis();
+        Plan plan = new Plan(spec, nextBookIndex(), LocalDate.now().toEpochDay());
+        log.info(" Generating {} books and {} returned loans from book index {} ", spec.getBooks(),
+                spec.getLoans(), plan.firstIndex);
+
+        //1a passada: so sorteia os emprestimos devolvidos, para os contadores dos livros
+        AtomicIntegerArray totalLoans = new AtomicIntegerArray(spec.getBooks());
+        AtomicIntegerArray lastLoanDay = new AtomicIntegerArray(spec.getBooks());
+        parallel(spec, plan.loanChunks, chunk -> plan.returnedLoans(chunk, (book, customer, day) -> {
+            totalLoans.incrementAndGet(book);
+            lastLoanDay.accumulateAndGet(book, (int) day, Math::max);
+        }));
+
+        LongAdder openLoans = new LongAdder();
+        LongAdder overdueLoans = new LongAdder();
+        parallel(spec, plan.bookChunks, chunk -> insertBooks(plan, chunk, totalLoans, lastLoanDay, openLoans, overdueLoans));
+
+        long[] bookIds = loadBookIds(plan);
+        parallel(spec, plan.bookChunks, chunk -> insertBookStatistics(plan, chunk, bookIds, totalLoans, lastLoanDay));
+        parallel(spec, plan.bookChunks, chunk -> insertOpenLoans(plan, chunk, bookIds));
+        parallel(spec, plan.loanChunks, chunk -> insertReturnedLoans(plan, chunk, bookIds));
+
+        DataGenerationResult result = new DataGenerationResult(spec.getBooks(), spec.getLoans() + openLoans.sum(),
+                openLoans.sum(), overdueLoans.sum(), System.currentTimeMillis() - start);
+        log.info(" Generated {} ", result);
+        return result;
+    }
+
+    private void insertBooks(Plan plan, int chunk, AtomicIntegerArray totalLoans, AtomicIntegerArray lastLoanDay,
+                             LongAdder openLoans, LongAdder overdueLoans) {
+        List<Object[]> batch = new ArrayList<>(plan.spec.getBatchSize());
+        plan.books(chunk, book -> {
+            if (book.open) {
+                openLoans.increment();
+                if (book.overdue) {
+                    overdueLoans.increment();
+                }
+            }
+            long isbnKey = plan.isbnKey(book.index);
+            batch.add(new Object[]{book.title, book.author, Isbn.format(isbnKey), isbnKey, totalLoans(book, totalLoans),
+                    book.open, lastLoanDate(book, totalLoans, lastLoanDay)});
+        });
+        jdbcTemplate.batchUpdate(INSERT_BOOK, batch);
+    }
+
+    private void insertBookStatistics(Plan plan, int chunk, long[] bookIds, AtomicIntegerArray totalLoans,
+                                      AtomicIntegerArray lastLoanDay) {
+        List<Object[]> batch = new ArrayList<>(plan.spec.getBatchSize());
+        plan.books(chunk, book -> {
+            long total = totalLoans(book, totalLoans);
+            if (total > 0) {
+                batch.add(new Object[]{bookIds[book.index], total, lastLoanDate(book, totalLoans, lastLoanDay)});
+            }
+        });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BOOK_STATISTIC, batch);
+        }
+    }
+
+    private static long totalLoans(BookRow book, AtomicIntegerArray totalLoans) {
+        return totalLoans.get(book.index) + (book.open ? 1 : 0);
+    }
+
+    private static Date lastLoanDate(BookRow book, AtomicIntegerArray totalLoans, AtomicIntegerArray lastLoanDay) {
+        long lastDay = totalLoans.get(book.index) == 0 ? Long.MIN_VALUE : lastLoanDay.get(book.index);
+        if (book.open) {
+            lastDay = Math.max(lastDay, book.openLoanDay);
+        }
+        return lastDay == Long.MIN_VALUE ? null : Date.valueOf(LocalDate.ofEpochDay(lastDay));
+    }
+
+    private void insertOpenLoans(Plan plan, int chunk, long[] bookIds) {
+        List<Object[]> batch = new ArrayList<>();
+        plan.books(chunk, book -> {
+            if (book.open) {
+                batch.add(loanRow(bookIds[book.index], book.openLoanCustomer, book.openLoanDay, false));
+            }
+        });
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_LOAN, batch);
+        }
+    }
+
+    private void insertReturnedLoans(Plan plan, int chunk, long[] bookIds) {
+        List<Object[]> batch = new ArrayList<>(plan.spec.getBatchSize());
+        plan.returnedLoans(chunk, (book, customer, day) -> batch.add(loanRow(bookIds[book], customer, day, true)));
+        jdbcTemplate.batchUpdate(INSERT_LOAN, batch);
+    }
+
+    private static Object[] loanRow(long bookId, int customer, long day, boolean returned) {
+        String name = "customer" + customer;
+        LocalDate loanDate = LocalDate.ofEpochDay(day);
+        return new Object[]{name, name + "@library.example", bookId, Date.valueOf(loanDate), returned,
+                Date.valueOf(LoanServiceImpl.dueDate(loanDate))};
+    }
+
+    private long[] loadBookIds(Plan plan) {
+        long[] bookIds = new long[plan.spec.getBooks()];
+        jdbcTemplate.query(" select id, isbn_key from book where isbn_key between ? and ? ",
+                rs -> {
+                    bookIds[(int) (rs.getLong(2) / 10 - ISBN_PREFIX - plan.firstIndex)] = rs.getLong(1);
+                },
+                plan.isbnKey(0), plan.isbnKey(plan.spec.getBooks() - 1));
+        return bookIds;
+    }
+
+    //continua a numeracao dos ISBNs de uma geracao anterior na mesma base
+    private long nextBookIndex() {
+        Long maxKey = jdbcTemplate.queryForObject(" select max(isbn_key) from book where isbn_key between ? and ? ",
+                Long.class, ISBN_PREFIX * 10, (ISBN_PREFIX + MAX_BOOKS) * 10 - 1);
+        return maxKey == null ? 0 : maxKey / 10 - ISBN_PREFIX + 1;
+    }
+
+    //com uma thread tudo roda na thread chamadora, dentro da transacao dela se houver
+    private static void parallel(DataGenerationSpec spec, int tasks, IntConsumer task) {
+        if (spec.getThreads() <= 1) {
+            for (int i = 0; i < tasks; i++) {
+                task.accept(i);
+            }
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(spec.getThreads());
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks);
+            for (int i = 0; i < tasks; i++) {
+                int chunk = i;
+                futures.add(executor.submit(() -> task.accept(chunk)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Data generation interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data generation failed.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    interface LoanConsumer {
+        void accept(int bookIndex, int customer, long day);
+    }
+
+    static class BookRow {
+        int index;
+        String title;
+        String author;
+        boolean open;
+        boolean overdue;
+        int openLoanCustomer;
+        long openLoanDay;
+    }
+
+    /**
+     * Funcoes puras de geracao: dado o numero do lote, produzem sempre as mesmas linhas.
+     */
+    static class Plan {
+
+        final DataGenerationSpec spec;
+        final long firstIndex;
+        final long today;
+        final int bookChunks;
+        final int loanChunks;
+        private final ZipfSampler bookPopularity;
+        private final ZipfSampler customerActivity;
+        private final ZipfSampler authorProductivity;
+        private final long popularityStride;
+
+        Plan(DataGenerationSpec spec, long firstIndex, long today) {
+            if (spec.getBooks() < 1 || firstIndex + spec.getBooks() > MAX_BOOKS) {
+                throw new IllegalArgumentException("Book count out of range: " + spec.getBooks());
+            }
+            this.spec = spec;
+            this.firstIndex = firstIndex;
+            this.today = today;
+            this.bookChunks = chunks(spec.getBooks(), spec.getBatchSize());
+            this.loanChunks = chunks(spec.getLoans(), spec.getBatchSize());
+            this.bookPopularity = new ZipfSampler(spec.getBooks(), spec.getBookZipfExponent());
+            this.customerActivity = new ZipfSampler(spec.getCustomers(), spec.getCustomerZipfExponent());
+            this.authorProductivity = new ZipfSampler(Math.max(1, spec.getBooks() / 20), 1.0);
+            this.popularityStride = coprimeStride(spec.getBooks());
+        }
+
+        long isbnKey(int index) {
+            return Isbn.withCheckDigit(ISBN_PREFIX + firstIndex + index);
+        }
+
+        void books(int chunk, Consumer<BookRow> consumer) {
+            SplittableRandom random = random(BOOK_STREAM, chunk);
+            BookRow book = new BookRow();
+            int from = chunk * spec.getBatchSize();
+            int to = Math.min(from + spec.getBatchSize(), spec.getBooks());
+            for (int index = from; index < to; index++) {
+                book.index = index;
+                book.title = TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                        + TITLE_SUBJECTS[random.nextInt(TITLE_SUBJECTS.length)] + " " + (firstIndex + index);
+                book.author = "Autor " + authorProductivity.sample(random);
+                book.open = random.nextDouble() < spec.getOpenLoanRatio();
+                book.overdue = random.nextDouble() < spec.getOverdueRatio();
+                book.openLoanCustomer = customerActivity.sample(random);
+                book.openLoanDay = book.overdue
+                        ? today - LoanServiceImpl.LOAN_DAYS - random.nextInt(OVERDUE_SPREAD_DAYS)
+                        : today - random.nextInt(LoanServiceImpl.LOAN_DAYS);
+                book.overdue &= book.open;
+                consumer.accept(book);
+            }
+        }
+
+        void returnedLoans(int chunk, LoanConsumer consumer) {
+            SplittableRandom random = random(LOAN_STREAM, chunk);
+            int from = chunk * spec.getBatchSize();
+            int to = Math.min(from + spec.getBatchSize(), spec.getLoans());
+            for (int i = from; i < to; i++) {
+                //o rank de popularidade e espalhado pelo catalogo, e nao concentrado nos primeiros ids
+                int rank = bookPopularity.sample(random) - 1;
+                int bookIndex = (int) ((rank * popularityStride) % spec.getBooks());
+                int customer = customerActivity.sample(random);
+                long day = today - LoanServiceImpl.LOAN_DAYS - random.nextInt(Math.max(1, spec.getHistoryDays()));
+                consumer.accept(bookIndex, customer, day);
+            }
+        }
+
+        private SplittableRandom random(long stream, int chunk) {
+            return new SplittableRandom(spec.getSeed() * 0x9E3779B97F4A7C15L + stream * (chunk + 1L));
+        }
+
+        private static int chunks(int rows, int batchSize) {
+            return (rows + batchSize - 1) / batchSize;
+        }
+
+        private static long coprimeStride(long n) {
+            long stride = 2_654_435_761L % n;
+            while (gcd(stride, n) != 1) {
+                stride++;
+            }
+            return stride;
+        }
+
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+}
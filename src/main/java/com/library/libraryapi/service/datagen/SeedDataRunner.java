@@ -0,0 +1,78 @@
+package com.library.libraryapi.service.datagen;
+
+import com.library.libraryapi.service.ReportService;
+import com.library.libraryapi.service.support.IsbnKeyBackfill;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Popula a base com massa sintetica na subida da aplicacao, por exemplo:
+ * <pre>
+ * java -jar library-api.jar --application.seed.enabled=true --application.seed.books=1000000
+ *      --application.seed.loans=10000000 --application.seed.exit=true
+ * </pre>
+ * Roda antes da carga do indice de ISBNs para que os livros gerados ja entrem nele.
+ */
+@Component
+@ConditionalOnProperty(name = "application.seed.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SeedDataRunner {
+
+    @Value("${application.seed.books:10000}")
+    private Integer books;
+
+    @Value("${application.seed.loans:50000}")
+    private Integer loans;
+
+    @Value("${application.seed.customers:5000}")
+    private Integer customers;
+
+    @Value("${application.seed.seed:42}")
+    private Long seed;
+
+    @Value("${application.seed.threads:4}")
+    private Integer threads;
+
+    @Value("${application.seed.batch-size:1000}")
+    private Integer batchSize;
+
+    //recalcula as tabelas de relatorio a partir dos emprestimos gerados
+    @Value("${application.seed.rebuild-reports:true}")
+    private boolean rebuildReports;
+
+    //encerra a aplicacao ao final, para uso em linha de comando
+    @Value("${application.seed.exit:false}")
+    private boolean exit;
+
+    private final LibraryDataGenerator generator;
+    private final ReportService reportService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(IsbnKeyBackfill.ORDER - 1)
+    public void seed(ApplicationReadyEvent event) {
+        DataGenerationResult result = generator.generate(DataGenerationSpec.builder()
+                .books(books)
+                .loans(loans)
+                .customers(customers)
+                .seed(seed)
+                .threads(threads)
+                .batchSize(batchSize)
+                .build());
+        if (rebuildReports) {
+            reportService.rebuild();
+        }
+        log.info(" Seeded {} books and {} loans in {} ms ", result.getBooks(), result.getLoans(), result.getMillis());
+
+        if (exit) {
+            System.exit(SpringApplication.exit(event.getApplicationContext(), () -> 0));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.library.libraryapi.service.datagen;
+
+import java.util.SplittableRandom;
+
+/**
+ * Amostragem Zipf por rejeicao-inversao (Hormann e Derflinger): memoria constante e
+ * custo O(1) por amostra, independente do numero de elementos. Retorna ranks de 1 a n,
+ * com P(k) proporcional a 1 / k^expoente.
+ */
+public class ZipfSampler {
+
+    private final int numberOfElements;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralNumberOfElements;
+    private final double s;
+
+    public ZipfSampler(int numberOfElements, double exponent) {
+        if (numberOfElements < 1 || exponent <= 0) {
+            throw new IllegalArgumentException("Zipf requires at least one element and a positive exponent");
+        }
+        this.numberOfElements = numberOfElements;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1d;
+        this.hIntegralNumberOfElements = hIntegral(numberOfElements + 0.5);
+        this.s = 2d - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    public int sample(SplittableRandom random) {
+        while (true) {
+            double u = hIntegralNumberOfElements + random.nextDouble() * (hIntegralX1 - hIntegralNumberOfElements);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > numberOfElements) {
+                k = numberOfElements;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1OverX((1d - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1d - exponent);
+        if (t < -1d) {
+            t = -1d;
+        }
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+    //log(1+x)/x e (e^x-1)/x sem perda de precisao perto de zero (expoente proximo de 1)
+    private static double log1pOverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1 / 3d - 0.25 * x));
+    }
+
+    private static double expm1OverX(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3d * (1 + 0.25 * x));
+    }
+}
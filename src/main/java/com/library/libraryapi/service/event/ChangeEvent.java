@@ -0,0 +1,70 @@
+package com.library.libraryapi.service.event;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Alteracao de um livro ou emprestimo publicada pelos services. O offset e a posicao do
+ * evento no {@link ChangeEventLog}, preenchido apenas na leitura.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeEvent {
+
+    public enum Type {
+        BOOK_CREATED, BOOK_UPDATED, BOOK_DELETED, LOAN_CREATED, LOAN_UPDATED
+    }
+
+    private Long offset;
+    private Type type;
+    private Long entityId;
+    private Long timestamp;
+    private Map<String, Object> data;
+
+    public static ChangeEvent of(Type type, Book book) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (type != Type.BOOK_DELETED) {
+            data.put("title", book.getTitle());
+            data.put("author", book.getAuthor());
+        }
+        data.put("isbn", book.getIsbn());
+        return create(type, book.getId(), data);
+    }
+
+    //o email do cliente fica de fora: consumidores recebem apenas o necessario para cache/busca
+    public static ChangeEvent of(Type type, Loan loan) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (loan.getBook() != null) {
+            data.put("bookId", loan.getBook().getId());
+        }
+        data.put("customer", loan.getCustomer());
+        data.put("returned", loan.getReturned());
+        if (loan.getLoanDate() != null) {
+            data.put("loanDate", loan.getLoanDate().toString());
+        }
+        if (loan.getDueDate() != null) {
+            data.put("dueDate", loan.getDueDate().toString());
+        }
+        return create(type, loan.getId(), data);
+    }
+
+    private static ChangeEvent create(Type type, Long entityId, Map<String, Object> data) {
+        return ChangeEvent.builder()
+                .type(type)
+                .entityId(entityId)
+                .timestamp(System.currentTimeMillis())
+                .data(data)
+                .build();
+    }
+}
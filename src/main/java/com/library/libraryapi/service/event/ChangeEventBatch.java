@@ -0,0 +1,18 @@
+package com.library.libraryapi.service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeEventBatch {
+
+    private List<ChangeEvent> events;
+
+    //offset para a proxima leitura
+    private long nextOffset;
+}
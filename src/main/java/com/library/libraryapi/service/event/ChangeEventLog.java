@@ -0,0 +1,152 @@
+package com.library.libraryapi.service.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.libraryapi.exception.BusinessException;
+import com.library.libraryapi.service.support.MappedSegmentLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.regex.Pattern;
+
+/**
+ * Log duravel dos {@link ChangeEvent} publicados pelos services, para caches e indices de
+ * busca acompanharem o acervo sem varrer a API. Os eventos sao gravados em JSON num
+ * {@link MappedSegmentLog} apos o commit; o disco e sincronizado em intervalos
+ * ({@code application.events.fsync-interval-ms}), entao uma queda do servidor perde no
+ * maximo esse intervalo. Consumidores guardam o proprio offset pelo nome.
+ *
+ * <p>A alteracao ja foi confirmada quando o evento e gravado, entao uma falha na gravacao
+ * nao volta para quem fez a requisicao: ela e registrada em library.events.append.failed.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "application.events.enabled", havingValue = "true")
+public class ChangeEventLog {
+
+    private static final Pattern CONSUMER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final MappedSegmentLog segmentLog;
+    private final ObjectMapper objectMapper;
+    private final Path consumers;
+    private final Counter appendFailures;
+
+    public ChangeEventLog(@Value("${application.events.directory:data/events}") String directory,
+                          @Value("${application.events.segment-size-mb:64}") int segmentSizeMb,
+                          @Value("${application.events.max-segments:16}") int maxSegments,
+                          ObjectMapper objectMapper,
+                          ObjectProvider<MeterRegistry> meterRegistry) {
+        this.segmentLog = new MappedSegmentLog(Paths.get(directory), segmentSizeMb * 1024 * 1024, maxSegments);
+        this.objectMapper = objectMapper;
+        this.consumers = Paths.get(directory, "consumers");
+        this.appendFailures = meterRegistry.getIfAvailable(SimpleMeterRegistry::new).counter("library.events.append.failed");
+    }
+
+    //sem transacao ativa o evento e gravado na hora
+    @TransactionalEventListener(fallbackExecution = true)
+    public void append(ChangeEvent event) {
+        try {
+            segmentLog.append(objectMapper.writeValueAsBytes(event));
+        } catch (JsonProcessingException | RuntimeException e) {
+            appendFailures.increment();
+            log.error(" Could not append change event {} {}: {} ", event.getType(), event.getEntityId(), e.getMessage(), e);
+        }
+    }
+
+    public ChangeEventBatch read(long from, int limit) {
+        List<ChangeEvent> events = new ArrayList<>();
+        long next;
+        try {
+            next = segmentLog.read(from, limit, (offset, payload) -> events.add(parse(offset, payload)));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid offset.");
+        }
+        return new ChangeEventBatch(events, next);
+    }
+
+    /**
+     * @return false se nenhum evento chegou depois de {@code offset} dentro do prazo
+     */
+    public boolean await(long offset, long timeoutMillis) throws InterruptedException {
+        return segmentLog.awaitData(offset, timeoutMillis);
+    }
+
+    public long startOffset() {
+        return segmentLog.startOffset();
+    }
+
+    public long endOffset() {
+        return segmentLog.endOffset();
+    }
+
+    public OptionalLong getConsumerOffset(String consumer) {
+        Path file = consumerFile(consumer);
+        if (!Files.exists(file)) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //grava num temporario e troca de nome, para uma queda nunca deixar o offset pela metade
+    public void commitOffset(String consumer, long offset) {
+        Path file = consumerFile(consumer);
+        try {
+            Files.createDirectories(consumers);
+            Path temp = Files.createTempFile(consumers, consumer, ".tmp");
+            Files.write(temp, Long.toString(offset).getBytes(StandardCharsets.US_ASCII));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.events.fsync-interval-ms:1000}")
+    public void flush() {
+        segmentLog.force();
+    }
+
+    @PreDestroy
+    public void close() {
+        segmentLog.close();
+    }
+
+    private ChangeEvent parse(long offset, byte[] payload) {
+        try {
+            ChangeEvent event = objectMapper.readValue(payload, ChangeEvent.class);
+            event.setOffset(offset);
+            return event;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path consumerFile(String consumer) {
+        if (consumer == null || !CONSUMER_NAME.matcher(consumer).matches()) {
+            throw new BusinessException("Invalid consumer name.");
+        }
+        return consumers.resolve(consumer + ".offset");
+    }
+}
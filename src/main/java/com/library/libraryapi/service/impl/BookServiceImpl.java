@@ -4,54 +4,112 @@ import com.library.libraryapi.exception.BusinessException;
 import com.library.libraryapi.model.entity.Book;
 import com.library.libraryapi.model.repository.BookRepository;
 import com.library.libraryapi.service.BookService;
+import com.library.libraryapi.service.event.ChangeEvent;
+import com.library.libraryapi.service.support.Isbn;
+import com.library.libraryapi.service.support.IsbnIndex;
+import com.library.libraryapi.service.support.IsbnKeyBackfill;
+import com.library.libraryapi.service.support.SingleFlight;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    private static final String POPULARITY = "popularity";
+
     private BookRepository repository;
+    private IsbnIndex isbnIndex;
+    private IsbnKeyBackfill isbnKeyBackfill;
+    private ApplicationEventPublisher eventPublisher;
+    private final SingleFlight<Long, Optional<Book>> getByIdCalls = new SingleFlight<>();
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, IsbnIndex isbnIndex, IsbnKeyBackfill isbnKeyBackfill,
+                           ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.isbnIndex = isbnIndex;
+        this.isbnKeyBackfill = isbnKeyBackfill;
+        this.eventPublisher = eventPublisher;
     }
 
+    //o evento de alteracao e o indice de isbn so mudam depois do commit
     @Override
+    @Transactional
     public Book save(Book book) {
 
-        if(repository.existsByIsbn(book.getIsbn())){
+        Long isbnKey = Isbn.pack(book.getIsbn());
+        if (isbnKey != null) {
+            book.setIsbn(Isbn.format(isbnKey));
+        }
+        book.setIsbnKey(isbnKey);
+
+        if(existsByIsbn(book.getIsbn(), isbnKey)){
+            throw new BusinessException("Isbn ja cadastrado.");
+        }
+        book.setTotalLoans(0L);
+        book.setActiveLoan(false);
+        book.setLastLoanDate(null);
+        Book savedBook;
+        try {
+            savedBook = repository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            //cadastro concorrente do mesmo isbn barrado pelo indice unico
             throw new BusinessException("Isbn ja cadastrado.");
         }
-        return repository.save(book);
+        afterCommit(() -> isbnIndex.put(isbnKey, savedBook.getId()));
+        eventPublisher.publishEvent(ChangeEvent.of(ChangeEvent.Type.BOOK_CREATED, savedBook));
+        return savedBook;
     }
 
     @Override
     public Optional<Book> getById(Long id) {
-        return this.repository.findById(id);
+        //quem aguardou recebe uma copia, ja que o controller altera o livro no update
+        return getByIdCalls.execute(id,
+                () -> this.repository.findById(id),
+                book -> book.map(found -> found.toBuilder().build()));
     }
 
     @Override
+    @Transactional
     public void delete(Book book) {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null.");
         }
         this.repository.delete(book);
+        //a exclusao ainda pode ser barrada no commit pelos emprestimos do livro
+        afterCommit(() -> isbnIndex.remove(book.getIsbn()));
+        eventPublisher.publishEvent(ChangeEvent.of(ChangeEvent.Type.BOOK_DELETED, book));
     }
 
     @Override
+    @Transactional
     public Book update(Book book) {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null.");
         }
-        return this.repository.save(book);
+        Book updatedBook = this.repository.save(book);
+        eventPublisher.publishEvent(ChangeEvent.of(ChangeEvent.Type.BOOK_UPDATED, updatedBook));
+        return updatedBook;
     }
 
     @Override
     public Page<Book> find(Book filter, Pageable pageRequest) {
+        if (filter.getIsbn() != null) {
+            filter.setIsbn(Isbn.normalizeSearch(filter.getIsbn()));
+        }
         Example<Book>example = Example.of(filter,
                         ExampleMatcher
                                 .matching()
@@ -59,11 +117,62 @@ public class BookServiceImpl implements BookService {
                                 .withIgnoreNullValues()
                                 .withStringMatcher( ExampleMatcher.StringMatcher.CONTAINING )
         );
-        return repository.findAll(example,pageRequest);
+        return repository.findAll(example, withPopularitySort(pageRequest));
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        Long isbnKey = Isbn.pack(isbn);
+        if (isbnKey == null) {
+            return repository.findByIsbn(isbn);
+        }
+        Optional<Book> book = Optional.empty();
+        if (isbnIndex.covers(isbn)) {
+            OptionalLong bookId = isbnIndex.find(isbn);
+            if (bookId.isPresent()) {
+                book = repository.findById(bookId.getAsLong());
+            }
+        }
+        //o indice nao ve livros gravados por outras instancias: a ausencia e confirmada no banco
+        if (!book.isPresent()) {
+            book = repository.findByIsbnKey(isbnKey);
+        }
+        //livro antigo que o backfill ainda nao migrou: so tem o isbn original
+        return book.isPresent() || isbnKeyBackfill.isComplete() ? book : repository.findByIsbn(isbn);
+    }
+
+    private boolean existsByIsbn(String isbn, Long isbnKey) {
+        if (isbnKey == null) {
+            return repository.existsByIsbn(isbn);
+        }
+        //ausente do indice basta, o indice unico barra o que ele nao viu; presente e confirmado,
+        //o livro pode ter sido excluido por outra instancia
+        boolean exists = (!isbnIndex.covers(isbn) || isbnIndex.find(isbn).isPresent())
+                && repository.existsByIsbnKey(isbnKey);
+        return exists || (!isbnKeyBackfill.isComplete() && repository.existsByIsbn(isbn));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    //sort=popularity e atendido pelo indice de total_loans, do mais emprestado ao menos
+    private Pageable withPopularitySort(Pageable pageRequest) {
+        if (pageRequest.isUnpaged() || pageRequest.getSort().getOrderFor(POPULARITY) == null) {
+            return pageRequest;
+        }
+        List<Sort.Order> orders = pageRequest.getSort().stream()
+                .map(order -> POPULARITY.equals(order.getProperty()) ? Sort.Order.desc("totalLoans") : order)
+                .collect(Collectors.toList());
+        return PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize(), Sort.by(orders));
     }
 }
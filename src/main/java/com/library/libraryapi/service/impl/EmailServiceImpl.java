@@ -1,36 +1,68 @@
 package com.library.libraryapi.service.impl;
 
+import com.library.libraryapi.profiling.MailBatchEvent;
 import com.library.libraryapi.service.EmailService;
-import lombok.RequiredArgsConstructor;
+import com.library.libraryapi.service.notification.MailMessage;
+import com.library.libraryapi.service.notification.MailTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    @Value("${application.mail.default-remetent}")
-    private String remetent;
+    private static final String SUBJECT = "Livro com empréstimo atrasado";
 
-    private final JavaMailSender javaMailSender;
+    private final MailTransport transport;
+    private final int batchSize;
+    private final Timer batchTimer;
+    private final Counter sentMessages;
 
+    public EmailServiceImpl(MailTransport transport,
+                            @Value("${application.mail.transport.batch-size:100}") int batchSize,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        this.transport = transport;
+        this.batchSize = batchSize;
+        this.batchTimer = Timer.builder("library.mail.batch")
+                .tag("transport", transport.name())
+                .publishPercentileHistogram()
+                .register(registry);
+        this.sentMessages = Counter.builder("library.mail.sent")
+                .tag("transport", transport.name())
+                .register(registry);
+    }
+
+    //uma mensagem por endereco, para um destinatario nao ver os demais
     @Override
     public void sendMails(String mensagem, List<String> mailsList) {
+        send(mailsList.stream()
+                .map(mail -> new MailMessage(mail, SUBJECT, mensagem))
+                .collect(Collectors.toList()));
+    }
 
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
-
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com empréstimo atrasado");
-        mailMessage.setText(mensagem);
-
-        mailMessage.setTo(mails);
-
-        javaMailSender.send(mailMessage);
-
+    @Override
+    public void send(List<MailMessage> messages) {
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<MailMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            MailBatchEvent event = new MailBatchEvent(transport.name(), batch.size());
+            event.begin();
+            try {
+                batchTimer.record(() -> transport.send(batch));
+            } catch (RuntimeException e) {
+                event.setFailed(true);
+                throw e;
+            } finally {
+                event.commit();
+            }
+            sentMessages.increment(batch.size());
+        }
     }
 }
@@ -0,0 +1,61 @@
+package com.library.libraryapi.service.impl;
+
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.entity.LoanHistory;
+import com.library.libraryapi.model.repository.LoanHistoryRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.LoanArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LoanArchiveServiceImpl implements LoanArchiveService {
+
+    @Value("${application.loans.archive.after-days:365}")
+    private Integer afterDays;
+
+    @Value("${application.loans.archive.batch-size:1000}")
+    private Integer batchSize;
+
+    private final LoanRepository loanRepository;
+    private final LoanHistoryRepository historyRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public int archiveReturnedLoans() {
+        LocalDate cutoff = LocalDate.now().minusDays(afterDays);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        int archived = 0;
+        int moved;
+        do {
+            //cada lote em sua propria transacao, para nao segurar locks na tabela quente
+            moved = transaction.execute(status -> moveBatch(cutoff));
+            archived += moved;
+        } while (moved == batchSize);
+
+        log.info(" Archived {} returned loans older than {} ", archived, cutoff);
+        return archived;
+    }
+
+    private int moveBatch(LocalDate cutoff) {
+        List<Loan> batch = loanRepository.findReturnedBefore(cutoff, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        historyRepository.saveAll(batch.stream().map(LoanHistory::of).collect(Collectors.toList()));
+        loanRepository.deleteInBatch(batch);
+        return batch.size();
+    }
+}
@@ -4,57 +4,184 @@ import com.library.libraryapi.api.dto.LoanFilterDTO;
 import com.library.libraryapi.exception.BusinessException;
 import com.library.libraryapi.model.entity.Book;
 import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.LoanHistoryRepository;
+import com.library.libraryapi.model.repository.OffsetPageRequest;
 import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.model.repository.specification.LoanSpecification;
 import com.library.libraryapi.service.LoanService;
+import com.library.libraryapi.service.ReportService;
+import com.library.libraryapi.service.audit.AuditLog;
+import com.library.libraryapi.service.audit.AuditRecord;
+import com.library.libraryapi.service.event.ChangeEvent;
+import com.library.libraryapi.service.support.LoanReturnQueue;
+import com.library.libraryapi.service.support.SingleFlight;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    public static final Integer LOAN_DAYS = Loan.LOAN_DAYS;
+
     private LoanRepository repository;
+    private BookRepository bookRepository;
+    private LoanHistoryRepository historyRepository;
+    private ReportService reportService;
+    private LoanReturnQueue returnQueue;
+    private ApplicationEventPublisher eventPublisher;
+    private AuditLog auditLog;
+    private final SingleFlight<List<Object>, Page<Loan>> loansByBookCalls = new SingleFlight<>();
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository,
+                           LoanHistoryRepository historyRepository, ReportService reportService,
+                           LoanReturnQueue returnQueue, ApplicationEventPublisher eventPublisher,
+                           AuditLog auditLog) {
         this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.historyRepository = historyRepository;
+        this.reportService = reportService;
+        this.returnQueue = returnQueue;
+        this.eventPublisher = eventPublisher;
+        this.auditLog = auditLog;
     }
 
+    //o emprestimo e os contadores do livro e dos relatorios sao gravados juntos ou nenhum deles
     @Override
+    @Transactional
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())){
+        if(isLoaned(loan.getBook())){
             throw new BusinessException("Book already loaned");
         }
-        return repository.save(loan);
+        if (loan.getReturned() == null) {
+            loan.setReturned(false);
+        }
+        if (loan.getDueDate() == null && loan.getLoanDate() != null) {
+            loan.setDueDate(dueDate(loan.getLoanDate()));
+        }
+        Loan savedLoan = repository.save(loan);
+        //o contador dos relatorios antes do livro: o rebuild trava os relatorios e so entao o livro
+        reportService.registerLoan(savedLoan);
+        bookRepository.registerLoan(savedLoan.getBook().getId(), savedLoan.getLoanDate());
+        auditLog.record(AuditRecord.Action.CHECKOUT, savedLoan);
+        eventPublisher.publishEvent(ChangeEvent.of(ChangeEvent.Type.LOAN_CREATED, savedLoan));
+        return savedLoan;
+    }
+
+    //devolucoes confirmadas no write-behind liberam o livro antes de irem ao banco
+    private boolean isLoaned(Book book) {
+        if (returnQueue.isEmpty()) {
+            return repository.existsByBookAndNotReturned(book);
+        }
+        return repository.findIdsByBookAndNotReturned(book).stream()
+                .anyMatch(id -> !returnQueue.pendingReturned(id).orElse(false));
     }
 
     @Override
     public Optional<Loan> getById(Long id) {
-        return repository.findById(id);
+        return repository.findById(id).map(this::withPendingReturn);
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        if (returnQueue.offer(loan.getId(), loan.getReturned())) {
+            //a devolucao ja esta no journal do write-behind e vale como confirmada
+            auditLog.record(returnAction(loan), loan);
+            eventPublisher.publishEvent(ChangeEvent.of(ChangeEvent.Type.LOAN_UPDATED, loan));
+            return loan;
+        }
+        Loan updatedLoan = repository.save(loan);
+        if (updatedLoan.getBook() != null) {
+            bookRepository.updateActiveLoan(updatedLoan.getBook().getId(), !Boolean.TRUE.equals(updatedLoan.getReturned()));
+        }
+        auditLog.record(returnAction(updatedLoan), updatedLoan);
+        eventPublisher.publishEvent(ChangeEvent.of(ChangeEvent.Type.LOAN_UPDATED, updatedLoan));
+        return updatedLoan;
+    }
+
+    private static AuditRecord.Action returnAction(Loan loan) {
+        return Boolean.TRUE.equals(loan.getReturned()) ? AuditRecord.Action.RETURN : AuditRecord.Action.REOPEN;
     }
 
     @Override
     public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(),filterDTO.getCustomer(),pageable);
+        Page<Loan> page = repository.findAll(LoanSpecification.of(filterDTO), pageable);
+        if (returnQueue.isEmpty()) {
+            return page;
+        }
+        //a devolucao pendente pode tirar o emprestimo do filtro (returned=false, overdue=true)
+        LocalDate today = LocalDate.now();
+        List<Loan> loans = new ArrayList<>(page.getNumberOfElements());
+        for (Loan loan : page) {
+            Loan current = withPendingReturn(loan);
+            if (current == loan || LoanSpecification.matches(filterDTO, current, today)) {
+                loans.add(current);
+            }
+        }
+        return new PageImpl<>(loans, pageable, page.getTotalElements() - (page.getNumberOfElements() - loans.size()));
     }
 
     @Override
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+        List<Object> key = Arrays.asList(book.getId(), pageable.isPaged() ? pageable.getPageNumber() : null,
+                pageable.isPaged() ? pageable.getPageSize() : null, pageable.getSort());
+        return loansByBookCalls.execute(key, () -> findHotAndArchivedLoans(book, pageable))
+                .map(this::withPendingReturn);
+    }
+
+    //emprestimos ativos/recentes primeiro; a pagina e completada com o historico arquivado
+    private Page<Loan> findHotAndArchivedLoans(Book book, Pageable pageable) {
+        Page<Loan> hot = repository.findByBook(book, pageable);
+        if (pageable.isUnpaged()) {
+            List<Loan> loans = new ArrayList<>(hot.getContent());
+            historyRepository.findByBook(book, pageable).forEach(history -> loans.add(history.toLoan()));
+            return new PageImpl<>(loans);
+        }
+
+        long archivedTotal = historyRepository.countByBook(book);
+        int missing = pageable.getPageSize() - hot.getNumberOfElements();
+        if (archivedTotal == 0 || missing == 0) {
+            return new PageImpl<>(hot.getContent(), pageable, hot.getTotalElements() + archivedTotal);
+        }
+
+        List<Loan> loans = new ArrayList<>(hot.getContent());
+        long archivedOffset = Math.max(0, pageable.getOffset() - hot.getTotalElements());
+        historyRepository.findByBook(book, new OffsetPageRequest(archivedOffset, missing, pageable.getSort()))
+                .forEach(history -> loans.add(history.toLoan()));
+        return new PageImpl<>(loans, pageable, hot.getTotalElements() + archivedTotal);
+    }
+
+    public static LocalDate dueDate(LocalDate loanDate) {
+        return loanDate.plusDays(LOAN_DAYS);
     }
 
     @Override
     public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4;
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
-        return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
+        return repository.findOverdue(LocalDate.now())
+                .stream()
+                .map(this::withPendingReturn)
+                .filter(loan -> !Boolean.TRUE.equals(loan.getReturned()))
+                .collect(Collectors.toList());
+    }
+
+    //leitura consistente com devolucoes confirmadas que ainda nao foram ao banco; a entidade
+    //pode ser compartilhada (SingleFlight, contexto de persistencia), entao e copiada
+    private Loan withPendingReturn(Loan loan) {
+        return returnQueue.pendingReturned(loan.getId())
+                .filter(returned -> !returned.equals(loan.getReturned()))
+                .map(returned -> loan.toBuilder().returned(returned).build())
+                .orElse(loan);
     }
 }
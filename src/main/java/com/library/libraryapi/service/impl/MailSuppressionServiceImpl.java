@@ -0,0 +1,190 @@
+package com.library.libraryapi.service.impl;
+
+import com.library.libraryapi.exception.BusinessException;
+import com.library.libraryapi.model.entity.MailSuppression;
+import com.library.libraryapi.model.repository.MailSuppressionRepository;
+import com.library.libraryapi.service.MailSuppressionService;
+import com.library.libraryapi.service.notification.Emails;
+import com.library.libraryapi.service.support.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lista de supressao de emails (bounces, opt-outs e avisos ja enviados no dia). Um filtro
+ * de Bloom em memoria descarta sem ir ao banco a grande maioria dos destinatarios, que
+ * nao estao na lista; so os "talvez" sao confirmados no banco. O filtro nao remove
+ * elementos, entao e reconstruido a cada {@link #purgeExpired(LocalDate)}; os emails
+ * incluidos durante a reconstrucao sao repassados ao filtro novo antes da troca, para que
+ * ele nunca deixe de conter um email suprimido.
+ */
+@Service
+@Slf4j
+public class MailSuppressionServiceImpl implements MailSuppressionService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int QUERY_CHUNK = 500;
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    private final MailSuppressionRepository repository;
+    private final TransactionTemplate transaction;
+    private final int expectedSize;
+
+    //null ate a primeira carga: todos os emails sao consultados no banco
+    private volatile BloomFilter filter;
+    private final Object filterLock = new Object();
+    //emails incluidos enquanto o filtro e reconstruido; null fora da reconstrucao
+    private Set<String> addedDuringLoad;
+
+    public MailSuppressionServiceImpl(MailSuppressionRepository repository,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${application.mail.suppression.expected-size:100000}") int expectedSize) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.expectedSize = expectedSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        synchronized (filterLock) {
+            addedDuringLoad = new HashSet<>();
+        }
+        long count = repository.count();
+        BloomFilter loaded = new BloomFilter(Math.max(expectedSize, count * 2), FALSE_POSITIVE_RATE);
+        try {
+            transaction.execute(status -> {
+                try (Stream<String> emails = repository.streamEmails()) {
+                    emails.forEach(loaded::put);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            synchronized (filterLock) {
+                addedDuringLoad = null;
+            }
+            throw e;
+        }
+        //o que foi gravado depois do inicio da leitura pode nao estar no resultado dela
+        synchronized (filterLock) {
+            addedDuringLoad.forEach(loaded::put);
+            addedDuringLoad = null;
+            filter = loaded;
+        }
+        log.info(" Mail suppression filter loaded with {} emails ({} KB) ", count, loaded.bitSize() / 8 / 1024);
+    }
+
+    @Override
+    public MailSuppression suppress(String email, MailSuppression.Reason reason) {
+        String normalized = Emails.normalize(email);
+        if (normalized == null) {
+            throw new BusinessException("Email invalido.");
+        }
+        MailSuppression saved = retryOnDuplicate(() -> {
+            MailSuppression suppression = repository.findByEmail(normalized)
+                    .orElseGet(() -> MailSuppression.builder().email(normalized).build());
+            suppression.setReason(reason);
+            suppression.setSuppressedAt(LocalDate.now());
+            return repository.save(suppression);
+        });
+        put(normalized);
+        return saved;
+    }
+
+    @Override
+    public void remove(String email) {
+        String normalized = Emails.normalize(email);
+        if (normalized != null) {
+            repository.deleteByEmail(normalized);
+        }
+    }
+
+    @Override
+    public Set<String> findSuppressed(Collection<String> emails, LocalDate today) {
+        BloomFilter current = filter;
+        List<String> candidates = current == null
+                ? new ArrayList<>(emails)
+                : emails.stream().filter(current::mightContain).collect(Collectors.toList());
+
+        Set<String> suppressed = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += QUERY_CHUNK) {
+            List<String> chunk = candidates.subList(from, Math.min(from + QUERY_CHUNK, candidates.size()));
+            suppressed.addAll(repository.findSuppressed(chunk, MailSuppression.Reason.SENT, today));
+        }
+        log.debug(" {} recipients checked, {} looked up, {} suppressed ", emails.size(), candidates.size(), suppressed.size());
+        return suppressed;
+    }
+
+    @Override
+    public void markSent(Collection<String> emails, LocalDate today) {
+        retryOnDuplicate(() -> {
+            Map<String, MailSuppression> existing = repository.findByEmailIn(emails).stream()
+                    .collect(Collectors.toMap(MailSuppression::getEmail, Function.identity()));
+            List<MailSuppression> changed = new ArrayList<>(emails.size());
+            for (String email : emails) {
+                MailSuppression suppression = existing.get(email);
+                if (suppression == null) {
+                    changed.add(MailSuppression.builder().email(email)
+                            .reason(MailSuppression.Reason.SENT).suppressedAt(today).build());
+                } else if (suppression.getReason() == MailSuppression.Reason.SENT) {
+                    suppression.setSuppressedAt(today);
+                    changed.add(suppression);
+                }
+            }
+            return repository.saveAll(changed);
+        });
+        emails.forEach(this::put);
+    }
+
+    //outra instancia pode incluir o mesmo email entre a consulta e a gravacao; o indice
+    //unico recusa a insercao e a consulta e refeita, agora encontrando a linha
+    private <T> T retryOnDuplicate(Supplier<T> save) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return save.get();
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug(" Mail suppression inserted concurrently, retrying: {} ", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void purgeExpired(LocalDate today) {
+        int purged = repository.deleteByReasonBefore(MailSuppression.Reason.SENT, today);
+        if (purged > 0) {
+            log.info(" Purged {} expired sent-mail suppressions ", purged);
+        }
+        load();
+    }
+
+    private void put(String email) {
+        synchronized (filterLock) {
+            if (filter != null) {
+                filter.put(email);
+            }
+            if (addedDuringLoad != null) {
+                addedDuringLoad.add(email);
+            }
+        }
+    }
+}
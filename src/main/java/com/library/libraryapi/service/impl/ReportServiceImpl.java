@@ -0,0 +1,230 @@
+package com.library.libraryapi.service.impl;
+
+import com.library.libraryapi.api.dto.BookLoanCountDTO;
+import com.library.libraryapi.api.dto.CustomerOverdueDTO;
+import com.library.libraryapi.api.dto.DailyLoanVolumeDTO;
+import com.library.libraryapi.model.entity.BookLoanStatistic;
+import com.library.libraryapi.model.entity.DailyLoanStatistic;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.repository.BookLoanStatisticRepository;
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.DailyLoanStatisticRepository;
+import com.library.libraryapi.model.repository.LoanHistoryRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportServiceImpl implements ReportService {
+
+    @Value("${application.reports.rebuild.chunk-size:10000}")
+    private Long chunkSize;
+
+    private final LoanRepository loanRepository;
+    private final LoanHistoryRepository historyRepository;
+    private final BookLoanStatisticRepository bookStatisticRepository;
+    private final BookRepository bookRepository;
+    private final DailyLoanStatisticRepository dailyStatisticRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    @Transactional
+    public void registerLoan(Loan loan) {
+        Long bookId = loan.getBook().getId();
+        LocalDate loanDate = loan.getLoanDate();
+        increment(() -> bookStatisticRepository.incrementTotalLoans(bookId, loanDate),
+                () -> bookStatisticRepository.insertIfAbsent(bookId));
+
+        increment(() -> dailyStatisticRepository.incrementCheckouts(loanDate),
+                () -> dailyStatisticRepository.insertIfAbsent(loanDate));
+    }
+
+    /*
+     * O incremento roda na transacao do emprestimo, e a linha que ainda nao existe e criada
+     * ali mesmo, zerada, sem ocupar outra conexao. As linhas do dia ja sao criadas antes por
+     * prepareDailyStatistics, para que os primeiros emprestimos do dia nao disputem a insercao.
+     */
+    private void increment(IntSupplier increment, Runnable createIfAbsent) {
+        if (increment.getAsInt() > 0) {
+            return;
+        }
+        createIfAbsent.run();
+        if (increment.getAsInt() == 0) {
+            throw new IllegalStateException("Could not increment loan statistics.");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.reports.daily.prepare-interval-ms:3600000}")
+    public void prepareDailyStatistics() {
+        LocalDate today = LocalDate.now();
+        try {
+            new TransactionTemplate(transactionManager).execute(status -> {
+                dailyStatisticRepository.insertIfAbsent(today);
+                dailyStatisticRepository.insertIfAbsent(today.plusDays(1));
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.debug(" Daily loan statistic created concurrently, will check again on the next run ");
+        }
+    }
+
+    @Override
+    public Long getLoanCountByBook(Long bookId) {
+        return bookStatisticRepository.findById(bookId)
+                .map(BookLoanStatistic::getTotalLoans)
+                .orElse(0L);
+    }
+
+    @Override
+    public Page<BookLoanCountDTO> getTopBorrowedBooks(Pageable pageable) {
+        return bookStatisticRepository
+                .findTopBorrowed(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()))
+                .map(row -> BookLoanCountDTO.builder()
+                        .bookId((Long) row[0])
+                        .title((String) row[1])
+                        .isbn((String) row[2])
+                        .totalLoans((Long) row[3])
+                        .build());
+    }
+
+    @Override
+    public Page<CustomerOverdueDTO> getOverdueByCustomer(Pageable pageable) {
+        return loanRepository
+                .countOverdueByCustomer(LocalDate.now(), PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()))
+                .map(row -> new CustomerOverdueDTO((String) row[0], (Long) row[1]));
+    }
+
+    @Override
+    public List<DailyLoanVolumeDTO> getDailyCheckouts(LocalDate from, LocalDate to) {
+        return dailyStatisticRepository.findByLoanDateBetweenOrderByLoanDate(from, to)
+                .stream()
+                .map(stat -> new DailyLoanVolumeDTO(stat.getLoanDate(), stat.getCheckouts()))
+                .collect(Collectors.toList());
+    }
+
+    /*
+     * A varredura roda numa unica transacao SERIALIZABLE somente leitura: Loan, LoanHistory e
+     * os contadores atuais sao lidos no mesmo snapshot, entao um emprestimo arquivado no meio
+     * da varredura aparece numa so das tabelas, e um ainda nao confirmado nao aparece em
+     * nenhuma. Na troca, com os contadores travados, cada um recebe o valor varrido mais o que
+     * andou desde o snapshot, que sao os incrementos dos emprestimos confirmados depois dele.
+     */
+    @Override
+    public void rebuild() {
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        snapshot.setReadOnly(true);
+        Scan scan = snapshot.execute(status -> scan());
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            apply(scan);
+            return null;
+        });
+        log.info(" Loan reports rebuilt for {} books and {} days ", scan.loansByBook.size(), scan.loansByDate.size());
+    }
+
+    private Scan scan() {
+        Scan scan = new Scan();
+        bookStatisticRepository.findAll()
+                .forEach(statistic -> scan.booksAtSnapshot.put(statistic.getBookId(), statistic.getTotalLoans()));
+        dailyStatisticRepository.findAll()
+                .forEach(statistic -> scan.daysAtSnapshot.put(statistic.getLoanDate(), statistic.getCheckouts()));
+
+        //emprestimos arquivados compartilham a mesma faixa de ids da tabela Loan
+        Long minId = min(loanRepository.findMinId(), historyRepository.findMinId());
+        Long maxId = max(loanRepository.findMaxId(), historyRepository.findMaxId());
+        if (minId == null) {
+            return scan;
+        }
+        for (long start = minId; start <= maxId; start += chunkSize) {
+            Long from = start;
+            Long to = Math.min(start + chunkSize - 1, maxId);
+            scan.addBookCounts(loanRepository.countByBookBetweenIds(from, to));
+            scan.addDateCounts(loanRepository.countByLoanDateBetweenIds(from, to));
+            scan.addBookCounts(historyRepository.countByBookBetweenIds(from, to));
+            scan.addDateCounts(historyRepository.countByLoanDateBetweenIds(from, to));
+        }
+        return scan;
+    }
+
+    private void apply(Scan scan) {
+        //as linhas que faltam sao criadas antes da trava, para que entrem nela
+        scan.loansByBook.keySet().stream()
+                .filter(bookId -> !scan.booksAtSnapshot.containsKey(bookId))
+                .forEach(bookStatisticRepository::insertIfAbsent);
+        scan.loansByDate.keySet().stream()
+                .filter(loanDate -> !scan.daysAtSnapshot.containsKey(loanDate))
+                .forEach(dailyStatisticRepository::insertIfAbsent);
+
+        for (BookLoanStatistic statistic : bookStatisticRepository.findAllForUpdate()) {
+            Long bookId = statistic.getBookId();
+            long sinceSnapshot = statistic.getTotalLoans() - scan.booksAtSnapshot.getOrDefault(bookId, 0L);
+            LocalDate lastLoanDate = scan.lastLoanByBook.get(bookId);
+            statistic.setTotalLoans(scan.loansByBook.getOrDefault(bookId, 0L) + sinceSnapshot);
+            statistic.setLastLoanDate(sinceSnapshot > 0 ? latest(lastLoanDate, statistic.getLastLoanDate()) : lastLoanDate);
+        }
+        for (DailyLoanStatistic statistic : dailyStatisticRepository.findAllForUpdate()) {
+            LocalDate loanDate = statistic.getLoanDate();
+            long sinceSnapshot = statistic.getCheckouts() - scan.daysAtSnapshot.getOrDefault(loanDate, 0L);
+            statistic.setCheckouts(scan.loansByDate.getOrDefault(loanDate, 0L) + sinceSnapshot);
+        }
+        //os contadores do livro seguem os recalculados; checkouts novos esperam a trava acima
+        bookRepository.copyLoanStatistics();
+    }
+
+    private static LocalDate latest(LocalDate first, LocalDate second) {
+        return first == null ? second : second == null || first.isAfter(second) ? first : second;
+    }
+
+    private Long min(Long first, Long second) {
+        return first == null ? second : second == null ? first : Math.min(first, second);
+    }
+
+    private Long max(Long first, Long second) {
+        return first == null ? second : second == null ? first : Math.max(first, second);
+    }
+
+    private static final class Scan {
+
+        private final Map<Long, Long> booksAtSnapshot = new HashMap<>();
+        private final Map<LocalDate, Long> daysAtSnapshot = new HashMap<>();
+        private final Map<Long, Long> loansByBook = new HashMap<>();
+        private final Map<Long, LocalDate> lastLoanByBook = new HashMap<>();
+        private final Map<LocalDate, Long> loansByDate = new HashMap<>();
+
+        //linhas (idDoLivro, quantidade, ultima data de emprestimo)
+        void addBookCounts(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                loansByBook.merge((Long) row[0], (Long) row[1], Long::sum);
+                if (row[2] != null) {
+                    lastLoanByBook.merge((Long) row[0], (LocalDate) row[2], ReportServiceImpl::latest);
+                }
+            }
+        }
+
+        void addDateCounts(List<Object[]> rows) {
+            rows.forEach(row -> loansByDate.merge((LocalDate) row[0], (Long) row[1], Long::sum));
+        }
+    }
+}
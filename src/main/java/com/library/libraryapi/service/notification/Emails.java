@@ -0,0 +1,23 @@
+package com.library.libraryapi.service.notification;
+
+import java.util.Locale;
+
+public final class Emails {
+
+    private Emails() {
+    }
+
+    /**
+     * Forma canonica usada para deduplicar e suprimir destinatarios.
+     *
+     * @return null para emails vazios ou sem "@"
+     */
+    public static String normalize(String email) {
+        if (email == null) {
+            return null;
+        }
+        String normalized = email.trim().toLowerCase(Locale.ROOT);
+        int at = normalized.indexOf('@');
+        return at <= 0 || at == normalized.length() - 1 ? null : normalized;
+    }
+}
@@ -0,0 +1,176 @@
+package com.library.libraryapi.service.notification;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor SMTP minimo embutido, escutando apenas em loopback: aceita qualquer remetente
+ * e destinatario, conta as mensagens e opcionalmente as grava num {@link Maildir}. Com
+ * ele o envio passa pelo JavaMail e pelo protocolo SMTP reais sem depender de rede.
+ */
+@Slf4j
+public class FakeSmtpServer {
+
+    private static final int MAX_LINE = 64 * 1024;
+
+    private final int requestedPort;
+    private final Maildir spool;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private ServerSocket serverSocket;
+    private ExecutorService sessions;
+    private volatile boolean running;
+
+    /**
+     * @param port  0 para uma porta livre qualquer
+     * @param spool null para apenas contar as mensagens
+     */
+    public FakeSmtpServer(int port, Maildir spool) {
+        this.requestedPort = port;
+        this.spool = spool;
+    }
+
+    public synchronized void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort));
+        sessions = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-smtp-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        sessions.execute(this::acceptLoop);
+        log.info(" Fake SMTP server listening on port {} ", getPort());
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            log.warn(" Could not close fake SMTP server: {} ", e.getMessage());
+        }
+        if (sessions != null) {
+            sessions.shutdownNow();
+        }
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> session(socket));
+            } catch (IOException e) {
+                if (running) {
+                    log.warn(" Fake SMTP server accept failed: {} ", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (Socket client = socket;
+             InputStream in = new BufferedInputStream(client.getInputStream());
+             OutputStream out = client.getOutputStream()) {
+            reply(out, "220 localhost fake SMTP ready");
+            String line;
+            while ((line = readLine(in)) != null) {
+                String command = line.length() < 4 ? line.toUpperCase(Locale.ROOT) : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO":
+                        reply(out, "250-localhost\r\n250-8BITMIME\r\n250 PIPELINING");
+                        break;
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "MAIL":
+                    case "RCPT":
+                    case "RSET":
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        byte[] message = readData(in);
+                        if (spool != null) {
+                            spool.deliver(message);
+                        }
+                        received.incrementAndGet();
+                        reply(out, "250 OK queued");
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            log.debug(" Fake SMTP session ended: {} ", e.getMessage());
+        }
+    }
+
+    //le ate a linha com um unico ponto, desfazendo o dot-stuffing
+    private static byte[] readData(InputStream in) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream(4096);
+        String line;
+        while ((line = readLine(in)) != null && !".".equals(line)) {
+            byte[] bytes = (line.startsWith(".") ? line.substring(1) : line).getBytes(StandardCharsets.ISO_8859_1);
+            message.write(bytes);
+            message.write('\r');
+            message.write('\n');
+        }
+        return message.toByteArray();
+    }
+
+    //linha sem o CRLF; ISO-8859-1 preserva os bytes de mensagens 8bit
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            if (line.length() == MAX_LINE) {
+                throw new IOException("SMTP line too long");
+            }
+            line.append((char) b);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+}
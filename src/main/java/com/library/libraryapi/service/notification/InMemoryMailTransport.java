@@ -0,0 +1,54 @@
+package com.library.libraryapi.service.notification;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Descarta as mensagens guardando apenas as ultimas {@code capacity}, para testes e
+ * para medir o custo do caminho de notificacao sem I/O.
+ */
+public class InMemoryMailTransport implements MailTransport {
+
+    private final int capacity;
+    private final Deque<MailMessage> recent;
+    private final AtomicLong sent = new AtomicLong();
+
+    public InMemoryMailTransport(int capacity) {
+        this.capacity = capacity;
+        this.recent = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    @Override
+    public void send(List<MailMessage> messages) {
+        synchronized (recent) {
+            for (MailMessage message : messages) {
+                if (capacity == 0) {
+                    break;
+                }
+                if (recent.size() == capacity) {
+                    recent.removeFirst();
+                }
+                recent.addLast(message);
+            }
+        }
+        sent.addAndGet(messages.size());
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public List<MailMessage> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+}
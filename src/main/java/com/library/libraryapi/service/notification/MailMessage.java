@@ -0,0 +1,15 @@
+package com.library.libraryapi.service.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class MailMessage {
+
+    private String to;
+
+    private String subject;
+
+    private String text;
+}
@@ -0,0 +1,18 @@
+package com.library.libraryapi.service.notification;
+
+import java.util.List;
+
+/**
+ * Destino final das mensagens. O lote e entregue de uma vez (uma conexao SMTP, uma
+ * passada no diretorio de spool), entao quem envia controla o tamanho do lote.
+ * Implementacoes: {@link SmtpMailTransport}, {@link MaildirMailTransport} e
+ * {@link InMemoryMailTransport}; com {@link FakeSmtpServer} o caminho SMTP inteiro roda
+ * sem rede.
+ */
+public interface MailTransport {
+
+    void send(List<MailMessage> messages);
+
+    //nome usado nas metricas de envio
+    String name();
+}
@@ -0,0 +1,58 @@
+package com.library.libraryapi.service.notification;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Diretorio no formato maildir: cada mensagem e escrita em tmp/ e movida atomicamente
+ * para new/, entao um leitor nunca ve uma mensagem pela metade.
+ */
+public class Maildir {
+
+    private final Path tmp;
+    private final Path delivered;
+    private final String uniqueSuffix;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public Maildir(Path directory) {
+        this.tmp = directory.resolve("tmp");
+        this.delivered = directory.resolve("new");
+        try {
+            Files.createDirectories(tmp);
+            Files.createDirectories(delivered);
+            Files.createDirectories(directory.resolve("cur"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.uniqueSuffix = UUID.randomUUID().toString().substring(0, 8) + "." + hostname();
+    }
+
+    public Path deliver(byte[] message) {
+        String name = System.currentTimeMillis() + "." + sequence.incrementAndGet() + "_" + uniqueSuffix;
+        Path file = tmp.resolve(name);
+        try {
+            Files.write(file, message);
+            return Files.move(file, delivered.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path getDelivered() {
+        return delivered;
+    }
+
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName().replace('/', '_').replace(':', '_');
+        } catch (IOException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.libraryapi.service.notification;
+
+import javax.mail.internet.MimeUtility;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Grava cada mensagem como um arquivo RFC 822 num maildir local, em vez de enviar. Serve
+ * para medir o caminho de notificacao sem rede e para inspecionar as mensagens geradas.
+ */
+public class MaildirMailTransport implements MailTransport {
+
+    private static final String CRLF = "\r\n";
+
+    private final Maildir maildir;
+    private final String from;
+
+    public MaildirMailTransport(Path directory, String from) {
+        this.maildir = new Maildir(directory);
+        this.from = from;
+    }
+
+    @Override
+    public void send(List<MailMessage> messages) {
+        StringBuilder buffer = new StringBuilder(2048);
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now());
+        for (MailMessage message : messages) {
+            buffer.setLength(0);
+            buffer.append("From: ").append(from).append(CRLF)
+                    .append("To: ").append(message.getTo()).append(CRLF)
+                    .append("Subject: ").append(encode(message.getSubject())).append(CRLF)
+                    .append("Date: ").append(date).append(CRLF)
+                    .append("MIME-Version: 1.0").append(CRLF)
+                    .append("Content-Type: text/plain; charset=UTF-8").append(CRLF)
+                    .append("Content-Transfer-Encoding: 8bit").append(CRLF)
+                    .append(CRLF);
+            appendBody(buffer, message.getText());
+            maildir.deliver(buffer.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "maildir";
+    }
+
+    private static void appendBody(StringBuilder buffer, String text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' && (i == 0 || text.charAt(i - 1) != '\r')) {
+                buffer.append('\r');
+            }
+            buffer.append(c);
+        }
+        buffer.append(CRLF);
+    }
+
+    private static String encode(String subject) {
+        try {
+            return subject == null ? "" : MimeUtility.encodeText(subject, "UTF-8", "Q");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.libraryapi.service.notification;
+
+import com.library.libraryapi.model.entity.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Todos os emprestimos atrasados de um cliente, para um unico email.
+ */
+@Getter
+@AllArgsConstructor
+public class OverdueNotice {
+
+    private final String customer;
+
+    private final String email;
+
+    private final List<Loan> loans;
+
+    private final LocalDate today;
+}
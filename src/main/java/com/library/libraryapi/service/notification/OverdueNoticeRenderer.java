@@ -0,0 +1,75 @@
+package com.library.libraryapi.service.notification;
+
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.template.MessageTemplate;
+import com.library.libraryapi.service.template.TemplateSchema;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Monta o email de atraso de cada cliente. O template e compilado uma vez na subida (um
+ * template invalido impede a aplicacao de subir) e reaproveitado em todas as mensagens.
+ *
+ * <p>Variaveis: customer, email, message, count, today; secao loans com title, author,
+ * isbn, loanDate, dueDate e daysLate.
+ */
+@Component
+public class OverdueNoticeRenderer {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final String subject;
+    private final MessageTemplate<OverdueNotice> template;
+
+    public OverdueNoticeRenderer(@Value("${application.mail.lateloans.subject}") String subject,
+                                 @Value("${application.mail.lateloans.message}") String message,
+                                 @Value("${application.mail.lateloans.template}") String template) {
+        this.subject = subject;
+        this.template = MessageTemplate.compile(template, schema(message));
+    }
+
+    public MailMessage render(OverdueNotice notice) {
+        return new MailMessage(notice.getEmail(), subject, template.render(notice));
+    }
+
+    private static TemplateSchema<OverdueNotice> schema(String message) {
+        TemplateSchema<LateLoan> loan = new TemplateSchema<LateLoan>()
+                .text("title", item -> item.loan.getBook().getTitle())
+                .text("author", item -> item.loan.getBook().getAuthor())
+                .text("isbn", item -> item.loan.getBook().getIsbn())
+                .variable("loanDate", (item, out) -> DATE_FORMAT.formatTo(item.loan.getLoanDate(), out))
+                .variable("dueDate", (item, out) -> DATE_FORMAT.formatTo(item.dueDate, out))
+                .variable("daysLate", (item, out) -> out.append(item.daysLate));
+
+        return new TemplateSchema<OverdueNotice>()
+                .text("customer", OverdueNotice::getCustomer)
+                .text("email", OverdueNotice::getEmail)
+                .text("message", notice -> message)
+                .variable("count", (notice, out) -> out.append(notice.getLoans().size()))
+                .variable("today", (notice, out) -> DATE_FORMAT.formatTo(notice.getToday(), out))
+                .section("loans", OverdueNoticeRenderer::lateLoans, loan);
+    }
+
+    private static List<LateLoan> lateLoans(OverdueNotice notice) {
+        List<LateLoan> items = new ArrayList<>(notice.getLoans().size());
+        for (Loan loan : notice.getLoans()) {
+            LocalDate dueDate = loan.effectiveDueDate();
+            items.add(new LateLoan(loan, dueDate, Math.max(0, ChronoUnit.DAYS.between(dueDate, notice.getToday()))));
+        }
+        return items;
+    }
+
+    @AllArgsConstructor
+    private static class LateLoan {
+        private final Loan loan;
+        private final LocalDate dueDate;
+        private final long daysLate;
+    }
+}
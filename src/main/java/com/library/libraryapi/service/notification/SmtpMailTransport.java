@@ -0,0 +1,42 @@
+package com.library.libraryapi.service.notification;
+
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.util.List;
+
+public class SmtpMailTransport implements MailTransport {
+
+    private final JavaMailSender javaMailSender;
+    private final String from;
+    private final String name;
+
+    public SmtpMailTransport(JavaMailSender javaMailSender, String from, String name) {
+        this.javaMailSender = javaMailSender;
+        this.from = from;
+        this.name = name;
+    }
+
+    //o JavaMailSender envia o array inteiro numa unica conexao
+    @Override
+    public void send(List<MailMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        SimpleMailMessage[] mailMessages = messages.stream().map(message -> {
+            SimpleMailMessage mailMessage = new SimpleMailMessage();
+            mailMessage.setFrom(from);
+            mailMessage.setTo(message.getTo());
+            mailMessage.setSubject(message.getSubject());
+            mailMessage.setText(message.getText());
+            return mailMessage;
+        }).toArray(SimpleMailMessage[]::new);
+
+        javaMailSender.send(mailMessages);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+}
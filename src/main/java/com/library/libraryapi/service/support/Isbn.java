@@ -0,0 +1,97 @@
+package com.library.libraryapi.service.support;
+
+/**
+ * Conversao de ISBN-10/13 para o ISBN-13 numerico, usado como chave compacta.
+ */
+public final class Isbn {
+
+    private Isbn() {
+    }
+
+    /**
+     * @return o ISBN-13 como long, ou null quando o texto nao e um ISBN-10/13 valido; um
+     * ISBN-13 precisa do prefixo 978 ou 979, entao a chave nunca e 0
+     */
+    public static Long pack(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String digits = strip(isbn);
+        if (digits.length() == 13 && isDigits(digits, 13) && hasBooklandPrefix(digits)
+                && checkDigit13(digits) == digits.charAt(12) - '0') {
+            return Long.parseLong(digits);
+        }
+        if (digits.length() == 10 && isDigits(digits, 9) && checkDigit10(digits) == digits.charAt(9)) {
+            String isbn13 = "978" + digits.substring(0, 9);
+            return Long.parseLong(isbn13 + checkDigit13(isbn13));
+        }
+        return null;
+    }
+
+    public static String format(long isbnKey) {
+        return Long.toString(isbnKey);
+    }
+
+    /**
+     * @return para buscas por trecho: o ISBN-13 de um ISBN completo, ou o trecho sem
+     * separadores quando ele so tem digitos, que e como os isbns ficam gravados
+     */
+    public static String normalizeSearch(String isbn) {
+        Long isbnKey = pack(isbn);
+        if (isbnKey != null) {
+            return format(isbnKey);
+        }
+        String digits = strip(isbn);
+        return !digits.isEmpty() && isDigits(digits, digits.length()) ? digits : isbn;
+    }
+
+    /**
+     * @param prefix os 12 primeiros digitos de um ISBN-13
+     * @return o ISBN-13 numerico com o digito verificador calculado
+     */
+    public static long withCheckDigit(long prefix) {
+        String digits = String.format("%012d", prefix);
+        return prefix * 10 + checkDigit13(digits);
+    }
+
+    private static String strip(String isbn) {
+        StringBuilder digits = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (c != '-' && c != ' ') {
+                digits.append(Character.toUpperCase(c));
+            }
+        }
+        return digits.toString();
+    }
+
+    private static boolean hasBooklandPrefix(String digits) {
+        return digits.startsWith("978") || digits.startsWith("979");
+    }
+
+    private static boolean isDigits(String value, int length) {
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int checkDigit13(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static char checkDigit10(String digits) {
+        int sum = 0;
+        for (int i = 0; i < 9; i++) {
+            sum += (digits.charAt(i) - '0') * (10 - i);
+        }
+        int check = (11 - sum % 11) % 11;
+        return check == 10 ? 'X' : (char) ('0' + check);
+    }
+}
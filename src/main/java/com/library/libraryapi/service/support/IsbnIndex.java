@@ -0,0 +1,142 @@
+package com.library.libraryapi.service.support;
+
+import com.library.libraryapi.model.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Indice em memoria ISBN-13 -> id do livro. Depois de carregado na subida, responde
+ * sozinho se um ISBN existe; antes disso, ou para ISBNs fora do padrao, quem consulta
+ * deve recorrer ao banco.
+ */
+@Component
+@Slf4j
+public class IsbnIndex {
+
+    private final BookRepository repository;
+    private final LongLongHashMap index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public IsbnIndex(BookRepository repository,
+                     @Value("${application.isbn-index.expected-size:100000}") int expectedSize) {
+        this.repository = repository;
+        this.index = new LongLongHashMap(expectedSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(IsbnKeyBackfill.ORDER + 1)
+    @Transactional(readOnly = true)
+    public void load() {
+        long start = System.currentTimeMillis();
+        AtomicInteger collisions = new AtomicInteger();
+        try (Stream<Object[]> books = repository.streamIdAndIsbnKey()) {
+            books.forEach(book -> {
+                if (!putIfAbsent((Long) book[1], (Long) book[0])) {
+                    collisions.incrementAndGet();
+                }
+            });
+        }
+        loaded = true;
+        log.info(" ISBN index loaded with {} books in {} ms ", size(), System.currentTimeMillis() - start);
+        if (collisions.get() > 0) {
+            log.warn(" {} books share an ISBN key with another book and were left out of the ISBN index ",
+                    collisions.get());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Indica se o indice pode responder sozinho pelo ISBN: ja foi carregado e o ISBN
+     * e um ISBN-10/13 valido. Caso contrario a consulta deve ir ao banco.
+     */
+    public boolean covers(String isbn) {
+        return loaded && Isbn.pack(isbn) != null;
+    }
+
+    public OptionalLong find(String isbn) {
+        Long key = Isbn.pack(isbn);
+        if (key == null) {
+            return OptionalLong.empty();
+        }
+        long bookId;
+        lock.readLock().lock();
+        try {
+            bookId = index.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return bookId == LongLongHashMap.NO_VALUE ? OptionalLong.empty() : OptionalLong.of(bookId);
+    }
+
+    public void put(String isbn, Long bookId) {
+        put(Isbn.pack(isbn), bookId);
+    }
+
+    public void put(Long key, Long bookId) {
+        if (key == null || bookId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.put(key, bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //registros antigos que normalizam para a mesma chave: o primeiro fica, os demais sao reportados
+    private boolean putIfAbsent(Long key, Long bookId) {
+        if (key == null || bookId == null) {
+            return true;
+        }
+        lock.writeLock().lock();
+        try {
+            long existing = index.get(key);
+            if (existing != LongLongHashMap.NO_VALUE && existing != bookId) {
+                log.warn(" Books {} and {} have the same ISBN {} ", existing, bookId, Isbn.format(key));
+                return false;
+            }
+            index.put(key, bookId);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String isbn) {
+        Long key = Isbn.pack(isbn);
+        if (key == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            index.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.libraryapi.service.support;
+
+import com.library.libraryapi.model.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Migra os livros cadastrados antes da chave numerica: normaliza o isbn e preenche
+ * isbn_key. Registros com isbn invalido ou duplicado apos a normalizacao ficam sem
+ * chave e continuam sendo encontrados pelo isbn original. Ate o fim da migracao os livros
+ * antigos so sao encontrados pelo isbn original, o que {@link #isComplete()} sinaliza.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IsbnKeyBackfill {
+
+    public static final int ORDER = 0;
+
+    @Value("${application.isbn-key.backfill.batch-size:1000}")
+    private Integer batchSize;
+
+    private final BookRepository repository;
+
+    private volatile boolean complete;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(ORDER)
+    public void backfill() {
+        int migrated = 0;
+        int skipped = 0;
+        Long lastId = 0L;
+        List<Object[]> batch;
+        do {
+            batch = repository.findWithoutIsbnKey(lastId, PageRequest.of(0, batchSize));
+            for (Object[] book : batch) {
+                lastId = (Long) book[0];
+                Long isbnKey = Isbn.pack((String) book[1]);
+                if (isbnKey == null) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    repository.updateIsbnKey(lastId, isbnKey, Isbn.format(isbnKey));
+                    migrated++;
+                } catch (DataIntegrityViolationException e) {
+                    log.warn(" Book {} has a duplicated isbn {} ", lastId, book[1]);
+                    skipped++;
+                }
+            }
+        } while (batch.size() == batchSize);
+        complete = true;
+
+        if (migrated > 0 || skipped > 0) {
+            log.info(" Isbn key backfill: {} books migrated, {} left without key ", migrated, skipped);
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+}
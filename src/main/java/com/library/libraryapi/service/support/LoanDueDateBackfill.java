@@ -0,0 +1,40 @@
+package com.library.libraryapi.service.support;
+
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.impl.LoanServiceImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Migra os emprestimos gravados antes do vencimento indexado: returned nulo vira false e
+ * due_date e preenchido com um UPDATE por data de emprestimo, e nao por linha.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoanDueDateBackfill {
+
+    private final LoanRepository repository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(IsbnKeyBackfill.ORDER)
+    public void backfill() {
+        int normalized = repository.updateNullReturned();
+        int migrated = 0;
+        List<LocalDate> loanDates = repository.findLoanDatesWithoutDueDate();
+        for (LocalDate loanDate : loanDates) {
+            migrated += repository.updateDueDate(loanDate, LoanServiceImpl.dueDate(loanDate));
+        }
+
+        if (normalized > 0 || migrated > 0) {
+            log.info(" Loan due date backfill: {} loans migrated, {} open loans normalized ", migrated, normalized);
+        }
+    }
+}
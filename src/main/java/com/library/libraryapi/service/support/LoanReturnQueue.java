@@ -0,0 +1,312 @@
+package com.library.libraryapi.service.support;
+
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind das devolucoes: cada devolucao e gravada num journal local (um arquivo
+ * por segmento, linhas "idDoEmprestimo;0|1") antes de ser confirmada, e o banco e
+ * atualizado em lotes de UPDATE ... WHERE id IN (...). Um segmento so e apagado depois
+ * que o lote que o cobre foi gravado, entao uma queda entre a confirmacao e o flush e
+ * recuperada relendo os segmentos na subida. Enquanto nao vai ao banco, a devolucao
+ * fica visivel por {@link #pendingReturned(Long)}.
+ *
+ * <p>O flush roda no agendamento ou, quando o lote atinge flush-size, numa thread
+ * propria; quem registra uma devolucao nunca espera um flush nem o executa. Cada lote e
+ * gravado numa transacao nova, independente da transacao de quem registrou a devolucao.
+ */
+@Component
+@Slf4j
+public class LoanReturnQueue {
+
+    private static final String SEGMENT_PREFIX = "returns-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final LoanRepository loanRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final Path directory;
+    private final int flushSize;
+    private final boolean fsync;
+
+    private final Map<Long, Boolean> pending = new ConcurrentHashMap<>();
+    private final Object journalLock = new Object();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ThreadPoolExecutor flusher;
+    private FileChannel journal;
+    private long segment;
+
+    public LoanReturnQueue(LoanRepository loanRepository,
+                           BookRepository bookRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${application.loans.write-behind.enabled:false}") boolean enabled,
+                           @Value("${application.loans.write-behind.directory:data/return-journal}") String directory,
+                           @Value("${application.loans.write-behind.flush-size:500}") int flushSize,
+                           @Value("${application.loans.write-behind.fsync:true}") boolean fsync) {
+        this.loanRepository = loanRepository;
+        this.bookRepository = bookRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.flushSize = flushSize;
+        this.fsync = fsync;
+        this.flusher = enabled ? createFlusher() : null;
+        if (enabled) {
+            recover();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registra a devolucao no journal; quando retorna true ela ja e duravel e sera
+     * gravada no banco no proximo flush.
+     *
+     * @return false quando o write-behind esta desligado e a gravacao deve ser sincrona
+     */
+    public boolean offer(Long loanId, Boolean returned) {
+        if (!enabled || loanId == null) {
+            return false;
+        }
+        boolean state = Boolean.TRUE.equals(returned);
+        synchronized (journalLock) {
+            append(loanId, state);
+            pending.put(loanId, state);
+        }
+        //com um flush ja na fila o lote cheio fica para ele
+        if (pending.size() >= flushSize) {
+            flusher.execute(this::flush);
+        }
+        return true;
+    }
+
+    public Optional<Boolean> pendingReturned(Long loanId) {
+        return loanId == null ? Optional.empty() : Optional.ofNullable(pending.get(loanId));
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    @Scheduled(fixedDelayString = "${application.loans.write-behind.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        flush();
+    }
+
+    /**
+     * @return quantidade de devolucoes gravadas no banco; em caso de falha elas
+     * continuam pendentes e no journal para a proxima tentativa
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private int flushPending() {
+        Map<Long, Boolean> batch;
+        long flushedSegment;
+        synchronized (journalLock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            //o lote e a troca de segmento sao atomicos em relacao ao offer: os segmentos ate
+            //flushedSegment so tem linhas anteriores ao lote, e cada uma e coberta por ele
+            batch = new HashMap<>(pending);
+            flushedSegment = segment;
+            openSegment(segment + 1);
+        }
+
+        try {
+            Map<Boolean, List<Long>> byState = batch.entrySet().stream()
+                    .collect(Collectors.partitioningBy(Map.Entry::getValue,
+                            Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+            byState.forEach(this::write);
+        } catch (DataAccessException | TransactionException e) {
+            log.warn(" Could not flush {} pending returns, will retry: {} ", batch.size(), e.getMessage());
+            return 0;
+        }
+
+        //uma devolucao mais nova do mesmo emprestimo, chegada durante a gravacao, continua
+        //pendente: ela esta no segmento novo, que nao e apagado aqui
+        batch.forEach((loanId, state) -> pending.remove(loanId, state));
+        deleteSegmentsUpTo(flushedSegment);
+        log.debug(" Flushed {} returns ", batch.size());
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (journalLock) {
+            closeJournal();
+        }
+    }
+
+    private void write(Boolean returned, List<Long> loanIds) {
+        for (int from = 0; from < loanIds.size(); from += flushSize) {
+            List<Long> chunk = loanIds.subList(from, Math.min(from + flushSize, loanIds.size()));
+            transaction.execute(status -> {
+                loanRepository.updateReturned(chunk, returned);
+                bookRepository.updateActiveLoanByLoans(chunk, !returned);
+                return null;
+            });
+        }
+    }
+
+    //uma thread e no maximo um flush na fila: um flush agendado ja cobre todo o pendente
+    private static ThreadPoolExecutor createFlusher() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("return-flusher-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    private void recover() {
+        try {
+            Files.createDirectories(directory);
+            List<Long> segments = listSegments();
+            for (Long number : segments) {
+                replay(segmentPath(number));
+            }
+            segment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+            openSegment(segment + 1);
+            if (!pending.isEmpty()) {
+                log.info(" Recovered {} pending returns from {} ", pending.size(), directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay(Path file) throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+            int separator = line.indexOf(';');
+            //linha incompleta de uma queda no meio da escrita
+            if (separator <= 0 || separator != line.length() - 2) {
+                continue;
+            }
+            try {
+                pending.put(Long.valueOf(line.substring(0, separator)), line.charAt(separator + 1) == '1');
+            } catch (NumberFormatException e) {
+                log.warn(" Ignoring malformed return journal line '{}' in {} ", line, file);
+            }
+        }
+    }
+
+    private void append(Long loanId, boolean returned) {
+        ByteBuffer line = ByteBuffer.wrap((loanId + ";" + (returned ? '1' : '0') + "\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (line.hasRemaining()) {
+                journal.write(line);
+            }
+            if (fsync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment(long number) {
+        closeJournal();
+        try {
+            journal = FileChannel.open(segmentPath(number),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segment = number;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn(" Could not close return journal: {} ", e.getMessage());
+        }
+        journal = null;
+    }
+
+    private void deleteSegmentsUpTo(long number) {
+        try {
+            for (Long flushed : listSegments()) {
+                if (flushed <= number) {
+                    Files.deleteIfExists(segmentPath(flushed));
+                }
+            }
+        } catch (IOException e) {
+            //o segmento sera reaplicado na proxima subida; o UPDATE e idempotente
+            log.warn(" Could not delete flushed return journal segments: {} ", e.getMessage());
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Long> segments = new ArrayList<>();
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches(SEGMENT_PREFIX + "\\d+\\" + SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Long.valueOf(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+            segments.sort(null);
+            return segments;
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+}
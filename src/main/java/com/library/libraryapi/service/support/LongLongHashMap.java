@@ -0,0 +1,109 @@
+package com.library.libraryapi.service.support;
+
+/**
+ * Mapa long -> long de enderecamento aberto sobre arrays primitivos: nenhuma
+ * alocacao por entrada. A chave 0 e reservada para posicoes vazias. Nao e thread-safe.
+ */
+public class LongLongHashMap {
+
+    public static final long NO_VALUE = -1L;
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public long get(long key) {
+        //0 marca as posicoes vazias e nunca e uma chave
+        if (key == 0) {
+            return NO_VALUE;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            if (keys[slot] == 0) {
+                return NO_VALUE;
+            }
+        }
+    }
+
+    public void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved.");
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == 0) {
+            if (size + 1 > (mask + 1) * LOAD_FACTOR) {
+                resize();
+                put(key, value);
+                return;
+            }
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    public void remove(long key) {
+        if (key == 0) {
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == 0) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        //remocao por deslocamento: reposiciona o restante do cluster, sem lapides
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int ideal = slot(keys[next]);
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        keys[free] = 0;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,354 @@
+package com.library.libraryapi.service.support;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log append-only de registros binarios em segmentos de tamanho fixo mapeados em memoria
+ * ({@code %020d.log}, nomeados pela posicao inicial). Cada registro e
+ * [tamanho:int][crc32:int][bytes]; a posicao global do registro (base do segmento +
+ * posicao no segmento) e o seu offset. Um registro que nao cabe no fim do segmento
+ * marca o fim com -1 e vai para o proximo.
+ *
+ * <p>Um unico escritor por vez; leitores concorrentes enxergam apenas o que ja foi
+ * publicado em {@link #endOffset()}. A escrita vai para o page cache: {@link #force()}
+ * grava em disco, e quem usa o log decide a frequencia (group commit). Na abertura o fim
+ * do ultimo segmento e achado relendo os registros ate o primeiro com CRC invalido.
+ */
+@Slf4j
+public class MappedSegmentLog implements Closeable {
+
+    public interface RecordHandler {
+        void accept(long offset, byte[] payload);
+    }
+
+    static final int HEADER = 8;
+    static final int ROLL_MARKER = -1;
+    static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object appendLock = new Object();
+    private final Object dataAvailable = new Object();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final CRC32 crc = new CRC32();
+
+    private Segment active;
+    private volatile long end;
+    private final List<Segment> unflushed = new ArrayList<>();
+
+    /**
+     * @param maxSegments segmentos mais antigos alem deste numero sao apagados ao abrir um
+     *                    novo; zero mantem todos
+     */
+    public MappedSegmentLog(Path directory, int segmentSize, int maxSegments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return offset do registro gravado
+     */
+    public long append(byte[] payload) {
+        return append(payload, 0, payload.length);
+    }
+
+    public long append(byte[] payload, int from, int length) {
+        int needed = HEADER + length;
+        if (needed > segmentSize) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit a segment");
+        }
+        long offset;
+        synchronized (appendLock) {
+            int position = (int) (end - active.base);
+            if (position + needed > segmentSize) {
+                if (position + 4 <= segmentSize) {
+                    active.buffer().putInt(position, ROLL_MARKER);
+                }
+                roll();
+                position = 0;
+            }
+            crc.reset();
+            crc.update(payload, from, length);
+            MappedByteBuffer buffer = active.buffer();
+            ByteBuffer body = buffer.duplicate();
+            body.position(position + HEADER);
+            body.put(payload, from, length);
+            buffer.putInt(position + 4, (int) crc.getValue());
+            //o tamanho por ultimo: ate aqui o registro parece o fim do log para a recuperacao
+            buffer.putInt(position, length);
+            offset = active.base + position;
+            end = offset + needed;
+        }
+        if (waiting.get() > 0) {
+            synchronized (dataAvailable) {
+                dataAvailable.notifyAll();
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Le ate {@code maxRecords} registros a partir de {@code offset} (ou do inicio do log,
+     * se esse trecho ja foi apagado pela retencao). O offset deve ser o de um registro ou
+     * um ja devolvido por esta leitura.
+     *
+     * @return offset para continuar a leitura
+     */
+    public long read(long offset, int maxRecords, RecordHandler handler) {
+        long limit = end;
+        long position = Math.max(offset, startOffset());
+        int read = 0;
+        CRC32 checksum = new CRC32();
+        while (read < maxRecords && position < limit) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            int inSegment = (int) (position - segment.base);
+            ByteBuffer buffer = segment.buffer().duplicate();
+            int length = inSegment + 4 <= segmentSize ? buffer.getInt(inSegment) : ROLL_MARKER;
+            if (length == ROLL_MARKER || length == 0) {
+                position = segment.base + segmentSize;
+                continue;
+            }
+            if (length < 0 || inSegment + HEADER + length > segmentSize) {
+                throw new IllegalArgumentException("Offset " + position + " is not a record boundary");
+            }
+            byte[] payload = new byte[length];
+            buffer.position(inSegment + HEADER);
+            buffer.get(payload);
+            checksum.reset();
+            checksum.update(payload);
+            if ((int) checksum.getValue() != buffer.getInt(inSegment + 4)) {
+                throw new IllegalArgumentException("Offset " + position + " is not a record boundary");
+            }
+            handler.accept(position, payload);
+            position += HEADER + length;
+            read++;
+        }
+        return position;
+    }
+
+    /**
+     * Espera ate haver dados depois de {@code offset}.
+     *
+     * @return false se o tempo acabou sem dados novos
+     */
+    public boolean awaitData(long offset, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        waiting.incrementAndGet();
+        try {
+            synchronized (dataAvailable) {
+                long remaining;
+                while (end <= offset && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    dataAvailable.wait(remaining);
+                }
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        return end > offset;
+    }
+
+    public long startOffset() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first == null ? 0 : first.getKey();
+    }
+
+    public long endOffset() {
+        return end;
+    }
+
+    //grava no disco o que foi escrito desde a ultima chamada
+    public void force() {
+        List<Segment> toForce;
+        synchronized (appendLock) {
+            toForce = new ArrayList<>(unflushed);
+            unflushed.clear();
+            if (active != null) {
+                toForce.add(active);
+            }
+        }
+        for (Segment segment : toForce) {
+            segment.buffer().force();
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (appendLock) {
+            force();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+            active = null;
+        }
+    }
+
+    private void open() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("\\d{20}\\" + SUFFIX))
+                    .forEach(name -> bases.add(Long.valueOf(name.substring(0, 20))));
+        }
+        bases.sort(null);
+        //os segmentos antigos so sao mapeados quando lidos
+        for (Long base : bases) {
+            segments.put(base, new Segment(base, segmentPath(base), segmentSize));
+        }
+        if (segments.isEmpty()) {
+            active = Segment.map(segmentPath(0), 0, segmentSize);
+            segments.put(0L, active);
+            end = 0;
+            return;
+        }
+        active = segments.lastEntry().getValue();
+        end = active.base + recover(active);
+    }
+
+    //primeira posicao sem registro valido
+    private int recover(Segment segment) {
+        ByteBuffer buffer = segment.buffer().duplicate();
+        CRC32 check = new CRC32();
+        int position = 0;
+        while (position + HEADER <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.position(position + HEADER);
+            buffer.get(payload);
+            check.reset();
+            check.update(payload);
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                log.warn(" Truncating torn record at offset {} of {} ", segment.base + position, directory);
+                break;
+            }
+            position += HEADER + length;
+        }
+        //restos de uma escrita interrompida seriam lidos como registros depois do proximo append
+        ByteBuffer tail = segment.buffer().duplicate();
+        byte[] chunk = new byte[8192];
+        byte[] zeros = new byte[chunk.length];
+        for (int from = position; from < segmentSize; from += chunk.length) {
+            int length = Math.min(chunk.length, segmentSize - from);
+            tail.position(from);
+            tail.get(chunk, 0, length);
+            for (int i = 0; i < length; i++) {
+                if (chunk[i] != 0) {
+                    tail.position(from);
+                    tail.put(zeros, 0, length);
+                    break;
+                }
+            }
+        }
+        return position;
+    }
+
+    private void roll() {
+        unflushed.add(active);
+        long base = active.base + segmentSize;
+        try {
+            active = Segment.map(segmentPath(base), base, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(base, active);
+        while (maxSegments > 0 && segments.size() > maxSegments) {
+            Map.Entry<Long, Segment> oldest = segments.pollFirstEntry();
+            unflushed.remove(oldest.getValue());
+            oldest.getValue().close();
+            try {
+                Files.deleteIfExists(segmentPath(oldest.getKey()));
+            } catch (IOException e) {
+                log.warn(" Could not delete log segment {}: {} ", oldest.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    private static final class Segment {
+
+        private final long base;
+        private final Path file;
+        private final int size;
+        private FileChannel channel;
+        private volatile MappedByteBuffer buffer;
+
+        private Segment(long base, Path file, int size) {
+            this.base = base;
+            this.file = file;
+            this.size = size;
+        }
+
+        static Segment map(Path file, long base, int size) throws IOException {
+            Segment segment = new Segment(base, file, size);
+            segment.buffer();
+            return segment;
+        }
+
+        MappedByteBuffer buffer() {
+            MappedByteBuffer mapped = buffer;
+            if (mapped == null) {
+                synchronized (this) {
+                    if (buffer == null) {
+                        try {
+                            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                    StandardOpenOption.WRITE);
+                            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    mapped = buffer;
+                }
+            }
+            return mapped;
+        }
+
+        //o mapeamento continua valido ate ser coletado; fechar o canal nao o invalida
+        synchronized void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn(" Could not close log segment {}: {} ", base, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.library.libraryapi.service.support;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Leitura sequencial dos segmentos de um {@link MappedSegmentLog} direto dos arquivos,
+ * sem mapear em memoria nem abrir o log para escrita. Serve para ferramentas de linha de
+ * comando e para varrer logs grandes ou copiados de outro servidor; cada segmento e lido
+ * do inicio ao fim uma unica vez.
+ */
+public final class SegmentFileReader {
+
+    public interface RecordVisitor {
+
+        /**
+         * @return false para encerrar a leitura
+         */
+        boolean visit(long offset, byte[] payload);
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SegmentFileReader() {
+    }
+
+    /**
+     * @return quantidade de registros lidos
+     */
+    public static long scan(Path directory, RecordVisitor visitor) throws IOException {
+        long records = 0;
+        for (Path segment : segments(directory)) {
+            long base = Long.parseLong(segment.getFileName().toString().substring(0, 20));
+            long size = Files.size(segment);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), BUFFER_SIZE))) {
+                CRC32 crc = new CRC32();
+                long position = 0;
+                while (position + MappedSegmentLog.HEADER <= size) {
+                    int length = in.readInt();
+                    //fim do segmento, marca de troca de segmento ou registro incompleto
+                    if (length <= 0 || position + MappedSegmentLog.HEADER + length > size) {
+                        break;
+                    }
+                    int checksum = in.readInt();
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                    records++;
+                    if (!visitor.visit(base + position, payload)) {
+                        return records;
+                    }
+                    position += MappedSegmentLog.HEADER + length;
+                }
+            }
+        }
+        return records;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName().toString().matches("\\d{20}\\" + MappedSegmentLog.SUFFIX))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+}
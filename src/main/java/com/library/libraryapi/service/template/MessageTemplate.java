@@ -0,0 +1,169 @@
+package com.library.libraryapi.service.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Template de mensagem no formato {{variavel}} / {{#secao}}...{{/secao}}, compilado uma
+ * unica vez numa lista de nos ja ligados ao {@link TemplateSchema}: na renderizacao nao
+ * ha parse, busca por nome nem reflexao. Variaveis desconhecidas falham na compilacao.
+ */
+public final class MessageTemplate<T> {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    //buffers acima disso nao sao guardados para reuso, para nao reter memoria de uma mensagem atipica
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final Node<T>[] nodes;
+
+    private MessageTemplate(Node<T>[] nodes) {
+        this.nodes = nodes;
+    }
+
+    public static <T> MessageTemplate<T> compile(String source, TemplateSchema<T> schema) {
+        Parser parser = new Parser(source);
+        Node<T>[] nodes = parser.parse(schema, null);
+        return new MessageTemplate<>(nodes);
+    }
+
+    public void render(T model, StringBuilder out) {
+        render(nodes, model, out);
+    }
+
+    //renderiza no buffer da thread e copia so o resultado final
+    public String render(T model) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        render(nodes, model, buffer);
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    private static <T> void render(Node<T>[] nodes, T model, StringBuilder out) {
+        for (Node<T> node : nodes) {
+            node.render(model, out);
+        }
+    }
+
+    private interface Node<T> {
+        void render(T model, StringBuilder out);
+    }
+
+    private static final class Literal<T> implements Node<T> {
+
+        private final String text;
+
+        Literal(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public void render(T model, StringBuilder out) {
+            out.append(text);
+        }
+    }
+
+    private static final class Variable<T> implements Node<T> {
+
+        private final BiConsumer<T, StringBuilder> writer;
+
+        Variable(BiConsumer<T, StringBuilder> writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void render(T model, StringBuilder out) {
+            writer.accept(model, out);
+        }
+    }
+
+    private static final class Section<T, U> implements Node<T> {
+
+        private final TemplateSchema.SectionBinding<T, U> binding;
+        private final Node<U>[] children;
+
+        Section(TemplateSchema.SectionBinding<T, U> binding, Node<U>[] children) {
+            this.binding = binding;
+            this.children = children;
+        }
+
+        @Override
+        public void render(T model, StringBuilder out) {
+            Iterable<U> items = binding.items.apply(model);
+            if (items == null) {
+                return;
+            }
+            for (U item : items) {
+                MessageTemplate.render(children, item, out);
+            }
+        }
+    }
+
+    private static final class Parser {
+
+        private final String source;
+        private int position;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        //consome ate o fim do texto ou ate o {{/secao}} correspondente
+        @SuppressWarnings("unchecked")
+        <T> Node<T>[] parse(TemplateSchema<T> schema, String section) {
+            List<Node<T>> nodes = new ArrayList<>();
+            while (position < source.length()) {
+                int open = source.indexOf(OPEN, position);
+                if (open < 0) {
+                    nodes.add(new Literal<>(source.substring(position)));
+                    position = source.length();
+                    break;
+                }
+                if (open > position) {
+                    nodes.add(new Literal<>(source.substring(position, open)));
+                }
+                int close = source.indexOf(CLOSE, open + OPEN.length());
+                if (close < 0) {
+                    throw new IllegalArgumentException("Unclosed template tag at position " + open);
+                }
+                String tag = source.substring(open + OPEN.length(), close).trim();
+                position = close + CLOSE.length();
+
+                if (tag.startsWith("/")) {
+                    if (!tag.substring(1).trim().equals(section)) {
+                        throw new IllegalArgumentException("Unexpected template section end: " + tag);
+                    }
+                    return nodes.toArray(new Node[0]);
+                } else if (tag.startsWith("#")) {
+                    nodes.add(section(schema, tag.substring(1).trim()));
+                } else {
+                    BiConsumer<T, StringBuilder> writer = schema.getVariable(tag);
+                    if (writer == null) {
+                        throw new IllegalArgumentException("Unknown template variable: " + tag);
+                    }
+                    nodes.add(new Variable<>(writer));
+                }
+            }
+            if (section != null) {
+                throw new IllegalArgumentException("Unclosed template section: " + section);
+            }
+            return nodes.toArray(new Node[0]);
+        }
+
+        private <T, U> Node<T> section(TemplateSchema<T> schema, String name) {
+            @SuppressWarnings("unchecked")
+            TemplateSchema.SectionBinding<T, U> binding = (TemplateSchema.SectionBinding<T, U>) schema.getSection(name);
+            if (binding == null) {
+                throw new IllegalArgumentException("Unknown template section: " + name);
+            }
+            return new Section<>(binding, parse(binding.schema, name));
+        }
+    }
+}
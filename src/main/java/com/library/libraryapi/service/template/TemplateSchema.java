@@ -0,0 +1,55 @@
+package com.library.libraryapi.service.template;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Variaveis e secoes que um template pode usar para um tipo de modelo. Cada variavel
+ * escreve direto no buffer de saida, entao datas e numeros nao passam por String.
+ */
+public final class TemplateSchema<T> {
+
+    private final Map<String, BiConsumer<T, StringBuilder>> variables = new HashMap<>();
+    private final Map<String, SectionBinding<T, ?>> sections = new HashMap<>();
+
+    public TemplateSchema<T> variable(String name, BiConsumer<T, StringBuilder> writer) {
+        variables.put(name, writer);
+        return this;
+    }
+
+    public TemplateSchema<T> text(String name, Function<T, ? extends CharSequence> value) {
+        return variable(name, (model, out) -> {
+            CharSequence text = value.apply(model);
+            if (text != null) {
+                out.append(text);
+            }
+        });
+    }
+
+    //{{#name}}...{{/name}} repete o conteudo para cada item, usando o schema do item
+    public <U> TemplateSchema<T> section(String name, Function<T, ? extends Iterable<U>> items, TemplateSchema<U> schema) {
+        sections.put(name, new SectionBinding<>(items, schema));
+        return this;
+    }
+
+    BiConsumer<T, StringBuilder> getVariable(String name) {
+        return variables.get(name);
+    }
+
+    SectionBinding<T, ?> getSection(String name) {
+        return sections.get(name);
+    }
+
+    static final class SectionBinding<T, U> {
+
+        final Function<T, ? extends Iterable<U>> items;
+        final TemplateSchema<U> schema;
+
+        SectionBinding(Function<T, ? extends Iterable<U>> items, TemplateSchema<U> schema) {
+            this.items = items;
+            this.schema = schema;
+        }
+    }
+}
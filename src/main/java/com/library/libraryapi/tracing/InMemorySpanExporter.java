@@ -0,0 +1,46 @@
+package com.library.libraryapi.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Guarda os ultimos {@code capacity} spans num buffer circular, para consulta pelo
+ * endpoint {@code /actuator/tracing} ou em testes.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final AtomicReferenceArray<Span> spans;
+    private final AtomicLong written = new AtomicLong();
+
+    public InMemorySpanExporter(int capacity) {
+        this.spans = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void export(Span span) {
+        spans.set((int) (written.getAndIncrement() % spans.length()), span);
+    }
+
+    //do mais antigo para o mais recente
+    public List<Span> getSpans() {
+        long end = written.get();
+        long start = Math.max(0, end - spans.length());
+        List<Span> result = new ArrayList<>((int) (end - start));
+        for (long i = start; i < end; i++) {
+            Span span = spans.get((int) (i % spans.length()));
+            if (span != null) {
+                result.add(span);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < spans.length(); i++) {
+            spans.set(i, null);
+        }
+        written.set(0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.libraryapi.tracing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conversao de spans para o formato JSON do OTLP ({@code resourceSpans}), o mesmo do
+ * file exporter do OpenTelemetry Collector, para os arquivos poderem ser reenviados a
+ * qualquer backend compativel.
+ */
+public final class OtlpJson {
+
+    private static final int STATUS_ERROR = 2;
+
+    private OtlpJson() {
+    }
+
+    public static Map<String, Object> resourceSpans(String serviceName, List<Span> spans) {
+        List<Object> converted = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            converted.add(span(span));
+        }
+        Map<String, Object> scopeSpans = new LinkedHashMap<>();
+        scopeSpans.put("scope", Collections.singletonMap("name", serviceName));
+        scopeSpans.put("spans", converted);
+
+        Map<String, Object> resource = new LinkedHashMap<>();
+        resource.put("resource", Collections.singletonMap("attributes",
+                Collections.singletonList(attribute("service.name", serviceName))));
+        resource.put("scopeSpans", Collections.singletonList(scopeSpans));
+        return Collections.singletonMap("resourceSpans", Collections.singletonList(resource));
+    }
+
+    public static Map<String, Object> span(Span span) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("traceId", span.getTraceId());
+        json.put("spanId", span.getSpanId());
+        if (span.getParentSpanId() != null) {
+            json.put("parentSpanId", span.getParentSpanId());
+        }
+        json.put("name", span.getName());
+        json.put("kind", span.getKind().getOtlpValue());
+        json.put("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+        json.put("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+        List<Object> attributes = new ArrayList<>();
+        span.getAttributes().forEach((key, value) -> attributes.add(attribute(key, value)));
+        json.put("attributes", attributes);
+        if (span.getError() != null) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("code", STATUS_ERROR);
+            status.put("message", span.getError());
+            json.put("status", status);
+        }
+        return json;
+    }
+
+    private static Map<String, Object> attribute(String key, Object value) {
+        Map<String, Object> attribute = new LinkedHashMap<>();
+        attribute.put("key", key);
+        if (value instanceof Boolean) {
+            attribute.put("value", Collections.singletonMap("boolValue", value));
+        } else if (value instanceof Integer || value instanceof Long) {
+            attribute.put("value", Collections.singletonMap("intValue", value.toString()));
+        } else if (value instanceof Number) {
+            attribute.put("value", Collections.singletonMap("doubleValue", value));
+        } else {
+            attribute.put("value", Collections.singletonMap("stringValue", value.toString()));
+        }
+        return attribute;
+    }
+}
@@ -0,0 +1,104 @@
+package com.library.libraryapi.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grava os spans em um arquivo local, uma linha OTLP/JSON por lote, numa thread propria.
+ * Com a fila cheia os spans sao descartados e contados em {@link #getDroppedCount()}:
+ * o request nunca espera pelo disco.
+ */
+@Slf4j
+public class OtlpJsonFileSpanExporter implements SpanExporter {
+
+    private static final int MAX_BATCH = 512;
+
+    private final String serviceName;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<Span> queue;
+    private final BufferedWriter writer;
+    private final Thread worker;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+
+    public OtlpJsonFileSpanExporter(Path file, String serviceName, int queueCapacity) {
+        this.serviceName = serviceName;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.worker = new Thread(this::drain, "span-exporter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void export(Span span) {
+        if (!queue.offer(span)) {
+            dropped.increment();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.warn(" Could not close span file: {} ", e.getMessage());
+        }
+    }
+
+    private void drain() {
+        List<Span> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Span first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writer.write(objectMapper.writeValueAsString(OtlpJson.resourceSpans(serviceName, batch)));
+                writer.newLine();
+                writer.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.warn(" Could not write {} spans: {} ", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.library.libraryapi.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Trecho medido de um trace, no modelo do OpenTelemetry (ids W3C de 128/64 bits, kind,
+ * atributos e status). Spans de traces nao amostrados so guardam o trace id, para os logs:
+ * atributos e erros sao ignorados e {@link #end()} apenas restaura o contexto da thread.
+ */
+public class Span {
+
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3);
+
+        private final int otlpValue;
+
+        Kind(int otlpValue) {
+            this.otlpValue = otlpValue;
+        }
+
+        public int getOtlpValue() {
+            return otlpValue;
+        }
+    }
+
+    //filho de um trace nao amostrado: nao altera o contexto da thread
+    static final Span NOOP = new Span(null, null, 0, 0, 0, 0, null, Kind.INTERNAL, null);
+
+    private final Tracer tracer;
+    private final Span previous;
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+    private final long parentSpanId;
+    private final long startEpochNanos;
+    private final long startNanos;
+    private final Kind kind;
+    private String name;
+    private Map<String, Object> attributes;
+    private String error;
+    private volatile long endEpochNanos;
+
+    Span(Tracer tracer, Span previous, long traceIdHigh, long traceIdLow, long spanId, long parentSpanId,
+         String name, Kind kind, Map<String, Object> attributes) {
+        this.tracer = tracer;
+        this.previous = previous;
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.attributes = attributes;
+        this.startEpochNanos = tracer == null ? 0 : System.currentTimeMillis() * 1_000_000;
+        this.startNanos = tracer == null ? 0 : System.nanoTime();
+    }
+
+    public boolean isSampled() {
+        return tracer != null;
+    }
+
+    public Span setAttribute(String key, Object value) {
+        if (tracer != null && value != null) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>();
+            }
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    //o nome final pode so ser conhecido no fim, como a rota de um request
+    public Span setName(String name) {
+        if (tracer != null) {
+            this.name = name;
+        }
+        return this;
+    }
+
+    public Span recordError(Throwable error) {
+        if (tracer != null) {
+            this.error = error.getClass().getName() + (error.getMessage() == null ? "" : ": " + error.getMessage());
+        }
+        return this;
+    }
+
+    public void end() {
+        if (this == NOOP) {
+            return;
+        }
+        Tracer.restore(this, previous);
+        if (tracer != null && endEpochNanos == 0) {
+            endEpochNanos = startEpochNanos + (System.nanoTime() - startNanos);
+            tracer.export(this);
+        }
+    }
+
+    //tambem nas raizes nao amostradas; null apenas no NOOP
+    public String getTraceId() {
+        return traceIdHigh == 0 && traceIdLow == 0 ? null : String.format("%016x%016x", traceIdHigh, traceIdLow);
+    }
+
+    public String getSpanId() {
+        return tracer == null ? null : String.format("%016x", spanId);
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId == 0 ? null : String.format("%016x", parentSpanId);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes == null ? new LinkedHashMap<>() : attributes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    long traceIdHigh() {
+        return traceIdHigh;
+    }
+
+    long traceIdLow() {
+        return traceIdLow;
+    }
+
+    long spanId() {
+        return spanId;
+    }
+}
@@ -0,0 +1,13 @@
+package com.library.libraryapi.tracing;
+
+/**
+ * Destino dos spans amostrados. Chamado na thread que encerrou o span: implementacoes
+ * lentas devem repassar o trabalho para outra thread.
+ */
+public interface SpanExporter {
+
+    void export(Span span);
+
+    default void shutdown() {
+    }
+}
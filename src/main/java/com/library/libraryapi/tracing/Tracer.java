@@ -0,0 +1,151 @@
+package com.library.libraryapi.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cria os spans e mantem o span corrente de cada thread. A amostragem e decidida uma vez
+ * na raiz do trace, pelo trace id (como o {@code TraceIdRatioBased} do OpenTelemetry), e
+ * herdada pelos filhos; num trace descartado a raiz guarda so o trace id e cada filho
+ * custa apenas um {@link ThreadLocal#get()}.
+ */
+public class Tracer {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final String TRACEPARENT_VERSION = "00";
+
+    private final SpanExporter exporter;
+    private final double sampleRatio;
+    private final long sampleThreshold;
+
+    public Tracer(SpanExporter exporter, double sampleRatio) {
+        if (sampleRatio < 0 || sampleRatio > 1) {
+            throw new IllegalArgumentException("Sample ratio must be between 0 and 1: " + sampleRatio);
+        }
+        this.exporter = exporter;
+        this.sampleRatio = sampleRatio;
+        this.sampleThreshold = sampleRatio == 1 ? Long.MAX_VALUE : (long) (sampleRatio * Long.MAX_VALUE);
+    }
+
+    public double getSampleRatio() {
+        return sampleRatio;
+    }
+
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+
+    /**
+     * Abre um span filho do span corrente (ou a raiz de um novo trace) e o torna o span
+     * corrente da thread ate o {@link Span#end()}.
+     */
+    public Span startSpan(String name, Span.Kind kind) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            return startRoot(random.nextLong(), random.nextLong(), name, kind);
+        }
+        if (!parent.isSampled()) {
+            return Span.NOOP;
+        }
+        return start(parent, parent.traceIdHigh(), parent.traceIdLow(), parent.spanId(), name, kind);
+    }
+
+    /**
+     * Abre o span de um request recebido. Com um header {@code traceparent} valido o span
+     * continua o trace do chamador e segue a decisao de amostragem dele.
+     */
+    public Span startServerSpan(String name, String traceparent) {
+        CURRENT.remove();
+        if (traceparent != null && traceparent.length() == 55 && traceparent.startsWith(TRACEPARENT_VERSION)
+                && traceparent.charAt(2) == '-' && traceparent.charAt(35) == '-' && traceparent.charAt(52) == '-') {
+            try {
+                long high = Long.parseUnsignedLong(traceparent.substring(3, 19), 16);
+                long low = Long.parseUnsignedLong(traceparent.substring(19, 35), 16);
+                long parentSpanId = Long.parseUnsignedLong(traceparent.substring(36, 52), 16);
+                int flags = Integer.parseInt(traceparent.substring(53), 16);
+                if ((high != 0 || low != 0) && parentSpanId != 0) {
+                    if ((flags & 1) == 0) {
+                        return unsampled(high, low);
+                    }
+                    return start(null, high, low, parentSpanId, name, Span.Kind.SERVER);
+                }
+            } catch (NumberFormatException e) {
+                //header invalido: comeca um trace novo, como manda a especificacao W3C
+            }
+        }
+        return startSpan(name, Span.Kind.SERVER);
+    }
+
+    private Span startRoot(long traceIdHigh, long traceIdLow, String name, Span.Kind kind) {
+        boolean sampled = sampleThreshold == Long.MAX_VALUE || (traceIdLow & Long.MAX_VALUE) < sampleThreshold;
+        if (!sampled) {
+            return unsampled(traceIdHigh, traceIdLow);
+        }
+        return start(null, traceIdHigh, traceIdLow, 0, name, kind);
+    }
+
+    private static Span unsampled(long traceIdHigh, long traceIdLow) {
+        Span span = new Span(null, null, traceIdHigh, traceIdLow, 0, 0, null, Span.Kind.INTERNAL, null);
+        CURRENT.set(span);
+        return span;
+    }
+
+    private Span start(Span parent, long traceIdHigh, long traceIdLow, long parentSpanId, String name,
+                       Span.Kind kind) {
+        long spanId;
+        do {
+            spanId = ThreadLocalRandom.current().nextLong();
+        } while (spanId == 0);
+        Span span = new Span(this, parent, traceIdHigh, traceIdLow, spanId, parentSpanId, name, kind, null);
+        CURRENT.set(span);
+        return span;
+    }
+
+    void export(Span span) {
+        exporter.export(span);
+    }
+
+    //span corrente da thread; null fora de um trace
+    public static Span current() {
+        return CURRENT.get();
+    }
+
+    //esquece o span corrente, por exemplo quando o request segue em outra thread
+    public static void clearCurrent() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Faz a tarefa rodar dentro do span corrente de quem a submeteu, para os spans criados
+     * nela entrarem no mesmo trace.
+     */
+    public static Runnable propagate(Runnable task) {
+        Span captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            Span before = CURRENT.get();
+            CURRENT.set(captured);
+            try {
+                task.run();
+            } finally {
+                if (before == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(before);
+                }
+            }
+        };
+    }
+
+    static void restore(Span span, Span previous) {
+        if (CURRENT.get() == span) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
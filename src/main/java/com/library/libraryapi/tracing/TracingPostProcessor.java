@@ -0,0 +1,113 @@
+package com.library.libraryapi.tracing;
+
+import com.library.libraryapi.config.InstrumentationAdvice;
+import com.library.libraryapi.service.notification.MailTransport;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Envolve as camadas da aplicacao em spans: os repositorios Spring Data (CLIENT, com
+ * {@code db.operation}), os beans dos pacotes de application.tracing.instrumented-packages
+ * (INTERNAL) e os {@link MailTransport} (CLIENT, com {@code mail.transport}). Os controllers
+ * ficam com o span SERVER do {@code TracingFilter}.
+ * <p>
+ * O span e sempre o interceptor mais externo ({@link InstrumentationAdvice#TRACING}).
+ * Chamadas CLIENT fora de um trace (flush do write-behind, backfills, tarefas de fundo fora
+ * dos services) nao abrem span: cada uma viraria um trace de um span so.
+ */
+@Component
+@ConditionalOnProperty(name = "application.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<Tracer> tracer;
+    private final List<String> instrumentedPackages;
+
+    public TracingPostProcessor(ObjectProvider<Tracer> tracer,
+                                @Value("${application.tracing.instrumented-packages:com.library.libraryapi.service.impl}")
+                                        String[] instrumentedPackages) {
+        this.tracer = tracer;
+        this.instrumentedPackages = Arrays.asList(instrumentedPackages);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository && bean instanceof Advised) {
+            Advised proxy = (Advised) bean;
+            String repository = Arrays.stream(proxy.getProxiedInterfaces())
+                    .filter(Repository.class::isAssignableFrom)
+                    .findFirst()
+                    .map(Class::getSimpleName)
+                    .orElse(beanName);
+            return instrument(bean, new SpanInterceptor(repository, Span.Kind.CLIENT, "db.operation", null));
+        }
+
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (bean instanceof MailTransport) {
+            return instrument(bean, new SpanInterceptor(targetClass.getSimpleName(), Span.Kind.CLIENT,
+                    "mail.transport", ((MailTransport) bean).name()));
+        }
+        if (isInstrumented(targetClass)) {
+            return instrument(bean, new SpanInterceptor(targetClass.getSimpleName(), Span.Kind.INTERNAL, null, null));
+        }
+        return bean;
+    }
+
+    private boolean isInstrumented(Class<?> targetClass) {
+        String name = targetClass.getName();
+        return instrumentedPackages.stream().anyMatch(prefix -> name.startsWith(prefix + "."));
+    }
+
+    private static Object instrument(Object bean, SpanInterceptor interceptor) {
+        return InstrumentationAdvice.apply(bean, interceptor, InstrumentationAdvice.TRACING);
+    }
+
+    private class SpanInterceptor implements MethodInterceptor {
+
+        private final String component;
+        private final Span.Kind kind;
+        private final String attribute;
+        private final String attributeValue;
+        private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+        SpanInterceptor(String component, Span.Kind kind, String attribute, String attributeValue) {
+            this.component = component;
+            this.kind = kind;
+            this.attribute = attribute;
+            this.attributeValue = attributeValue;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class || (kind == Span.Kind.CLIENT && Tracer.current() == null)) {
+                return invocation.proceed();
+            }
+            Span span = tracer.getObject().startSpan(names.computeIfAbsent(method, m -> component + "." + m.getName()), kind);
+            if (attribute != null && span.isSampled()) {
+                span.setAttribute(attribute, attributeValue == null ? method.getName() : attributeValue);
+            }
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                span.recordError(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        }
+    }
+}
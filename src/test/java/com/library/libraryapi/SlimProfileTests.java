@@ -0,0 +1,30 @@
+package com.library.libraryapi;
+
+import com.library.libraryapi.actuator.StartupTimelineEndpoint;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("slim")
+class SlimProfileTests {
+
+	@Autowired
+	ApplicationContext context;
+
+	@Autowired
+	StartupTimelineEndpoint startupTimelineEndpoint;
+
+	@Test
+	@DisplayName("Deve subir sem o swagger e registrar a linha do tempo de inicializacao")
+	void slimContextLoads() {
+		assertThat(context.getBeanNamesForType(Docket.class)).isEmpty();
+		assertThat(startupTimelineEndpoint.timeline()).containsKeys("contextRefreshed", "applicationStarted");
+	}
+}
@@ -0,0 +1,71 @@
+package com.library.libraryapi.actuator;
+
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import({RepositoryMetrics.class, RepositoryMetricsPostProcessor.class, HibernateStatisticsEndpoint.class})
+@TestPropertySource(properties = "application.persistence.slow-query-ms=0")
+public class HibernateStatisticsEndpointTest {
+
+    @Autowired
+    BookRepository repository;
+
+    @Autowired
+    HibernateStatisticsEndpoint endpoint;
+
+    @Autowired
+    RepositoryMetrics repositoryMetrics;
+
+    @Test
+    @DisplayName("Deve expor contadores por entidade e o tempo de cada metodo de repositorio")
+    @SuppressWarnings("unchecked")
+    public void statisticsTest() {
+        repository.saveAndFlush(Book.builder().title("Aventuras").author("Jessica").isbn("123").build());
+        repository.existsByIsbn("123");
+
+        Map<String, Object> statistics = endpoint.statistics();
+
+        assertThat(statistics).containsEntry("enabled", true);
+        Map<String, Map<String, Object>> entities = (Map<String, Map<String, Object>>) statistics.get("entities");
+        assertThat((Long) entities.get("Book").get("inserts")).isPositive();
+        Map<String, Map<String, Object>> repositories = (Map<String, Map<String, Object>>) statistics.get("repositories");
+        assertThat(repositories).containsKeys("BookRepository.saveAndFlush", "BookRepository.existsByIsbn");
+        assertThat((Long) repositories.get("BookRepository.existsByIsbn").get("count")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve registrar a chamada lenta com o SQL gerado e sem os valores dos parametros")
+    public void slowQueryTest() {
+        repository.existsByIsbn("978-secret");
+
+        List<RepositoryMetrics.SlowQuery> slowQueries = repositoryMetrics.getSlowQueries();
+        RepositoryMetrics.SlowQuery slow = slowQueries.get(slowQueries.size() - 1);
+
+        assertThat(slow.getMethod()).isEqualTo("BookRepository.existsByIsbn(String)");
+        assertThat(slow.getStatements()).isNotEmpty().noneMatch(sql -> sql.contains("978-secret"));
+    }
+
+    @Test
+    @DisplayName("Deve trocar os literais do SQL por ?")
+    public void redactTest() {
+        assertThat(SqlStatementCapture.redact("select * from book b1_ where b1_.isbn='97''8' and b1_.id=42 limit ?"))
+                .isEqualTo("select * from book b1_ where b1_.isbn=? and b1_.id=? limit ?");
+    }
+}
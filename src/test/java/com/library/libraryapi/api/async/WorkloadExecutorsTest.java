@@ -0,0 +1,52 @@
+package com.library.libraryapi.api.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class WorkloadExecutorsTest {
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Deve recusar buscas com o pool e a fila cheios sem afetar os emprestimos")
+    public void saturatedSearchTest() throws Exception {
+        WorkloadExecutors executors = new WorkloadExecutors(1, 1, 1, 1, registry);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            executors.search().execute(() -> await(release));
+            executors.search().execute(() -> await(release));
+
+            Throwable rejected = catchThrowable(() -> executors.search().execute(() -> { }));
+
+            assertThat(rejected).isInstanceOf(RejectedExecutionException.class);
+            assertThat(registry.get("library.executor.rejected").tag("name", "library.search").counter().count())
+                    .isEqualTo(1);
+            assertThat(registry.get("executor.queued").tag("name", "library.search").gauge().value())
+                    .isEqualTo(1);
+
+            CountDownLatch checkout = new CountDownLatch(1);
+            executors.checkout().execute(checkout::countDown);
+            assertThat(checkout.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            executors.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
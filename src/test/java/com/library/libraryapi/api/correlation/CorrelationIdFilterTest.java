@@ -0,0 +1,53 @@
+package com.library.libraryapi.api.correlation;
+
+import com.library.libraryapi.logging.CorrelationId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CorrelationIdFilterTest {
+
+    @Test
+    @DisplayName("Deve manter o correlation id no dispatch assincrono que conclui a resposta")
+    public void asyncDispatchTest() throws Exception {
+        List<String> correlationIds = new CopyOnWriteArrayList<>();
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new AsyncController())
+                .addFilters(new CorrelationIdFilter(), (request, response, chain) -> {
+                    correlationIds.add(MDC.get(CorrelationId.MDC_KEY));
+                    chain.doFilter(request, response);
+                })
+                .build();
+
+        MvcResult result = mvc.perform(get("/async")).andExpect(request().asyncStarted()).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        String correlationId = result.getResponse().getHeader(CorrelationId.HEADER);
+        assertThat(correlationId).isNotNull();
+        assertThat(correlationIds).containsExactly(correlationId, correlationId);
+        assertThat(MDC.get(CorrelationId.MDC_KEY)).isNull();
+    }
+
+    @RestController
+    static class AsyncController {
+
+        @GetMapping("/async")
+        public Callable<String> get() {
+            return () -> "ok";
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.library.libraryapi.api.idempotency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyStoreTest {
+
+    @Test
+    @DisplayName("Deve reservar a chave e devolver a resposta registrada nas repeticoes")
+    public void reserveAndCompleteTest() {
+        IdempotencyStore store = new IdempotencyStore(10, 60);
+
+        assertThat(store.reserve("key", "abc")).isNull();
+        assertThat(store.reserve("key", "abc").isCompleted()).isFalse();
+
+        store.complete("key", 201, "application/json", "1".getBytes());
+        IdempotentResponse response = store.reserve("key", "abc");
+
+        assertThat(response.isCompleted()).isTrue();
+        assertThat(response.getStatus()).isEqualTo(201);
+        assertThat(response.getBody()).isEqualTo("1".getBytes());
+    }
+
+    @Test
+    @DisplayName("Deve descartar as chaves mais antigas ao atingir o limite")
+    public void maxEntriesTest() {
+        IdempotencyStore store = new IdempotencyStore(2, 60);
+        store.reserve("1", "a");
+        store.reserve("2", "a");
+        store.reserve("3", "a");
+
+        assertThat(store.reserve("1", "a")).isNull();
+        assertThat(store.reserve("3", "a")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve descartar chaves expiradas")
+    public void ttlTest() {
+        IdempotencyStore store = new IdempotencyStore(10, 0);
+        store.reserve("1", "a");
+
+        assertThat(store.reserve("1", "a")).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve liberar a chave quando a requisicao falhar")
+    public void releaseTest() {
+        IdempotencyStore store = new IdempotencyStore(10, 60);
+        store.reserve("1", "a");
+        store.release("1");
+
+        assertThat(store.reserve("1", "a")).isNull();
+    }
+}
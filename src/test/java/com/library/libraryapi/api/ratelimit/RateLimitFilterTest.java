@@ -0,0 +1,178 @@
+package com.library.libraryapi.api.ratelimit;
+
+import com.library.libraryapi.api.client.ClientAddressResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RateLimitFilterTest {
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Deve rejeitar buscas de um cliente que esgotou o seu balde")
+    public void clientRateLimitTest() throws Exception {
+        RateLimitFilter filter = createFilter(1, 20);
+
+        assertThat(perform(filter, "GET", "/api/books", "10.0.0.1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = perform(filter, "GET", "/api/books", "10.0.0.1");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(registry.get("library.requests.rejected").tag("class", "search").tag("reason", "rate_limit")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve manter emprestimos liberados quando as buscas do cliente estao esgotadas")
+    public void checkoutPriorityTest() throws Exception {
+        RateLimitFilter filter = createFilter(2, 20);
+
+        perform(filter, "GET", "/api/loans", "10.0.0.1");
+        perform(filter, "GET", "/api/books", "10.0.0.1");
+
+        assertThat(perform(filter, "GET", "/api/loans", "10.0.0.1").getStatus()).isEqualTo(429);
+        assertThat(perform(filter, "POST", "/api/loans", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "PATCH", "/api/loans/1", "10.0.0.1").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Deve descartar buscas quando o limite de concorrencia foi atingido")
+    public void shedSearchTest() throws Exception {
+        RateLimitFilter filter = createFilter(100, 0);
+
+        MockHttpServletResponse response = perform(filter, "GET", "/api/books", "10.0.0.1");
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getContentAsString()).contains("errors");
+    }
+
+    @Test
+    @DisplayName("Deve manter a vaga de uma busca assincrona ate o fim do processamento")
+    public void asyncSearchHoldsSlotTest() throws Exception {
+        RateLimitFilter filter = createFilter(100, 1);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(perform(filter, "GET", "/api/books", "10.0.0.2").getStatus()).isEqualTo(503);
+
+        request.getAsyncContext().complete();
+
+        assertThat(perform(filter, "GET", "/api/books", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Deve tirar a vaga das buscas enquanto um emprestimo esta em andamento")
+    public void checkoutTakesSearchSlotTest() throws Exception {
+        RateLimitFilter filter = createFilter(100, 1);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/loans");
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(perform(filter, "GET", "/api/books", "10.0.0.2").getStatus()).isEqualTo(503);
+
+        request.getAsyncContext().complete();
+
+        assertThat(perform(filter, "GET", "/api/books", "10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(registry.get("library.requests.queued").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve enfileirar a busca ate abrir uma vaga e descartar quando a fila esta cheia")
+    public void queuedSearchTest() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 10, 1000);
+        assertThat(limit.tryAcquire()).isTrue();
+
+        CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> limit.tryAcquire(1, 10_000));
+        while (limit.getQueued() == 0) {
+            Thread.sleep(10);
+        }
+        assertThat(limit.tryAcquire(1, 10_000)).isFalse();
+
+        limit.release(1_000_000L);
+
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(limit.getQueued()).isEqualTo(0);
+        assertThat(limit.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite de concorrencia quando a latencia passa do alvo")
+    public void adaptiveLimitTest() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 2, 100, 100);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        limit.release(500_000_000L);
+        assertThat(limit.getLimit()).isEqualTo(9);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire();
+            limit.release(1_000_000L);
+        }
+        assertThat(limit.getLimit()).isGreaterThan(9);
+        assertThat(limit.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Deve aceitar o X-Forwarded-For apenas de proxies confiaveis")
+    public void clientAddressTest() {
+        ClientAddressResolver resolver = new ClientAddressResolver("10.0.0.254");
+
+        assertThat(resolver.resolve(forwarded("10.0.0.1", "1.1.1.1"))).isEqualTo("10.0.0.1");
+        assertThat(resolver.resolve(forwarded("10.0.0.254", "1.1.1.1, 2.2.2.2"))).isEqualTo("2.2.2.2");
+        assertThat(resolver.resolve(forwarded("10.0.0.254", "2.2.2.2, 10.0.0.254"))).isEqualTo("2.2.2.2");
+        assertThat(resolver.resolve(forwarded("10.0.0.254", null))).isEqualTo("10.0.0.254");
+    }
+
+    @Test
+    @DisplayName("Deve limitar juntos os clientes novos enquanto o mapa de clientes esta cheio")
+    public void maxTrackedClientsTest() throws Exception {
+        RateLimitFilter filter = createFilter(1, 20);
+        for (int i = 0; i < 100; i++) {
+            perform(filter, "GET", "/api/books", "10.0.1." + i);
+        }
+
+        assertThat(perform(filter, "GET", "/api/books", "10.0.2.1").getStatus()).isEqualTo(200);
+        assertThat(perform(filter, "GET", "/api/books", "10.0.2.2").getStatus()).isEqualTo(429);
+    }
+
+    private static MockHttpServletRequest forwarded(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RateLimitFilter createFilter(long clientCapacity, int searchConcurrency) {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(org.mockito.ArgumentMatchers.any())).thenReturn(registry);
+        return new RateLimitFilter(true, clientCapacity, 0, 100, new String[]{"10.0.0.254"}, 1000, 1000, 1000, 1000,
+                searchConcurrency, 0, 100, 250, 0, 0, provider);
+    }
+
+    private MockHttpServletResponse perform(RateLimitFilter filter, String method, String uri, String client) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(client);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
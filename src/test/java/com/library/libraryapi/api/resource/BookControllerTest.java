@@ -1,6 +1,8 @@
 package com.library.libraryapi.api.resource;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.library.libraryapi.api.dto.BooKDTO;
 import com.library.libraryapi.exception.BusinessException;
 import com.library.libraryapi.model.entity.Book;
@@ -24,11 +26,17 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import java.util.Arrays;
 import java.util.Optional;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +48,8 @@ public class BookControllerTest {
 
     static String BOOK_API = "/api/books";
 
+    static MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
     @Autowired
     MockMvc mvc;
 
@@ -55,7 +65,7 @@ public class BookControllerTest {
     @DisplayName("Deve criar um livro com sucesso.")
     public void createBookTest() throws Exception{
         BooKDTO dto = createNewBook();
-        Book saveBook = Book.builder().id(10l).author("Jessi").title("As aventuras").isbn("001").build();
+        Book saveBook = Book.builder().id(10l).author("Jessi").title("As aventuras").isbn("9780132350884").build();
 
         BDDMockito.given(service.save(Mockito.any(Book.class)))
                 .willReturn(saveBook);
@@ -97,6 +107,28 @@ public class BookControllerTest {
                 .andExpect(jsonPath("errors", hasSize(3)));
     }
 
+    @Test
+    @DisplayName("Deve lancar erro de validacao quando o isbn nao for um ISBN-10/13 valido.")
+    public void createBookWithInvalidIsbnTest() throws Exception{
+        BooKDTO dto = createNewBook();
+        dto.setIsbn("978-0-13-235088-5");
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc
+                .perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors", hasSize(1)))
+                .andExpect(jsonPath("errors[0]").value("Isbn invalido."));
+
+        Mockito.verify(service, Mockito.never()).save(Mockito.any(Book.class));
+    }
+
     //validacao de regra de negocio
     @Test
     @DisplayName("Deve lancar um erro ao tentar cadastrar um livro com isbn ja utilizado.")
@@ -266,8 +298,7 @@ public class BookControllerTest {
                 .get(BOOK_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc
-                .perform(request)
+        performAsync(request)
                 .andExpect(status().isOk())
                 .andExpect( jsonPath("content",Matchers.hasSize(1)))
                 .andExpect( jsonPath("totalElements").value(1))
@@ -276,7 +307,39 @@ public class BookControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros no formato binario com envelope de pagina enxuto")
+    public void findBooksSmileTest() throws Exception {
+
+        Book book = Book.builder().id(1l).title("As aventuras").author("Jessi").isbn("9780132350884").build();
+
+        BDDMockito.given(service.find(Mockito.any(Book.class),Mockito.any(Pageable.class)))
+                .willReturn( new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0,100),1));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?page=0&size=100"))
+                .accept(SMILE);
+
+        byte[] body = performAsync(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(page.get("content")).hasSize(1);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+        assertThat(page.get("size").asInt()).isEqualTo(100);
+        assertThat(page.has("pageable")).isFalse();
+    }
+
     private BooKDTO createNewBook() {
-        return BooKDTO.builder().author("Jessi").title("As aventuras").isbn("001").build();
+        return BooKDTO.builder().author("Jessi").title("As aventuras").isbn("9780132350884").build();
+    }
+
+    //endpoints assincronos: a resposta so existe depois do dispatch ASYNC
+    private ResultActions performAsync(RequestBuilder request) throws Exception {
+        ResultActions result = mvc.perform(request);
+        MvcResult mvcResult = result.andReturn();
+        return mvcResult.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(mvcResult)) : result;
     }
 }
@@ -0,0 +1,74 @@
+package com.library.libraryapi.api.resource;
+
+import com.library.libraryapi.service.event.ChangeEvent;
+import com.library.libraryapi.service.event.ChangeEventBatch;
+import com.library.libraryapi.service.event.ChangeEventLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Collections;
+import java.util.OptionalLong;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = ChangeEventController.class, properties = "application.events.enabled=true")
+public class ChangeEventControllerTest {
+
+    static final String EVENTS_API = "/api/events";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ChangeEventLog eventLog;
+
+    @Test
+    @DisplayName("Deve ler os eventos a partir do offset gravado pelo consumidor")
+    public void readFromConsumerTest() throws Exception {
+        ChangeEvent event = ChangeEvent.builder().offset(40l).type(ChangeEvent.Type.BOOK_UPDATED).entityId(1l).build();
+        BDDMockito.given(eventLog.getConsumerOffset("search-index")).willReturn(OptionalLong.of(40));
+        BDDMockito.given(eventLog.read(40, 1000)).willReturn(new ChangeEventBatch(Collections.singletonList(event), 90));
+
+        mvc.perform(MockMvcRequestBuilders.get(EVENTS_API.concat("?consumer=search-index&limit=5000"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("events[0].type").value("BOOK_UPDATED"))
+                .andExpect(jsonPath("events[0].offset").value(40))
+                .andExpect(jsonPath("nextOffset").value(90));
+    }
+
+    @Test
+    @DisplayName("Deve gravar o offset de um consumidor")
+    public void commitConsumerTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.put(EVENTS_API.concat("/consumers/search-index"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"offset\":90}"))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(eventLog).commitOffset("search-index", 90);
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found para um consumidor sem offset gravado")
+    public void consumerNotFoundTest() throws Exception {
+        BDDMockito.given(eventLog.getConsumerOffset("novo")).willReturn(OptionalLong.empty());
+
+        mvc.perform(MockMvcRequestBuilders.get(EVENTS_API.concat("/consumers/novo")))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,6 +1,7 @@
 package com.library.libraryapi.api.resource;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.libraryapi.api.async.WorkloadExecutors;
 import com.library.libraryapi.api.dto.LoanDto;
 import com.library.libraryapi.api.dto.LoanFilterDTO;
 import com.library.libraryapi.api.dto.ReturnedLoanDTO;
@@ -10,6 +11,9 @@ import com.library.libraryapi.model.entity.Loan;
 import com.library.libraryapi.service.BookService;
 import com.library.libraryapi.service.LoanService;
 import com.library.libraryapi.service.LoanServiceTest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,7 +23,9 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -27,27 +33,50 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
-@WebMvcTest(controllers = LoanController.class)
+@WebMvcTest(controllers = LoanController.class, properties = {
+        "application.async.checkout.threads=1", "application.async.checkout.queue-capacity=1"})
 public class LoanControllerTest {
 
     static final String LOAN_API = "/api/loans";
 
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
     @Autowired
     MockMvc mvc;
 
+    @Autowired
+    WorkloadExecutors executors;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @MockBean
     private BookService bookService;
 
@@ -73,12 +102,70 @@ public class LoanControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        performAsync(request)
                 .andExpect( status().isCreated() )
                 .andExpect( content().string("1"))
         ;
     }
 
+    @Test
+    @DisplayName("Deve devolver a resposta original ao repetir um emprestimo com a mesma Idempotency-Key.")
+    public void idempotentCreateLoanTest() throws Exception {
+
+        LoanDto dto = LoanDto.builder().isbn("123").email("jessica@gmail.com").customer("jessica").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        Loan loan = Loan.builder().id(1l).customer("jessica").book(book).loanDate(LocalDate.now()).build();
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(loan);
+
+        for (int i = 0; i < 2; i++) {
+            performAsync(MockMvcRequestBuilders.post(LOAN_API)
+                    .header("Idempotency-Key", "retry-1")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json))
+                    .andExpect( status().isCreated() )
+                    .andExpect( content().string("1"));
+        }
+
+        Mockito.verify(loanService, Mockito.times(1)).save(Mockito.any(Loan.class));
+
+        mvc.perform(MockMvcRequestBuilders.post(LOAN_API)
+                .header("Idempotency-Key", "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json.replace("jessica", "maria")))
+                .andExpect( status().isUnprocessableEntity() );
+    }
+
+    @Test
+    @DisplayName("Deve isolar a Idempotency-Key de cada cliente.")
+    public void idempotencyKeyPerClientTest() throws Exception {
+
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given(bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        Loan loan = Loan.builder().id(1l).customer("jessica").book(book).loanDate(LocalDate.now()).build();
+        BDDMockito.given(loanService.save(Mockito.any(Loan.class))).willReturn(loan);
+
+        for (String client : Arrays.asList("jessica", "maria")) {
+            String json = new ObjectMapper().writeValueAsString(
+                    LoanDto.builder().isbn("123").email(client + "@gmail.com").customer(client).build());
+            performAsync(MockMvcRequestBuilders.post(LOAN_API)
+                    .with(request -> {
+                        request.setRemoteAddr("10.0.0." + client.length());
+                        return request;
+                    })
+                    .header("Idempotency-Key", "per-client-1")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json))
+                    .andExpect( status().isCreated() );
+        }
+
+        Mockito.verify(loanService, Mockito.times(2)).save(Mockito.any(Loan.class));
+    }
+
     @Test
     @DisplayName("Deve retornar um erro ao tentar fazer emprestimo de um livro inexistente.")
     public void InvalidIsbnCreateLoanTest() throws Exception{
@@ -94,7 +181,7 @@ public class LoanControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        performAsync(request)
                 .andExpect( status().isBadRequest() )
                 .andExpect( jsonPath("errors", Matchers.hasSize(1)))
                 .andExpect( jsonPath("errors[0]").value("Book not found for passed isbn"))
@@ -121,7 +208,7 @@ public class LoanControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(json);
 
-        mvc.perform(request)
+        performAsync(request)
                 .andExpect( status().isBadRequest() )
                 .andExpect( jsonPath("errors", Matchers.hasSize(1)))
                 .andExpect( jsonPath("errors[0]").value("Book already loaned"))
@@ -129,6 +216,47 @@ public class LoanControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve responder 503 quando o pool de emprestimos recusar a tarefa.")
+    public void rejectedCreateLoanTest() throws Exception{
+
+        LoanDto dto = LoanDto.builder().isbn("123").customer("jessica").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        //a unica thread do pool de emprestimos fica presa e a fila de uma posicao, cheia; a fila
+        //so e preenchida depois que a thread tirou dela a tarefa que a prende
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executors.checkout().execute(() -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        executors.checkout().execute(() -> { });
+        Counter rejected = meterRegistry.get("library.executor.rejected").tag("name", "library.checkout").counter();
+        double rejectedBefore = rejected.count();
+
+        try {
+            mvc.perform(MockMvcRequestBuilders.post(LOAN_API)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(json))
+                    .andExpect( status().isServiceUnavailable() )
+                    .andExpect( header().string("Retry-After", "1"))
+                    .andExpect( jsonPath("errors[0]").value("Service temporarily unavailable"))
+            ;
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(rejected.count()).isEqualTo(rejectedBefore + 1);
+        Mockito.verifyNoInteractions(bookService, loanService);
+    }
+
     @Test
     @DisplayName("Deve retornar um livro")
     public void returnBookTest()  throws Exception{
@@ -141,7 +269,7 @@ public class LoanControllerTest {
 
         String json = new ObjectMapper().writeValueAsString(dto);
 
-        mvc.perform(
+        performAsync(
                 patch(LOAN_API.concat("/1"))
                 .accept(MediaType.APPLICATION_JSON)
                 .contentType(MediaType.APPLICATION_JSON)
@@ -163,7 +291,7 @@ public class LoanControllerTest {
                 .willReturn(Optional.empty());
 
 
-        mvc.perform(
+        performAsync(
                 patch(LOAN_API.concat("/1"))
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -196,8 +324,7 @@ public class LoanControllerTest {
                 .get(LOAN_API.concat(queryString))
                 .accept(MediaType.APPLICATION_JSON);
 
-        mvc
-                .perform(request)
+        performAsync(request)
                 .andExpect(status().isOk())
                 .andExpect( jsonPath("content",Matchers.hasSize(1)))
                 .andExpect( jsonPath("totalElements").value(1))
@@ -206,7 +333,30 @@ public class LoanControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve filtrar emprestimos atrasados informando vencimento e atraso")
+    public void findOverdueLoansTest() throws Exception {
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(1l);
+        loan.setBook(Book.builder().id(1l).isbn("321").build());
+        loan.setReturned(false);
+        loan.setDueDate(LocalDate.now().minusDays(2));
 
-}
+        BDDMockito.given(loanService.find(Mockito.argThat(filter -> Boolean.TRUE.equals(filter.getOverdue())), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
 
+        performAsync(MockMvcRequestBuilders.get(LOAN_API.concat("?overdue=true&page=0&size=10"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].dueDate").value(LocalDate.now().minusDays(2).toString()))
+                .andExpect(jsonPath("content[0].overdue").value(true));
+    }
 
+    //endpoints assincronos: a resposta so existe depois do dispatch ASYNC
+    private ResultActions performAsync(RequestBuilder request) throws Exception {
+        ResultActions result = mvc.perform(request);
+        MvcResult mvcResult = result.andReturn();
+        return mvcResult.getRequest().isAsyncStarted() ? mvc.perform(asyncDispatch(mvcResult)) : result;
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.libraryapi.api.resource;
+
+import com.library.libraryapi.model.entity.MailSuppression;
+import com.library.libraryapi.service.MailSuppressionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = MailSuppressionController.class)
+public class MailSuppressionControllerTest {
+
+    static final String SUPPRESSION_API = "/api/mail-suppressions";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    MailSuppressionService service;
+
+    @Test
+    @DisplayName("Deve suprimir os emails de um endereco")
+    public void createSuppressionTest() throws Exception {
+        BDDMockito.given(service.suppress("Ana@Email.com", MailSuppression.Reason.OPT_OUT))
+                .willReturn(MailSuppression.builder().id(1l).email("ana@email.com")
+                        .reason(MailSuppression.Reason.OPT_OUT).suppressedAt(LocalDate.now()).build());
+
+        mvc.perform(MockMvcRequestBuilders.post(SUPPRESSION_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"Ana@Email.com\",\"reason\":\"OPT_OUT\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("email").value("ana@email.com"))
+                .andExpect(jsonPath("reason").value("OPT_OUT"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de validacao ao suprimir um email invalido")
+    public void createInvalidSuppressionTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(SUPPRESSION_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"sem-arroba\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors").isArray());
+
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    @DisplayName("Deve remover um endereco da lista de supressao")
+    public void deleteSuppressionTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.delete(SUPPRESSION_API.concat("?email=ana@email.com")))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(service).remove("ana@email.com");
+    }
+}
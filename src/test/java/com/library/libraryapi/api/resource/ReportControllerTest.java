@@ -0,0 +1,82 @@
+package com.library.libraryapi.api.resource;
+
+import com.library.libraryapi.api.dto.BookLoanCountDTO;
+import com.library.libraryapi.api.dto.DailyLoanVolumeDTO;
+import com.library.libraryapi.service.ReportService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = ReportController.class)
+public class ReportControllerTest {
+
+    static final String REPORT_API = "/api/reports";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ReportService service;
+
+    @Test
+    @DisplayName("Deve obter os livros mais emprestados")
+    public void topBorrowedBooksTest() throws Exception {
+        BookLoanCountDTO dto = BookLoanCountDTO.builder().bookId(1l).title("As aventuras").isbn("123").totalLoans(5L).build();
+        BDDMockito.given(service.getTopBorrowedBooks(Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(dto), PageRequest.of(0, 10), 1));
+
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API.concat("/books/top?page=0&size=10"))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].totalLoans").value(5));
+    }
+
+    @Test
+    @DisplayName("Deve obter o volume diario de emprestimos")
+    public void dailyCheckoutsTest() throws Exception {
+        LocalDate today = LocalDate.now();
+        BDDMockito.given(service.getDailyCheckouts(today.minusDays(1), today))
+                .willReturn(Arrays.asList(new DailyLoanVolumeDTO(today, 3L)));
+
+        mvc.perform(MockMvcRequestBuilders.get(REPORT_API.concat("/checkouts/daily"))
+                .param("from", today.minusDays(1).toString())
+                .param("to", today.toString())
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(1)))
+                .andExpect(jsonPath("[0].checkouts").value(3));
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir os relatorios")
+    public void rebuildTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(REPORT_API.concat("/rebuild")))
+                .andExpect(status().isNoContent());
+
+        Mockito.verify(service).rebuild();
+    }
+}
@@ -0,0 +1,74 @@
+package com.library.libraryapi.api.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.library.libraryapi.api.dto.BooKDTO;
+import com.library.libraryapi.api.dto.LoanDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+public class LeanPageSerializerTest {
+
+    static final int ITERATIONS = 2000;
+
+    @Test
+    @DisplayName("Deve reduzir os bytes trafegados de uma pagina de emprestimos do mesmo livro")
+    public void bytesOnWireTest() throws Exception {
+        Page<LoanDto> page = createLoansPage(100);
+
+        ObjectMapper jsonMapper = new ObjectMapper();
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES))
+                .registerModule(new SimpleModule().addSerializer(new LeanPageSerializer()));
+
+        byte[] json = jsonMapper.writeValueAsBytes(page);
+        byte[] smile = smileMapper.writeValueAsBytes(page);
+
+        long jsonNanos = measure(jsonMapper, page);
+        long smileNanos = measure(smileMapper, page);
+
+        log.info(" Page of 100 loans: json {} bytes / {} us, smile lean {} bytes / {} us ",
+                json.length, jsonNanos / ITERATIONS / 1000, smile.length, smileNanos / ITERATIONS / 1000);
+
+        assertThat(smile.length).isLessThan(json.length / 2);
+    }
+
+    private long measure(ObjectMapper mapper, Page<LoanDto> page) throws Exception {
+        //aquecimento
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(page);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            mapper.writeValueAsBytes(page);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private Page<LoanDto> createLoansPage(int size) {
+        BooKDTO book = BooKDTO.builder().id(1l).title("As aventuras").author("Jessica").isbn("9780132350884").build();
+        List<LoanDto> loans = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            loans.add(LoanDto.builder()
+                    .id((long) i)
+                    .isbn(book.getIsbn())
+                    .customer("Customer " + (i % 10))
+                    .email("customer" + (i % 10) + "@email.com")
+                    .book(book)
+                    .build());
+        }
+        return new PageImpl<>(loans, PageRequest.of(0, size), 1000);
+    }
+}
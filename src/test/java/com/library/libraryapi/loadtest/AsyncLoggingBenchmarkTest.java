@@ -0,0 +1,128 @@
+package com.library.libraryapi.loadtest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.encoder.LayoutWrappingEncoder;
+import com.library.libraryapi.logging.CorrelationId;
+import com.library.libraryapi.logging.JsonLayout;
+import com.library.libraryapi.logging.SamplingAsyncAppender;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latencia de cada chamada de log no request com o appender de arquivo sincrono (antes)
+ * e com o SamplingAsyncAppender + JSON (depois). Rodar com
+ * {@code mvn test -Ploadtest -Dtest=AsyncLoggingBenchmarkTest}.
+ */
+@Tag("loadtest")
+@Slf4j
+public class AsyncLoggingBenchmarkTest {
+
+    private static final String FILE_PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} %5p [%X{correlationId:-}] --- [%t] %-40.40logger{39} : %m%n";
+
+    @Test
+    @DisplayName("Deve medir o p99 de uma chamada de log com o appender sincrono e com o assincrono")
+    public void loggingLatency() throws Exception {
+        int threads = Integer.getInteger("loadtest.logging.threads", 16);
+        int messages = Integer.getInteger("loadtest.logging.messages", 50_000);
+        Path directory = Files.createDirectories(Paths.get("target", "loadtest", "logging"));
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Logging: %d threads x %d messages%n", threads, messages));
+        report.append(String.format("%-8s %10s %10s %10s %10s %10s%n", "appender", "p50 us", "p99 us", "p99.9 us", "max us", "dropped"));
+        for (boolean async : new boolean[]{false, true}) {
+            LoggerContext context = new LoggerContext();
+            Path file = directory.resolve(async ? "async.log" : "sync.log");
+            Files.deleteIfExists(file);
+            Appender<ILoggingEvent> appender = async ? asyncAppender(context, file) : syncAppender(context, file);
+            Logger logger = context.getLogger("com.library.libraryapi.api.resource.BookController");
+            logger.setLevel(Level.INFO);
+            logger.addAppender(appender);
+
+            run(logger, threads, Math.min(messages, 5_000));
+            Histogram latencies = run(logger, threads, messages);
+            long dropped = async ? ((SamplingAsyncAppender) appender).getDroppedCount() : 0;
+            context.stop();
+
+            report.append(String.format("%-8s %10.1f %10.1f %10.1f %10.1f %10d%n", async ? "async" : "sync",
+                    latencies.getValueAtPercentile(50) / 1e3, latencies.getValueAtPercentile(99) / 1e3,
+                    latencies.getValueAtPercentile(99.9) / 1e3, latencies.getMaxValue() / 1e3, dropped));
+            assertThat(latencies.getTotalCount()).isEqualTo((long) threads * messages);
+        }
+        log.info("\n{}", report);
+    }
+
+    private static Histogram run(Logger logger, int threads, int messages) throws InterruptedException {
+        Histogram latencies = new ConcurrentHistogram(3);
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            clients.execute(() -> {
+                for (int i = 0; i < messages; i++) {
+                    MDC.put(CorrelationId.MDC_KEY, CorrelationId.resolve(null));
+                    long start = System.nanoTime();
+                    logger.info(" Obtaining datails for book id: {} ", i);
+                    latencies.recordValue(System.nanoTime() - start);
+                }
+                MDC.clear();
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.MINUTES);
+        return latencies;
+    }
+
+    private static Appender<ILoggingEvent> syncAppender(LoggerContext context, Path file) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(FILE_PATTERN);
+        encoder.start();
+        return fileAppender(context, file, encoder);
+    }
+
+    private static Appender<ILoggingEvent> asyncAppender(LoggerContext context, Path file) {
+        JsonLayout layout = new JsonLayout();
+        layout.setContext(context);
+        layout.start();
+        LayoutWrappingEncoder<ILoggingEvent> encoder = new LayoutWrappingEncoder<>();
+        encoder.setContext(context);
+        encoder.setLayout(layout);
+        encoder.start();
+
+        SamplingAsyncAppender async = new SamplingAsyncAppender();
+        async.setContext(context);
+        async.setQueueSize(8192);
+        async.addAppender(fileAppender(context, file, encoder));
+        async.start();
+        return async;
+    }
+
+    private static FileAppender<ILoggingEvent> fileAppender(LoggerContext context, Path file,
+                                                           Encoder<ILoggingEvent> encoder) {
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(file.toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+}
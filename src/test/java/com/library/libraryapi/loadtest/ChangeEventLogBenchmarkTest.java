@@ -0,0 +1,70 @@
+package com.library.libraryapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.service.event.ChangeEvent;
+import com.library.libraryapi.service.event.ChangeEventBatch;
+import com.library.libraryapi.service.event.ChangeEventLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Vazao de gravacao e leitura do log de alteracoes. Rodar com
+ * {@code mvn test -Ploadtest -Dtest=ChangeEventLogBenchmarkTest}.
+ */
+@Tag("loadtest")
+@Slf4j
+public class ChangeEventLogBenchmarkTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve medir a vazao de gravacao e leitura do log de alteracoes")
+    @SuppressWarnings("unchecked")
+    public void eventLogThroughput() {
+        int events = Integer.getInteger("loadtest.events.count", 500_000);
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        when(meterRegistry.getIfAvailable(any())).thenReturn(new SimpleMeterRegistry());
+        ChangeEventLog eventLog = new ChangeEventLog(directory.toString(), 64, 16, new ObjectMapper(), meterRegistry);
+        Book book = Book.builder().title("As aventuras").author("Fulano").isbn("978-0-306-40615-7").build();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            book.setId((long) i);
+            eventLog.append(ChangeEvent.of(ChangeEvent.Type.BOOK_UPDATED, book));
+        }
+        eventLog.flush();
+        long written = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long offset = eventLog.startOffset();
+        int read = 0;
+        ChangeEventBatch batch;
+        while (!(batch = eventLog.read(offset, 1000)).getEvents().isEmpty()) {
+            read += batch.getEvents().size();
+            offset = batch.getNextOffset();
+        }
+        long elapsed = System.nanoTime() - start;
+        eventLog.close();
+
+        log.info(String.format("%nChange event log: %d events%nappend+fsync %10.0f events/s%nread         %10.0f events/s",
+                events, events * (double) TimeUnit.SECONDS.toNanos(1) / written,
+                read * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+        assertThat(read).isEqualTo(events);
+    }
+}
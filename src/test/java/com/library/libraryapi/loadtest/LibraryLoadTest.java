@@ -0,0 +1,136 @@
+package com.library.libraryapi.loadtest;
+
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.BookService;
+import com.library.libraryapi.service.impl.LoanServiceImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Teste de carga: sobe a aplicacao numa base H2 em arquivo, populada uma unica vez e
+ * reaproveitada entre execucoes, e aplica o mix de trafego descrito em {@link LoadProfile}.
+ * Fica fora do build padrao; rodar com {@code mvn test -Ploadtest}.
+ */
+@Tag("loadtest")
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:${loadtest.db:./target/loadtest/library};DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "application.ratelimit.enabled=${loadtest.ratelimit:false}",
+        "spring.boot.admin.client.enabled=false",
+        "logging.file=target/loadtest/app.log"
+})
+public class LibraryLoadTest {
+
+    private static final String[] WORDS = {"Aventuras", "Historia", "Manual", "Contos", "Cronicas", "Guia"};
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve sustentar o mix de trafego configurado dentro da taxa de erro maxima")
+    public void libraryTrafficMix() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        List<String> isbns = seed(profile);
+        List<String> available = bookRepository.findAll().stream()
+                .filter(book -> !Boolean.TRUE.equals(book.getActiveLoan()))
+                .map(Book::getIsbn)
+                .collect(Collectors.toList());
+
+        LoadReport report = new LoadReport();
+        LoadDriver driver = new LoadDriver("http://localhost:" + port, profile, report, isbns, available);
+        driver.run();
+        driver.returnOpenLoans();
+
+        String result = report.format(profile);
+        log.info("\n{}", result);
+        Path output = Paths.get("target", "loadtest-report.txt");
+        Files.createDirectories(output.getParent());
+        Files.write(output, result.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(report.total()).isPositive();
+        assertThat(report.errorRate()).isLessThanOrEqualTo(profile.getMaxErrorRate());
+    }
+
+    //popula apenas o que falta, para que execucoes seguidas usem a mesma base
+    private List<String> seed(LoadProfile profile) {
+        List<String> isbns = IntStream.range(0, profile.getBooks())
+                .mapToObj(LibraryLoadTest::isbn)
+                .collect(Collectors.toList());
+
+        long existing = bookRepository.count();
+        Random random = new Random(42);
+        for (int i = (int) existing; i < profile.getBooks(); i++) {
+            bookService.save(Book.builder()
+                    .title(WORDS[random.nextInt(WORDS.length)] + " " + i)
+                    .author("Autor " + random.nextInt(profile.getBooks() / 10 + 1))
+                    .isbn(isbns.get(i))
+                    .build());
+        }
+
+        if (loanRepository.count() == 0 && profile.getHistoricalLoans() > 0) {
+            List<Book> books = bookRepository.findAll();
+            List<Loan> loans = new ArrayList<>();
+            for (int i = 0; i < profile.getHistoricalLoans(); i++) {
+                String customer = "customer" + random.nextInt(profile.getCustomers());
+                Book book = books.get(random.nextInt(books.size()));
+                LocalDate loanDate = LocalDate.now().minusDays(1 + random.nextInt(365));
+                loans.add(Loan.builder()
+                        .book(book)
+                        .customer(customer)
+                        .customerEmail(customer + "@library.test")
+                        .loanDate(loanDate)
+                        .returned(true)
+                        .dueDate(LoanServiceImpl.dueDate(loanDate))
+                        .build());
+                if (loans.size() == 1000) {
+                    loanRepository.saveAll(loans);
+                    loans.clear();
+                }
+            }
+            loanRepository.saveAll(loans);
+        }
+        log.info(" Load test database ready: {} books, {} loans ", bookRepository.count(), loanRepository.count());
+        return isbns;
+    }
+
+    //ISBN-13 valido com prefixo 978 e o indice do livro como numero do titulo
+    static String isbn(int index) {
+        String digits = String.format("978%09d", index);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return digits + (10 - sum % 10) % 10;
+    }
+}
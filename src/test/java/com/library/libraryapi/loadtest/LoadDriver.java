@@ -0,0 +1,211 @@
+package com.library.libraryapi.loadtest;
+
+import lombok.AllArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Dispara o mix de operacoes contra a API via HTTP. Emprestimos saem de uma fila de
+ * livros disponiveis e devolucoes de uma fila de emprestimos abertos, para que a carga
+ * nao seja dominada por erros de "livro ja emprestado".
+ */
+public class LoadDriver {
+
+    private static final int TIMEOUT_MILLIS = 30_000;
+
+    private final String baseUrl;
+    private final LoadProfile profile;
+    private final LoadReport report;
+    private final List<String> isbns;
+    private final Queue<String> availableIsbns;
+    private final Queue<OpenLoan> openLoans = new ConcurrentLinkedQueue<>();
+
+    public LoadDriver(String baseUrl, LoadProfile profile, LoadReport report,
+                      List<String> isbns, List<String> availableIsbns) {
+        this.baseUrl = baseUrl;
+        this.profile = profile;
+        this.report = report;
+        this.isbns = isbns;
+        this.availableIsbns = new ConcurrentLinkedQueue<>(availableIsbns);
+    }
+
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        long warmupEnd = start + TimeUnit.SECONDS.toNanos(profile.getWarmupSeconds());
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(profile.getDurationSeconds());
+
+        ExecutorService clients = Executors.newFixedThreadPool(profile.getConcurrency());
+        if (profile.getMode() == LoadProfile.Mode.CLOSED) {
+            for (int i = 0; i < profile.getConcurrency(); i++) {
+                clients.execute(() -> {
+                    while (System.nanoTime() < end) {
+                        execute(nextOperation(), System.nanoTime(), warmupEnd);
+                    }
+                });
+            }
+        } else {
+            long interval = TimeUnit.SECONDS.toNanos(1) / profile.getRatePerSecond();
+            for (long arrival = start; arrival < end; arrival += interval) {
+                long delay = arrival - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                long intendedStart = arrival;
+                clients.execute(() -> execute(nextOperation(), intendedStart, warmupEnd));
+            }
+        }
+        clients.shutdown();
+        clients.awaitTermination(profile.getDurationSeconds() + TIMEOUT_MILLIS / 1000, TimeUnit.SECONDS);
+    }
+
+    //devolve os livros que ficaram emprestados, para a proxima execucao na mesma base
+    public void returnOpenLoans() {
+        OpenLoan loan;
+        while ((loan = openLoans.poll()) != null) {
+            send("PATCH", "/api/loans/" + loan.id, "{\"returned\":true}");
+        }
+    }
+
+    private Operation nextOperation() {
+        return profile.next(ThreadLocalRandom.current());
+    }
+
+    private void execute(Operation operation, long intendedStart, long warmupEnd) {
+        int status = perform(operation);
+        if (status == 0) {
+            report.skip(operation);
+        } else if (intendedStart >= warmupEnd) {
+            report.record(operation, System.nanoTime() - intendedStart, status);
+        }
+    }
+
+    //0 quando nao havia o que fazer (nenhum livro disponivel ou emprestimo aberto)
+    private int perform(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (operation) {
+            case BOOK_SEARCH:
+                return send("GET", "/api/books?title=" + random.nextInt(100) + "&page=0&size=20", null).status;
+            case ISBN_LOOKUP:
+                return send("GET", "/api/books?isbn=" + isbns.get(random.nextInt(isbns.size())) + "&page=0&size=1", null).status;
+            case LOAN_SEARCH:
+                return send("GET", "/api/loans?customer=" + customer(random) + "&page=0&size=20", null).status;
+            case CHECKOUT:
+                return checkout(random);
+            case RETURN:
+                return giveBack();
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private int checkout(ThreadLocalRandom random) {
+        String isbn = availableIsbns.poll();
+        if (isbn == null) {
+            return 0;
+        }
+        String customer = customer(random);
+        Response response = send("POST", "/api/loans", "{\"isbn\":\"" + isbn + "\",\"customer\":\"" + customer
+                + "\",\"email\":\"" + customer + "@library.test\"}");
+        if (response.status == 201) {
+            openLoans.add(new OpenLoan(Long.parseLong(response.body.trim()), isbn));
+        } else {
+            availableIsbns.add(isbn);
+        }
+        return response.status;
+    }
+
+    private int giveBack() {
+        OpenLoan loan = openLoans.poll();
+        if (loan == null) {
+            return 0;
+        }
+        Response response = send("PATCH", "/api/loans/" + loan.id, "{\"returned\":true}");
+        if (response.status == 200) {
+            availableIsbns.add(loan.isbn);
+        } else {
+            openLoans.add(loan);
+        }
+        return response.status;
+    }
+
+    private String customer(ThreadLocalRandom random) {
+        return "customer" + random.nextInt(profile.getCustomers());
+    }
+
+    private Response send(String method, String path, String json) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestProperty("Accept", "application/json");
+            setMethod(connection, method);
+            if (json != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream body = connection.getOutputStream()) {
+                    body.write(json.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            int status = connection.getResponseCode();
+            //consome o corpo inteiro para a conexao voltar ao pool de keep-alive
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            return new Response(status, body == null ? "" : read(body));
+        } catch (IOException e) {
+            return new Response(-1, "");
+        }
+    }
+
+    //HttpURLConnection recusa PATCH em setRequestMethod; o campo e ajustado diretamente (JDK 8)
+    private static void setMethod(HttpURLConnection connection, String method) throws IOException {
+        if (!"PATCH".equals(method)) {
+            connection.setRequestMethod(method);
+            return;
+        }
+        try {
+            Field field = HttpURLConnection.class.getDeclaredField("method");
+            field.setAccessible(true);
+            field.set(connection, method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("PATCH not supported by this JDK", e);
+        }
+    }
+
+    private static String read(InputStream input) throws IOException {
+        try (InputStream in = input) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @AllArgsConstructor
+    private static class Response {
+        private final int status;
+        private final String body;
+    }
+
+    @AllArgsConstructor
+    private static class OpenLoan {
+        private final long id;
+        private final String isbn;
+    }
+}
@@ -0,0 +1,78 @@
+package com.library.libraryapi.loadtest;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Parametros do teste de carga, lidos das system properties loadtest.* (ver README).
+ * No modo CLOSED cada um dos {@code concurrency} clientes dispara a proxima requisicao
+ * assim que recebe a resposta; no modo OPEN as requisicoes chegam a {@code ratePerSecond}
+ * independentemente das respostas, e a latencia e medida a partir do horario previsto
+ * de chegada, para nao esconder a fila quando o servidor fica lento.
+ */
+@Getter
+@Builder
+public class LoadProfile {
+
+    public enum Mode { CLOSED, OPEN }
+
+    private final Mode mode;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int concurrency;
+    private final int ratePerSecond;
+    private final int books;
+    private final int customers;
+    private final int historicalLoans;
+    private final double maxErrorRate;
+    private final Map<Operation, Integer> mix;
+
+    public static LoadProfile fromSystemProperties() {
+        return LoadProfile.builder()
+                .mode(Mode.valueOf(System.getProperty("loadtest.mode", "CLOSED").toUpperCase()))
+                .durationSeconds(Integer.getInteger("loadtest.duration-seconds", 60))
+                .warmupSeconds(Integer.getInteger("loadtest.warmup-seconds", 10))
+                .concurrency(Integer.getInteger("loadtest.concurrency", 32))
+                .ratePerSecond(Integer.getInteger("loadtest.rate-per-second", 200))
+                .books(Integer.getInteger("loadtest.books", 10000))
+                .customers(Integer.getInteger("loadtest.customers", 1000))
+                .historicalLoans(Integer.getInteger("loadtest.historical-loans", 20000))
+                .maxErrorRate(Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01")))
+                .mix(parseMix(System.getProperty("loadtest.mix",
+                        "BOOK_SEARCH:35,ISBN_LOOKUP:25,CHECKOUT:12,RETURN:12,LOAN_SEARCH:16")))
+                .build();
+    }
+
+    //formato OPERACAO:peso,OPERACAO:peso
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.valueOf(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    public Operation next(Random random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int pick = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> weight : mix.entrySet()) {
+            pick -= weight.getValue();
+            if (pick < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty load mix");
+    }
+
+    @Override
+    public String toString() {
+        return mode + (mode == Mode.CLOSED ? " concurrency=" + concurrency : " rate=" + ratePerSecond + "/s")
+                + " duration=" + durationSeconds + "s warmup=" + warmupSeconds + "s books=" + books
+                + " customers=" + customers + " mix=" + mix;
+    }
+}
@@ -0,0 +1,89 @@
+package com.library.libraryapi.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadReport {
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> clientErrors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> serverErrors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> skipped = new EnumMap<>(Operation.class);
+
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(3));
+            clientErrors.put(operation, new LongAdder());
+            serverErrors.put(operation, new LongAdder());
+            skipped.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * @param status codigo HTTP, ou -1 para falha de conexao/timeout
+     */
+    public void record(Operation operation, long latencyNanos, int status) {
+        latencies.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        if (status >= 400 && status < 500) {
+            clientErrors.get(operation).increment();
+        } else if (status < 200 || status >= 500) {
+            serverErrors.get(operation).increment();
+        }
+    }
+
+    //devolucao sem emprestimo aberto ou emprestimo sem livro disponivel
+    public void skip(Operation operation) {
+        skipped.get(operation).increment();
+    }
+
+    public long total() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    public long errors() {
+        return sum(clientErrors) + sum(serverErrors);
+    }
+
+    public double errorRate() {
+        long total = total();
+        return total == 0 ? 0 : (double) errors() / total;
+    }
+
+    public String format(LoadProfile profile) {
+        StringBuilder report = new StringBuilder();
+        report.append("Load test: ").append(profile).append('\n');
+        report.append(String.format("%-12s %9s %9s %9s %9s %9s %9s %9s %7s %7s %7s%n",
+                "operation", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "5xx/io", "skip"));
+        Histogram all = new Histogram(3);
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            all.add(histogram);
+            line(report, operation.name(), histogram, profile, clientErrors.get(operation).sum(),
+                    serverErrors.get(operation).sum(), skipped.get(operation).sum());
+        }
+        line(report, "TOTAL", all, profile, sum(clientErrors), sum(serverErrors), sum(skipped));
+        report.append(String.format("error rate: %.4f%n", errorRate()));
+        return report.toString();
+    }
+
+    private static void line(StringBuilder report, String name, Histogram histogram, LoadProfile profile,
+                             long clientErrors, long serverErrors, long skipped) {
+        report.append(String.format("%-12s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7d %7d %7d%n",
+                name, histogram.getTotalCount(), (double) histogram.getTotalCount() / profile.getDurationSeconds(),
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / 1000.0, clientErrors, serverErrors, skipped));
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long sum(Map<Operation, LongAdder> counters) {
+        return counters.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+}
@@ -0,0 +1,103 @@
+package com.library.libraryapi.loadtest;
+
+import com.library.libraryapi.service.notification.FakeSmtpServer;
+import com.library.libraryapi.service.notification.InMemoryMailTransport;
+import com.library.libraryapi.service.notification.MailMessage;
+import com.library.libraryapi.service.notification.MailTransport;
+import com.library.libraryapi.service.notification.Maildir;
+import com.library.libraryapi.service.notification.MaildirMailTransport;
+import com.library.libraryapi.service.notification.SmtpMailTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vazao de envio de cada {@link MailTransport} local, sem rede. Rodar com
+ * {@code mvn test -Ploadtest -Dtest=MailTransportBenchmarkTest}.
+ */
+@Tag("loadtest")
+@Slf4j
+public class MailTransportBenchmarkTest {
+
+    private static final String FROM = "biblioteca@library.example";
+
+    @Test
+    @DisplayName("Deve medir a vazao de envio dos transportes locais")
+    public void transportThroughput() throws Exception {
+        int messages = Integer.getInteger("loadtest.mail.messages", 20_000);
+        int batchSize = Integer.getInteger("loadtest.mail.batch-size", 100);
+        String[] transports = System.getProperty("loadtest.mail.transports", "memory,maildir,fake-smtp").split(",");
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Mail transports: %d messages, batch size %d%n", messages, batchSize));
+        for (String name : transports) {
+            FakeSmtpServer server = null;
+            MailTransport transport;
+            switch (name.trim()) {
+                case "memory":
+                    transport = new InMemoryMailTransport(0);
+                    break;
+                case "maildir":
+                    transport = new MaildirMailTransport(Paths.get("target", "loadtest", "maildir"), FROM);
+                    break;
+                case "fake-smtp":
+                    server = new FakeSmtpServer(0, null);
+                    server.start();
+                    JavaMailSenderImpl sender = new JavaMailSenderImpl();
+                    sender.setHost("localhost");
+                    sender.setPort(server.getPort());
+                    transport = new SmtpMailTransport(sender, FROM, "fake-smtp");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown transport " + name);
+            }
+            try {
+                send(transport, Math.min(messages, 2_000), batchSize);
+                long start = System.nanoTime();
+                send(transport, messages, batchSize);
+                long elapsed = System.nanoTime() - start;
+                report.append(String.format("%-10s %10.1f ms %10.0f msg/s%n", transport.name(), elapsed / 1e6,
+                        messages * (double) TimeUnit.SECONDS.toNanos(1) / elapsed));
+                if (server != null) {
+                    assertThat(server.getReceivedCount()).isGreaterThanOrEqualTo(messages);
+                }
+            } finally {
+                if (server != null) {
+                    server.stop();
+                }
+            }
+        }
+
+        log.info("\n{}", report);
+        Path output = Paths.get("target", "mail-transport-benchmark.txt");
+        Files.createDirectories(output.getParent());
+        Files.write(output, report.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(MailTransport transport, int messages, int batchSize) {
+        List<MailMessage> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < messages; i++) {
+            batch.add(new MailMessage("customer" + i + "@library.example", "Livro com emprestimo atrasado",
+                    "Ola customer" + i + ",\n\nVoce tem 1 emprestimo(s) atrasado(s):\n- Aventuras " + i + "\n"));
+            if (batch.size() == batchSize) {
+                transport.send(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            transport.send(batch);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.library.libraryapi.loadtest;
+
+public enum Operation {
+
+    BOOK_SEARCH,
+    ISBN_LOOKUP,
+    CHECKOUT,
+    RETURN,
+    LOAN_SEARCH
+}
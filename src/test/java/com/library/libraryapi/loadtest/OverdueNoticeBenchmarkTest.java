@@ -0,0 +1,116 @@
+package com.library.libraryapi.loadtest;
+
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.notification.OverdueNotice;
+import com.library.libraryapi.service.notification.OverdueNoticeRenderer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vazao de renderizacao dos emails de atraso com o template de application.properties.
+ * Rodar com {@code mvn test -Ploadtest -Dtest=OverdueNoticeBenchmarkTest}.
+ */
+@Tag("loadtest")
+@Slf4j
+public class OverdueNoticeBenchmarkTest {
+
+    @Test
+    @DisplayName("Deve renderizar ao menos a vazao minima de emails de atraso por minuto")
+    public void renderThroughput() throws Exception {
+        int notices = Integer.getInteger("loadtest.notices", 1_000_000);
+        int threads = Integer.getInteger("loadtest.threads", Runtime.getRuntime().availableProcessors());
+        long minPerMinute = Long.getLong("loadtest.min-notices-per-minute", 1_000_000);
+
+        OverdueNoticeRenderer renderer = renderer();
+        List<OverdueNotice> samples = samples();
+        //aquecimento para o JIT compilar o caminho de renderizacao
+        render(renderer, samples, 200_000, threads);
+
+        long start = System.nanoTime();
+        long chars = render(renderer, samples, notices, threads);
+        long elapsed = System.nanoTime() - start;
+
+        double perMinute = notices * (double) TimeUnit.MINUTES.toNanos(1) / elapsed;
+        String result = String.format("Overdue notices: %d rendered with %d threads in %.1f ms, %.0f/min, %.0f chars/notice%n",
+                notices, threads, elapsed / 1e6, perMinute, (double) chars / notices);
+        log.info(result);
+        Path output = Paths.get("target", "notice-benchmark.txt");
+        Files.createDirectories(output.getParent());
+        Files.write(output, result.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(perMinute).isGreaterThanOrEqualTo(minPerMinute);
+    }
+
+    private static long render(OverdueNoticeRenderer renderer, List<OverdueNotice> samples, int notices, int threads)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = (int) ((long) notices * t / threads);
+                int to = (int) ((long) notices * (t + 1) / threads);
+                futures.add(executor.submit(() -> {
+                    long chars = 0;
+                    for (int i = from; i < to; i++) {
+                        chars += renderer.render(samples.get(i % samples.size())).getText().length();
+                    }
+                    return chars;
+                }));
+            }
+            long chars = 0;
+            for (Future<Long> future : futures) {
+                chars += future.get();
+            }
+            return chars;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static OverdueNoticeRenderer renderer() throws Exception {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(
+                OverdueNoticeBenchmarkTest.class.getResourceAsStream("/application.properties"), StandardCharsets.ISO_8859_1)) {
+            properties.load(reader);
+        }
+        return new OverdueNoticeRenderer(properties.getProperty("application.mail.lateloans.subject"),
+                properties.getProperty("application.mail.lateloans.message"),
+                properties.getProperty("application.mail.lateloans.template"));
+    }
+
+    //clientes com 1 a 4 emprestimos atrasados
+    private static List<OverdueNotice> samples() {
+        LocalDate today = LocalDate.now();
+        List<OverdueNotice> samples = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            List<Loan> loans = new ArrayList<>();
+            for (int j = 0; j <= i % 4; j++) {
+                Book book = Book.builder().id((long) j).title("Aventuras " + i + "-" + j).author("Autor " + j)
+                        .isbn("978013235088" + j % 10).build();
+                loans.add(Loan.builder().book(book).loanDate(today.minusDays(5 + j * 3)).build());
+            }
+            samples.add(new OverdueNotice("customer" + i, "customer" + i + "@library.example", loans, today));
+        }
+        return samples;
+    }
+}
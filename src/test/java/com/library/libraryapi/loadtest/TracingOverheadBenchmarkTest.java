@@ -0,0 +1,122 @@
+package com.library.libraryapi.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.libraryapi.tracing.InMemorySpanExporter;
+import com.library.libraryapi.tracing.Span;
+import com.library.libraryapi.tracing.Tracer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Custo do tracing por request (span SERVER, servico, dois repositorios e o transporte de
+ * email) com varias taxas de amostragem. O trabalho proprio do request aqui e so serializar
+ * a resposta, entao o custo tambem e comparado a latencia de um request real pela API
+ * ({@code loadtest.tracing.request-micros}, 100us por padrao, abaixo de qualquer request
+ * que passe pelo H2). Rodar com
+ * {@code mvn test -Ploadtest -Dtest=TracingOverheadBenchmarkTest}.
+ */
+@Tag("loadtest")
+@Slf4j
+public class TracingOverheadBenchmarkTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    @DisplayName("Deve medir o custo do tracing por request em cada taxa de amostragem")
+    public void tracingOverhead() throws Exception {
+        int threads = Integer.getInteger("loadtest.tracing.threads", 8);
+        int requests = Integer.getInteger("loadtest.tracing.requests", 200_000);
+        double requestNanos = Integer.getInteger("loadtest.tracing.request-micros", 100) * 1_000d;
+        double defaultRatio = 0.1;
+
+        double[] ratios = {0, 0.01, 0.1, 1.0};
+        Tracer[] tracers = new Tracer[ratios.length];
+        //aquece todas as variantes antes de medir, para o JIT nao favorecer a primeira
+        run(threads, requests, null);
+        for (int r = 0; r < ratios.length; r++) {
+            tracers[r] = new Tracer(new InMemorySpanExporter(10_000), ratios[r]);
+            run(threads, requests, tracers[r]);
+        }
+        double baseline = run(threads, requests, null);
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Tracing: %d threads x %d requests, request sem tracing: %.0f ns%n",
+                threads, requests, baseline));
+        report.append(String.format("%-8s %12s %12s %14s%n", "ratio", "ns/request", "vs baseline", "vs API request"));
+        double defaultOverhead = 0;
+        for (int r = 0; r < ratios.length; r++) {
+            double cost = run(threads, requests, tracers[r]) - baseline;
+            report.append(String.format("%-8s %12.0f %11.2f%% %13.2f%%%n", ratios[r], cost,
+                    100 * cost / baseline, 100 * cost / requestNanos));
+            if (ratios[r] == defaultRatio) {
+                defaultOverhead = cost / requestNanos;
+            }
+        }
+        log.info("\n{}", report);
+        assertThat(defaultOverhead).isLessThan(0.01);
+    }
+
+    //inverso da vazao com todas as threads ocupadas: ns de relogio por request
+    private static double run(int threads, int requests, Tracer tracer) throws InterruptedException {
+        LongAdder bytes = new LongAdder();
+        ExecutorService clients = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            clients.execute(() -> {
+                for (int i = 0; i < requests; i++) {
+                    bytes.add(request(tracer, i));
+                }
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(10, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        assertThat(bytes.sum()).isPositive();
+        return elapsed / (double) ((long) threads * requests);
+    }
+
+    private static int request(Tracer tracer, int i) {
+        if (tracer == null) {
+            return response(i);
+        }
+        Span server = start(tracer, null, Span.Kind.SERVER);
+        Span service = start(tracer, "LoanServiceImpl.save", Span.Kind.INTERNAL);
+        start(tracer, "BookRepository.findByIsbn", Span.Kind.CLIENT).setAttribute("db.operation", "findByIsbn").end();
+        start(tracer, "LoanRepository.save", Span.Kind.CLIENT).setAttribute("db.operation", "save").end();
+        start(tracer, "SmtpMailTransport.send", Span.Kind.CLIENT).setAttribute("mail.transport", "smtp").end();
+        service.end();
+        int length = response(i);
+        server.setName("POST /api/loans").setAttribute("http.status_code", 201).end();
+        return length;
+    }
+
+    private static Span start(Tracer tracer, String name, Span.Kind kind) {
+        return kind == Span.Kind.SERVER ? tracer.startServerSpan("POST", null) : tracer.startSpan(name, kind);
+    }
+
+    //o trabalho proprio de um request pequeno: montar o DTO e serializar a resposta
+    private static int response(int i) {
+        Map<String, Object> dto = new LinkedHashMap<>();
+        dto.put("id", i);
+        dto.put("isbn", "978030640615" + (i % 10));
+        dto.put("customer", "customer" + i);
+        dto.put("email", "customer" + i + "@library.test");
+        dto.put("loanDate", "2026-10-19");
+        try {
+            return MAPPER.writeValueAsBytes(dto).length;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
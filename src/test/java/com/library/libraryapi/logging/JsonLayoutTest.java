@@ -0,0 +1,42 @@
+package com.library.libraryapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JsonLayoutTest {
+
+    @AfterEach
+    public void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Deve gerar uma linha JSON valida com o correlation id e a stack trace")
+    public void layoutTest() throws Exception {
+        LoggerContext context = new LoggerContext();
+        Logger logger = context.getLogger("com.library.libraryapi.api.resource.BookController");
+        MDC.put(CorrelationId.MDC_KEY, "abc-123");
+        LoggingEvent event = new LoggingEvent(Logger.class.getName(), logger, Level.ERROR,
+                "Livro \"{}\"\nnao encontrado", new IllegalStateException("falhou"), new Object[]{"Aventuras"});
+
+        String line = new JsonLayout().doLayout(event);
+        JsonNode json = new ObjectMapper().readTree(line);
+
+        assertThat(line).endsWith(System.lineSeparator()).doesNotContain("\n{");
+        assertThat(json.get("level").asText()).isEqualTo("ERROR");
+        assertThat(json.get("message").asText()).isEqualTo("Livro \"Aventuras\"\nnao encontrado");
+        assertThat(json.get("correlationId").asText()).isEqualTo("abc-123");
+        assertThat(json.get("exception").asText()).contains("IllegalStateException: falhou");
+        assertThat(json.get("@timestamp").asText()).endsWith("Z");
+    }
+}
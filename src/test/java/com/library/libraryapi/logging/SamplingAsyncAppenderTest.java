@@ -0,0 +1,112 @@
+package com.library.libraryapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SamplingAsyncAppenderTest {
+
+    LoggerContext context = new LoggerContext();
+
+    @AfterEach
+    public void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Test
+    @DisplayName("Deve descartar logs INFO com a fila cheia e manter os WARN")
+    public void dropOnOverflowTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CollectingAppender target = new CollectingAppender(release);
+        SamplingAsyncAppender appender = createAppender(target, 10, "", 1.0);
+
+        for (int i = 0; i < 20; i++) {
+            appender.doAppend(event("com.library.libraryapi.api.resource.BookController", Level.INFO, "info " + i));
+        }
+        appender.doAppend(event("com.library.libraryapi.service.ScheduleService", Level.WARN, "warn"));
+        release.countDown();
+        appender.stop();
+
+        assertThat(appender.getDroppedCount()).isPositive();
+        assertThat(target.events).extracting(ILoggingEvent::getFormattedMessage).contains("warn");
+        assertThat(target.events.size() + appender.getDroppedCount()).isEqualTo(21);
+    }
+
+    @Test
+    @DisplayName("Deve amostrar os logs dos loggers configurados mantendo os requests inteiros")
+    public void samplingTest() {
+        CollectingAppender target = new CollectingAppender(new CountDownLatch(0));
+        SamplingAsyncAppender appender = createAppender(target, 1024, "com.library.libraryapi.api.resource", 0.25);
+
+        for (int request = 0; request < 200; request++) {
+            MDC.put(CorrelationId.MDC_KEY, CorrelationId.resolve(null));
+            appender.doAppend(event("com.library.libraryapi.api.resource.BookController", Level.INFO, "request " + request));
+            appender.doAppend(event("com.library.libraryapi.api.resource.BookController", Level.INFO, "request " + request));
+            appender.doAppend(event("com.library.libraryapi.api.resource.BookController", Level.ERROR, "error " + request));
+            appender.doAppend(event("com.library.libraryapi.service.ScheduleService", Level.INFO, "other " + request));
+        }
+        appender.stop();
+
+        long kept = target.events.stream().filter(event -> event.getFormattedMessage().startsWith("request")).count();
+        assertThat(kept % 2).isZero();
+        assertThat(kept / 2).isBetween(20l, 80l);
+        assertThat(target.events.stream().filter(event -> event.getLevel() == Level.ERROR).count()).isEqualTo(200);
+        assertThat(target.events.stream().filter(event -> event.getFormattedMessage().startsWith("other")).count()).isEqualTo(200);
+        assertThat(appender.getSampledOutCount()).isEqualTo(400 - kept);
+    }
+
+    private SamplingAsyncAppender createAppender(CollectingAppender target, int queueSize, String sampledLoggers,
+                                                 double sampleRate) {
+        target.setContext(context);
+        target.start();
+        SamplingAsyncAppender appender = new SamplingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(queueSize);
+        appender.setSampledLoggers(sampledLoggers);
+        appender.setSampleRate(sampleRate);
+        appender.setMaxFlushTime(5000);
+        appender.addAppender(target);
+        appender.start();
+        return appender;
+    }
+
+    private LoggingEvent event(String loggerName, Level level, String message) {
+        Logger logger = context.getLogger(loggerName);
+        return new LoggingEvent(Logger.class.getName(), logger, level, message, null, null);
+    }
+
+    static class CollectingAppender extends AppenderBase<ILoggingEvent> {
+
+        final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+
+        CollectingAppender(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+    }
+}
@@ -2,15 +2,19 @@ package com.library.libraryapi.model.repository;
 
 
 import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.BookLoanStatistic;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -100,4 +104,91 @@ public class BookRepositoryTest {
 
         assertThat(deletedBook).isNull();
     }
+
+    @Test
+    @DisplayName("Deve incrementar os contadores de emprestimo do livro.")
+    public void registerLoanTest(){
+
+        Book book = createNewBook("123");
+        book.setTotalLoans(0L);
+        entityManager.persist(book);
+
+        LocalDate today = LocalDate.now();
+        repository.registerLoan(book.getId(), today);
+        repository.registerLoan(book.getId(), today.minusDays(3));
+        entityManager.clear();
+
+        Book foundBook = entityManager.find(Book.class, book.getId());
+
+        assertThat(foundBook.getTotalLoans()).isEqualTo(2L);
+        assertThat(foundBook.getActiveLoan()).isTrue();
+        assertThat(foundBook.getLastLoanDate()).isEqualTo(today);
+    }
+
+    @Test
+    @DisplayName("Deve preservar os contadores ao atualizar os dados do livro.")
+    public void updateKeepsCountersTest(){
+
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        repository.registerLoan(book.getId(), LocalDate.now());
+        entityManager.clear();
+
+        Book staleBook = createNewBook("123");
+        staleBook.setId(book.getId());
+        staleBook.setTitle("Novo titulo");
+        repository.saveAndFlush(staleBook);
+        entityManager.clear();
+
+        Book foundBook = entityManager.find(Book.class, book.getId());
+
+        assertThat(foundBook.getTitle()).isEqualTo("Novo titulo");
+        assertThat(foundBook.getTotalLoans()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Deve copiar para os livros os contadores da estatistica de emprestimos.")
+    public void copyLoanStatisticsTest(){
+
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        Book idleBook = createNewBook("456");
+        entityManager.persist(idleBook);
+        repository.registerLoan(idleBook.getId(), LocalDate.now());
+        LocalDate lastLoanDate = LocalDate.now().minusDays(2);
+        entityManager.persist(new BookLoanStatistic(book.getId(), 7L, lastLoanDate));
+
+        int updated = repository.copyLoanStatistics();
+
+        Book foundBook = entityManager.find(Book.class, book.getId());
+        Book foundIdleBook = entityManager.find(Book.class, idleBook.getId());
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(foundBook.getTotalLoans()).isEqualTo(7L);
+        assertThat(foundBook.getLastLoanDate()).isEqualTo(lastLoanDate);
+        assertThat(foundIdleBook.getTotalLoans()).isZero();
+        assertThat(foundIdleBook.getLastLoanDate()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve migrar o isbn de livros antigos para a chave numerica")
+    public void backfillIsbnKeyTest(){
+
+        Book legacyBook = createNewBook("0-13-235088-2");
+        entityManager.persist(legacyBook);
+        Book migratedBook = createNewBook("9780804429573");
+        migratedBook.setIsbnKey(9780804429573L);
+        entityManager.persist(migratedBook);
+
+        List<Object[]> pending = repository.findWithoutIsbnKey(0L, PageRequest.of(0, 10));
+        assertThat(pending).hasSize(1);
+        assertThat(pending.get(0)[0]).isEqualTo(legacyBook.getId());
+
+        repository.updateIsbnKey(legacyBook.getId(), 9780132350884L, "9780132350884");
+        entityManager.clear();
+
+        assertThat(repository.findByIsbnKey(9780132350884L)).map(Book::getId).hasValue(legacyBook.getId());
+        assertThat(repository.findByIsbn("9780132350884")).isPresent();
+        assertThat(repository.findWithoutIsbnKey(0L, PageRequest.of(0, 10))).isEmpty();
+    }
 }
@@ -2,6 +2,7 @@ package com.library.libraryapi.model.repository;
 
 import com.library.libraryapi.model.entity.Book;
 import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.impl.LoanServiceImpl;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +15,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 import static com.library.libraryapi.model.repository.BookRepositoryTest.createNewBook;
@@ -27,6 +29,9 @@ public class LoanRepositoryTest {
     @Autowired
     private  LoanRepository repository;
 
+    @Autowired
+    private BookRepository bookRepository;
+
     @Autowired
     private TestEntityManager entityManager;
 
@@ -58,25 +63,120 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Deve obter empréstimos cuja data empréstimo for menor ou igual a tres dias atras e nao retornados")
-    public void findByLoanDateLessThanAndNotReturnedTest(){
-        Loan land = createAndPersistLoan(LocalDate.now().minusDays(5));
+    @DisplayName("Deve obter empréstimos nao devolvidos com vencimento ate hoje")
+    public void findOverdueTest(){
+        Loan land = createAndPersistOpenLoan(LocalDate.now().minusDays(4));
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        List<Loan> result = repository.findOverdue(LocalDate.now());
 
         assertThat(result).hasSize(1).contains(land);
     }
 
     @Test
     @DisplayName("Deve retornar vazio quando nao houver emprestimos atrasados")
-    public void notFindByLoanDateLessThanAndNotReturnedTest(){
-        Loan land = createAndPersistLoan(LocalDate.now());
+    public void notFindOverdueTest(){
+        Loan land = createAndPersistOpenLoan(LocalDate.now().minusDays(3));
 
-        List<Loan> result = repository.findByLoanDateLessThanAndNotReturned(LocalDate.now().minusDays(4));
+        List<Loan> result = repository.findOverdue(LocalDate.now());
 
         assertThat(result).isEmpty();
     }
 
+    @Test
+    @DisplayName("Deve obter e contar emprestimos atrasados gravados antes do vencimento e do returned normalizado")
+    public void findOverdueWithoutDueDateTest(){
+        Loan late = createAndPersistLoan(LocalDate.now().minusDays(Loan.LOAN_DAYS));
+        createAndPersistLoan(LocalDate.now().minusDays(Loan.LOAN_DAYS - 1));
+
+        List<Loan> result = repository.findOverdue(LocalDate.now());
+        Page<Object[]> byCustomer = repository.countOverdueByCustomer(LocalDate.now(), PageRequest.of(0, 10));
+
+        assertThat(result).containsExactly(late);
+        assertThat(byCustomer.getContent().get(0)).containsExactly("Jessica", 1L);
+    }
+
+    @Test
+    @DisplayName("Deve contar emprestimos atrasados por cliente")
+    public void countOverdueByCustomerTest(){
+        createAndPersistOpenLoan(LocalDate.now().minusDays(5));
+
+        Page<Object[]> result = repository.countOverdueByCustomer(LocalDate.now(), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0)).containsExactly("Jessica", 1L);
+    }
+
+    @Test
+    @DisplayName("Deve contar emprestimos por livro dentro de uma faixa de ids")
+    public void countByBookBetweenIdsTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+
+        List<Object[]> result = repository.countByBookBetweenIds(loan.getId(), loan.getId());
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)).containsExactly(loan.getBook().getId(), 1L, loan.getLoanDate());
+    }
+
+    @Test
+    @DisplayName("Deve obter apenas emprestimos devolvidos anteriores a data limite")
+    public void findReturnedBeforeTest(){
+        Loan returnedLoan = createAndPersistLoan(LocalDate.now().minusDays(400));
+        returnedLoan.setReturned(true);
+        createAndPersistLoan(LocalDate.now().minusDays(400));
+
+        List<Loan> result = repository.findReturnedBefore(LocalDate.now().minusDays(365), PageRequest.of(0, 10));
+
+        assertThat(result).containsExactly(returnedLoan);
+    }
+
+    @Test
+    @DisplayName("Deve marcar varios emprestimos como devolvidos e liberar seus livros em lote")
+    public void updateReturnedInBatchTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        Loan otherLoan = createAndPersistLoan(LocalDate.now());
+        Loan untouchedLoan = createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+
+        List<Long> ids = Arrays.asList(loan.getId(), otherLoan.getId());
+        int updated = repository.updateReturned(ids, true);
+        bookRepository.updateActiveLoanByLoans(ids, false);
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(entityManager.find(Loan.class, loan.getId()).getReturned()).isTrue();
+        assertThat(entityManager.find(Loan.class, otherLoan.getId()).getReturned()).isTrue();
+        assertThat(entityManager.find(Loan.class, untouchedLoan.getId()).getReturned()).isNull();
+        assertThat(entityManager.find(Book.class, loan.getBook().getId()).getActiveLoan()).isFalse();
+        assertThat(entityManager.find(Book.class, untouchedLoan.getBook().getId()).getActiveLoan()).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve preencher o vencimento e normalizar a devolucao de emprestimos antigos")
+    public void backfillDueDateTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now().minusDays(10));
+        Loan otherLoan = createAndPersistLoan(LocalDate.now().minusDays(10));
+        Loan recentLoan = createAndPersistLoan(LocalDate.now());
+        entityManager.flush();
+
+        assertThat(repository.findLoanDatesWithoutDueDate()).containsExactlyInAnyOrder(LocalDate.now().minusDays(10), LocalDate.now());
+        int normalized = repository.updateNullReturned();
+        int migrated = repository.updateDueDate(LocalDate.now().minusDays(10), LocalDate.now().minusDays(6));
+        entityManager.clear();
+
+        assertThat(normalized).isEqualTo(3);
+        assertThat(migrated).isEqualTo(2);
+        assertThat(entityManager.find(Loan.class, otherLoan.getId()).getDueDate()).isEqualTo(LocalDate.now().minusDays(6));
+        assertThat(entityManager.find(Loan.class, recentLoan.getId()).getDueDate()).isNull();
+        assertThat(repository.findOverdue(LocalDate.now())).extracting(Loan::getId).containsExactlyInAnyOrder(loan.getId(), otherLoan.getId());
+    }
+
+    public Loan createAndPersistOpenLoan(LocalDate loanDate){
+        Loan loan = createAndPersistLoan(loanDate);
+        loan.setReturned(false);
+        loan.setDueDate(LoanServiceImpl.dueDate(loanDate));
+        return loan;
+    }
+
     public Loan createAndPersistLoan(LocalDate localDate){
         Book book = createNewBook("123");
         entityManager.persist(book);
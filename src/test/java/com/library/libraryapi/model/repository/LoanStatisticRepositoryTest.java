@@ -0,0 +1,64 @@
+package com.library.libraryapi.model.repository;
+
+import com.library.libraryapi.model.entity.BookLoanStatistic;
+import com.library.libraryapi.model.entity.DailyLoanStatistic;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanStatisticRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookLoanStatisticRepository bookStatisticRepository;
+
+    @Autowired
+    DailyLoanStatisticRepository dailyStatisticRepository;
+
+    @Test
+    @DisplayName("Deve criar o contador do livro zerado apenas quando ele ainda nao existir")
+    public void insertBookStatisticIfAbsentTest(){
+        entityManager.persist(new BookLoanStatistic(1l, 7L, LocalDate.now()));
+        entityManager.flush();
+
+        int existing = bookStatisticRepository.insertIfAbsent(1l);
+        int created = bookStatisticRepository.insertIfAbsent(2l);
+        entityManager.clear();
+
+        assertThat(existing).isZero();
+        assertThat(created).isEqualTo(1);
+        assertThat(entityManager.find(BookLoanStatistic.class, 1l).getTotalLoans()).isEqualTo(7L);
+        assertThat(entityManager.find(BookLoanStatistic.class, 2l).getTotalLoans()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve criar o contador do dia zerado apenas quando ele ainda nao existir")
+    public void insertDailyStatisticIfAbsentTest(){
+        LocalDate today = LocalDate.now();
+        entityManager.persist(new DailyLoanStatistic(today, 3L));
+        entityManager.flush();
+
+        int existing = dailyStatisticRepository.insertIfAbsent(today);
+        int created = dailyStatisticRepository.insertIfAbsent(today.plusDays(1));
+        entityManager.clear();
+
+        assertThat(existing).isZero();
+        assertThat(created).isEqualTo(1);
+        assertThat(entityManager.find(DailyLoanStatistic.class, today).getCheckouts()).isEqualTo(3L);
+        assertThat(entityManager.find(DailyLoanStatistic.class, today.plusDays(1)).getCheckouts()).isZero();
+    }
+}
@@ -0,0 +1,64 @@
+package com.library.libraryapi.model.repository;
+
+import com.library.libraryapi.model.entity.MailSuppression;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class MailSuppressionRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    MailSuppressionRepository repository;
+
+    @Test
+    @DisplayName("Deve considerar envios apenas do proprio dia e bounces/opt-outs de qualquer data")
+    public void findSuppressedTest() {
+        LocalDate today = LocalDate.now();
+        persist("ana@email.com", MailSuppression.Reason.SENT, today);
+        persist("bia@email.com", MailSuppression.Reason.SENT, today.minusDays(1));
+        persist("caio@email.com", MailSuppression.Reason.BOUNCE, today.minusDays(30));
+        persist("davi@email.com", MailSuppression.Reason.OPT_OUT, today.minusDays(300));
+
+        List<String> suppressed = repository.findSuppressed(
+                Arrays.asList("ana@email.com", "bia@email.com", "caio@email.com", "davi@email.com", "eva@email.com"),
+                MailSuppression.Reason.SENT, today);
+
+        assertThat(suppressed).containsExactlyInAnyOrder("ana@email.com", "caio@email.com", "davi@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve apagar apenas os envios de dias anteriores")
+    public void deleteExpiredSentTest() {
+        LocalDate today = LocalDate.now();
+        persist("ana@email.com", MailSuppression.Reason.SENT, today);
+        persist("bia@email.com", MailSuppression.Reason.SENT, today.minusDays(1));
+        persist("caio@email.com", MailSuppression.Reason.BOUNCE, today.minusDays(30));
+
+        int deleted = repository.deleteByReasonBefore(MailSuppression.Reason.SENT, today);
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(repository.findByEmail("bia@email.com")).isEmpty();
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    private void persist(String email, MailSuppression.Reason reason, LocalDate date) {
+        entityManager.persist(MailSuppression.builder().email(email).reason(reason).suppressedAt(date).build());
+    }
+}
@@ -0,0 +1,156 @@
+package com.library.libraryapi.model.repository.specification;
+
+import com.library.libraryapi.api.dto.LoanFilterDTO;
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.library.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanSpecificationTest {
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    Loan openLoan;
+    Loan returnedLoan;
+    Loan otherCustomerLoan;
+
+    @BeforeEach
+    public void setUp(){
+        Book book = createNewBook("123");
+        entityManager.persist(book);
+        Book otherBook = createNewBook("456");
+        entityManager.persist(otherBook);
+
+        openLoan = persistLoan(book, "Jessica", "jessica@email.com", LocalDate.now().minusDays(10), null);
+        returnedLoan = persistLoan(otherBook, "Jessica", "jessica@email.com", LocalDate.now().minusDays(2), true);
+        otherCustomerLoan = persistLoan(otherBook, "Maria", "maria@email.com", LocalDate.now(), false);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar pelo isbn ou pelo customer por padrao")
+    public void anyMatchTest(){
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("123").customer("Maria").build();
+
+        assertThat(find(filter)).containsExactlyInAnyOrder(openLoan, otherCustomerLoan);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar pelo isbn normalizado, informado com separadores ou como ISBN-10")
+    public void normalizedIsbnTest(){
+        Book book = createNewBook("9780132350884");
+        book.setIsbnKey(9780132350884l);
+        entityManager.persist(book);
+        Loan loan = persistLoan(book, "Ana", "ana@email.com", LocalDate.now(), false);
+        LoanFilterDTO hyphenated = LoanFilterDTO.builder().isbn("978-0-13-235088-4").build();
+        LoanFilterDTO isbn10 = LoanFilterDTO.builder().isbn("0-13-235088-2").build();
+
+        assertThat(find(hyphenated)).containsExactly(loan);
+        assertThat(find(isbn10)).containsExactly(loan);
+        assertThat(LoanSpecification.matches(isbn10, loan, LocalDate.now())).isTrue();
+        assertThat(LoanSpecification.matches(isbn10, openLoan, LocalDate.now())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por customer, nao devolvidos e intervalo de datas combinados")
+    public void allMatchTest(){
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .customer("Jessica")
+                .returned(false)
+                .loanDateFrom(LocalDate.now().minusDays(30))
+                .loanDateTo(LocalDate.now())
+                .match(LoanFilterDTO.Match.ALL)
+                .build();
+
+        assertThat(find(filter)).containsExactly(openLoan);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar por email e id do livro")
+    public void emailAndBookIdTest(){
+        LoanFilterDTO filter = LoanFilterDTO.builder()
+                .email("jessica@email.com")
+                .bookId(returnedLoan.getBook().getId())
+                .match(LoanFilterDTO.Match.ALL)
+                .build();
+
+        assertThat(find(filter)).containsExactly(returnedLoan);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar os emprestimos atrasados pelo vencimento")
+    public void overdueTest(){
+        Loan overdueLoan = persistLoan(otherCustomerLoan.getBook(), "Ana", "ana@email.com", LocalDate.now().minusDays(4), false);
+
+        assertThat(find(LoanFilterDTO.builder().overdue(true).build())).containsExactlyInAnyOrder(openLoan, overdueLoan);
+        assertThat(find(LoanFilterDTO.builder().overdue(false).build())).containsExactlyInAnyOrder(returnedLoan, otherCustomerLoan);
+    }
+
+    @Test
+    @DisplayName("Deve filtrar pelo vencimento emprestimos antigos sem returned e sem due_date")
+    public void overdueWithoutDueDateTest(){
+        Book book = otherCustomerLoan.getBook();
+        Loan lateLegacyLoan = entityManager.persist(Loan.builder().book(book).customer("Ana")
+                .loanDate(LocalDate.now().minusDays(Loan.LOAN_DAYS)).build());
+        Loan recentLegacyLoan = entityManager.persist(Loan.builder().book(book).customer("Bia")
+                .loanDate(LocalDate.now().minusDays(Loan.LOAN_DAYS - 1)).build());
+        LoanFilterDTO overdue = LoanFilterDTO.builder().overdue(true).build();
+        LoanFilterDTO notOverdue = LoanFilterDTO.builder().overdue(false).build();
+
+        assertThat(find(overdue)).containsExactlyInAnyOrder(openLoan, lateLegacyLoan);
+        assertThat(find(notOverdue)).containsExactlyInAnyOrder(returnedLoan, otherCustomerLoan, recentLegacyLoan);
+        assertThat(find(overdue)).allMatch(loan -> LoanSpecification.matches(overdue, loan, LocalDate.now()));
+        assertThat(find(notOverdue)).allMatch(loan -> LoanSpecification.matches(notOverdue, loan, LocalDate.now()));
+    }
+
+    @Test
+    @DisplayName("Deve retornar todos os emprestimos quando nenhum filtro for informado")
+    public void emptyFilterTest(){
+        assertThat(find(new LoanFilterDTO())).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("Deve usar os indices de customer e de data de emprestimo")
+    public void indexUsageTest(){
+        assertThat(explain("select * from loan where customer = 'Jessica'")).containsIgnoringCase("idx_loan_customer");
+        assertThat(explain("select * from loan where loan_date >= current_date - 30")).containsIgnoringCase("idx_loan_loan_date");
+        assertThat(explain("select * from loan where id_book = 1 and returned = false")).containsIgnoringCase("idx_loan_book_returned");
+        assertThat(explain("select * from loan where returned = false and due_date <= current_date")).containsIgnoringCase("idx_loan_returned_due_date");
+    }
+
+    private List<Loan> find(LoanFilterDTO filter){
+        return repository.findAll(LoanSpecification.of(filter), PageRequest.of(0, 10)).getContent();
+    }
+
+    private String explain(String sql){
+        return entityManager.getEntityManager().createNativeQuery("explain " + sql).getSingleResult().toString();
+    }
+
+    private Loan persistLoan(Book book, String customer, String email, LocalDate loanDate, Boolean returned){
+        Loan loan = Loan.builder().book(book).customer(customer).customerEmail(email)
+                .loanDate(loanDate).dueDate(LoanServiceImpl.dueDate(loanDate)).returned(returned).build();
+        return entityManager.persist(loan);
+    }
+}
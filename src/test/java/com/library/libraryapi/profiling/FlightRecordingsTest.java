@@ -0,0 +1,120 @@
+package com.library.libraryapi.profiling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FlightRecordingsTest {
+
+    @TempDir
+    Path directory;
+
+    FlightRecordings recordings;
+
+    @AfterEach
+    public void tearDown() {
+        if (recordings != null) {
+            recordings.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar os eventos dos servicos e dos lotes de email e resumir a gravacao")
+    @SuppressWarnings("unchecked")
+    public void recordAndSummarizeTest() throws Exception {
+        recordings = create(true);
+        Catalog catalog = (Catalog) new ProfilingPostProcessor(new String[]{"com.library.libraryapi.profiling"})
+                .postProcessAfterInitialization(new Catalog(), "catalog");
+
+        RecordingInfo started = recordings.start("test", 60L, null);
+        assertThat(started.getState()).isEqualTo("RUNNING");
+        for (int i = 0; i < 100; i++) {
+            catalog.search(i);
+        }
+        MailBatchEvent batch = new MailBatchEvent("memory", 25);
+        batch.begin();
+        batch.commit();
+
+        Map<String, Object> running = recordings.summarize(Long.toString(started.getId()));
+        List<Map<String, Object>> serviceMethods = (List<Map<String, Object>>) running.get("serviceMethods");
+        assertThat(serviceMethods).anySatisfy(method -> {
+            assertThat(method).containsEntry("name", "Catalog.search");
+            assertThat(method).containsEntry("count", 100L);
+        });
+        assertThat((List<Map<String, Object>>) running.get("mailBatches")).anySatisfy(mail -> {
+            assertThat(mail).containsEntry("name", "memory");
+            assertThat(mail).containsEntry("messages", 25L);
+        });
+        assertThat((Map<String, Object>) running.get("packages")).containsKey("com.library.libraryapi");
+
+        RecordingInfo stopped = recordings.stop(started.getId());
+        assertThat(stopped.getState()).isNotEqualTo("RUNNING");
+        assertThat(Files.size(Paths.get(stopped.getFile()))).isPositive();
+        assertThat(Paths.get(stopped.getFile()).getParent()).isEqualTo(directory.toAbsolutePath());
+        assertThat(recordings.summarize(Long.toString(started.getId()))).containsKey("hotMethods");
+
+        //a proxima gravacao fecha a anterior, que continua listada e resumida pelo arquivo
+        recordings.start("next", 60L, null);
+        assertThat(recordings.getRecordings()).filteredOn(info -> info.getId() == started.getId())
+                .extracting(RecordingInfo::getState).containsExactly("CLOSED");
+        assertThat(recordings.summarize(Long.toString(started.getId()))).containsKey("hotMethods");
+
+        assertThat(recordings.getContinuous().getState()).isEqualTo("RUNNING");
+        assertThat(recordings.summarize(FlightRecordings.CONTINUOUS)).containsKeys("allocatingMethods", "allocatedTypes");
+    }
+
+    @Test
+    @DisplayName("Deve recusar gravacoes acima dos limites configurados")
+    public void limitsTest() {
+        recordings = create(false);
+
+        assertThatThrownBy(() -> recordings.start("test", 3600L, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recordings.start("../test", 10L, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recordings.start("test", 10L, "unknown")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recordings.summarize("42")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recordings.summarize(FlightRecordings.CONTINUOUS)).isInstanceOf(IllegalArgumentException.class);
+
+        recordings.start("first", 10L, "default");
+        recordings.start("second", 10L, "default");
+        assertThatThrownBy(() -> recordings.start("third", 10L, "default")).isInstanceOf(IllegalStateException.class);
+        assertThat(recordings.getRecordings()).extracting(RecordingInfo::getName).containsExactly("first", "second");
+    }
+
+    @Test
+    @DisplayName("Deve recusar gravacoes quando o profiling estiver desligado")
+    public void disabledTest() {
+        recordings = new FlightRecordings(false, directory.toString(), true, "default", 10, 16, true, "profile",
+                60, 16, 2, new String[]{"com.library.libraryapi"}, 20);
+
+        assertThat(recordings.isEnabled()).isFalse();
+        assertThat(recordings.getContinuous()).isNull();
+        assertThatThrownBy(() -> recordings.start("test", 10L, null)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private FlightRecordings create(boolean continuous) {
+        return new FlightRecordings(true, directory.toString(), continuous, "default", 10, 16, true, "profile",
+                60, 16, 2, new String[]{"com.library.libraryapi"}, 20);
+    }
+
+    public static class Catalog {
+
+        public List<String> search(int page) {
+            List<String> titles = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                titles.add("title-" + page + "-" + i);
+            }
+            return titles;
+        }
+    }
+}
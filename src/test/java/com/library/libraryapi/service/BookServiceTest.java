@@ -3,25 +3,43 @@ package com.library.libraryapi.service;
 import com.library.libraryapi.exception.BusinessException;
 import com.library.libraryapi.model.entity.Book;
 import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.service.event.ChangeEvent;
 import com.library.libraryapi.service.impl.BookServiceImpl;
+import com.library.libraryapi.service.support.Isbn;
+import com.library.libraryapi.service.support.IsbnIndex;
+import com.library.libraryapi.service.support.IsbnKeyBackfill;
 import net.minidev.json.JSONUtil;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -35,9 +53,18 @@ public class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    IsbnIndex isbnIndex;
+
+    @MockBean
+    IsbnKeyBackfill isbnKeyBackfill;
+
+    ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
     @BeforeEach
     public void setUp() {
-        this.service = new BookServiceImpl(repository);
+        this.service = new BookServiceImpl(repository, isbnIndex, isbnKeyBackfill, eventPublisher);
+        when(isbnKeyBackfill.isComplete()).thenReturn(true);
     }
 
     @Test
@@ -130,6 +157,8 @@ public class BookServiceTest {
 
         //verificacao
         Mockito.verify(repository, Mockito.times(1)).delete(book);
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<Object>argThat(event ->
+                ((ChangeEvent) event).getType() == ChangeEvent.Type.BOOK_DELETED && ((ChangeEvent) event).getEntityId() == 1l));
     }
 
 
@@ -182,6 +211,9 @@ public class BookServiceTest {
         assertThat(book.getTitle()).isEqualTo(updateBook.getTitle());
         assertThat(book.getIsbn()).isEqualTo(updateBook.getIsbn());
         assertThat(book.getAuthor()).isEqualTo(updateBook.getAuthor());
+        Mockito.verify(eventPublisher).publishEvent(Mockito.<Object>argThat(event ->
+                ((ChangeEvent) event).getType() == ChangeEvent.Type.BOOK_UPDATED
+                        && updateBook.getTitle().equals(((ChangeEvent) event).getData().get("title"))));
 
     }
 
@@ -208,6 +240,23 @@ public class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve ordenar livros por popularidade pelo contador de emprestimos.")
+    public void findBookByPopularityTest(){
+        Book book = createValidBook();
+        PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("popularity"));
+
+        when(repository.findAll(Mockito.any(Example.class), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<Book>(Arrays.asList(book), pageRequest, 1));
+
+        service.find(book, pageRequest);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(repository).findAll(Mockito.any(Example.class), pageable.capture());
+        assertThat(pageable.getValue().getSort().getOrderFor("totalLoans").getDirection()).isEqualTo(Sort.Direction.DESC);
+        assertThat(pageable.getValue().getSort().getOrderFor("popularity")).isNull();
+    }
+
     @Test
     @DisplayName("Deve obter um livro pelo isbn")
     public void getBookByIsbnTest(){
@@ -223,4 +272,187 @@ public class BookServiceTest {
         verify(repository,times( 1)).findByIsbn(isbn);
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Deve obter pelo isbn original um livro antigo enquanto o backfill da chave nao terminou")
+    public void getBookByIsbnBeforeBackfillTest(){
+        String isbn = "978-0-13-235088-4";
+        when(isbnKeyBackfill.isComplete()).thenReturn(false);
+        when(repository.findByIsbnKey(9780132350884l)).thenReturn(Optional.empty());
+        when(repository.findByIsbn(isbn)).thenReturn(Optional.of(Book.builder().id(1l).isbn(isbn).build()));
+
+        Optional<Book> book = service.getBookByIsbn(isbn);
+
+        assertThat(book.isPresent()).isTrue();
+        assertThat(book.get().getId()).isEqualTo(1l);
+    }
+
+    @Test
+    @DisplayName("Deve buscar por trecho de isbn com separadores como o isbn e gravado")
+    public void findBookByPartialIsbnTest(){
+        Book filter = Book.builder().isbn("978-0-13").build();
+        when(repository.findAll(Mockito.any(Example.class), Mockito.any(Pageable.class)))
+                .thenReturn(new PageImpl<Book>(Arrays.asList()));
+
+        service.find(filter, PageRequest.of(0, 10));
+
+        assertThat(filter.getIsbn()).isEqualTo("978013");
+        assertThat(Isbn.normalizeSearch("0-13-235088-2")).isEqualTo("9780132350884");
+        assertThat(Isbn.normalizeSearch("abc-1")).isEqualTo("abc-1");
+    }
+
+    @Test
+    @DisplayName("Deve obter um livro pelo isbn atraves do indice, sem consultar o isbn no banco")
+    public void getBookByIsbnFromIndexTest(){
+        String isbn = "978-0-13-235088-4";
+        when(isbnIndex.covers(isbn)).thenReturn(true);
+        when(isbnIndex.find(isbn)).thenReturn(OptionalLong.of(1l));
+        when(repository.findById(1l)).thenReturn(Optional.of(Book.builder().id(1l).isbn(isbn).build()));
+
+        Optional<Book> book = service.getBookByIsbn(isbn);
+
+        assertThat(book.isPresent()).isTrue();
+        verify(repository, never()).findByIsbn(isbn);
+    }
+
+    @Test
+    @DisplayName("Deve confirmar no banco o isbn ausente do indice, gravado por outra instancia")
+    public void getBookByIsbnMissingFromIndexTest(){
+        String isbn = "9780132350884";
+        when(isbnIndex.covers(isbn)).thenReturn(true);
+        when(isbnIndex.find(isbn)).thenReturn(OptionalLong.empty());
+        when(repository.findByIsbnKey(9780132350884l)).thenReturn(Optional.of(Book.builder().id(2l).build()));
+
+        assertThat(service.getBookByIsbn(isbn).get().getId()).isEqualTo(2l);
+        verify(repository, never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve alterar o indice de isbn apenas depois do commit")
+    public void indexChangesAfterCommitTest(){
+        Book book = createValidBook();
+        book.setIsbn("9780132350884");
+        when(repository.save(book)).thenReturn(Book.builder().id(1l).isbn("9780132350884").build());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.save(book);
+            verify(isbnIndex, never()).put(Mockito.anyLong(), Mockito.anyLong());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(isbnIndex).put(9780132350884l, 1l);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.delete(Book.builder().id(1l).isbn("9780132350884").build());
+            //exclusao barrada no commit pela chave estrangeira dos emprestimos
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            verify(isbnIndex, never()).remove(Mockito.anyString());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve registrar o isbn no indice ao salvar um livro")
+    public void saveBookIndexesIsbnTest(){
+        Book book = createValidBook();
+        book.setIsbn("9780132350884");
+        when(isbnIndex.covers(book.getIsbn())).thenReturn(true);
+        when(isbnIndex.find(book.getIsbn())).thenReturn(OptionalLong.empty());
+        when(repository.save(book)).thenReturn(Book.builder().id(1l).isbn("9780132350884").build());
+
+        service.save(book);
+
+        verify(repository, never()).existsByIsbn(Mockito.anyString());
+        verify(repository, never()).existsByIsbnKey(Mockito.anyLong());
+        verify(isbnIndex).put(9780132350884l, 1l);
+    }
+
+    @Test
+    @DisplayName("Deve salvar o livro cujo isbn ficou no indice depois de excluido por outra instancia")
+    public void saveBookStaleIndexTest(){
+        Book book = createValidBook();
+        book.setIsbn("9780132350884");
+        when(isbnIndex.covers(book.getIsbn())).thenReturn(true);
+        when(isbnIndex.find(book.getIsbn())).thenReturn(OptionalLong.of(7l));
+        when(repository.existsByIsbnKey(9780132350884l)).thenReturn(false);
+        when(repository.save(book)).thenReturn(Book.builder().id(1l).isbn("9780132350884").build());
+
+        assertThat(service.save(book).getId()).isEqualTo(1l);
+        verify(isbnIndex).put(9780132350884l, 1l);
+    }
+
+    @Test
+    @DisplayName("Deve salvar o isbn normalizado para ISBN-13 junto com a chave numerica")
+    public void saveBookNormalizesIsbnTest(){
+        Book book = createValidBook();
+        book.setIsbn("0-13-235088-2");
+        when(repository.existsByIsbnKey(9780132350884l)).thenReturn(false);
+        when(repository.save(book)).thenReturn(Book.builder().id(1l).isbn("9780132350884").isbnKey(9780132350884l).build());
+
+        service.save(book);
+
+        assertThat(book.getIsbn()).isEqualTo("9780132350884");
+        assertThat(book.getIsbnKey()).isEqualTo(9780132350884l);
+        verify(repository, never()).existsByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro de negocio quando o indice unico barrar um isbn cadastrado em paralelo")
+    public void saveBookConcurrentDuplicatedIsbnTest(){
+        Book book = createValidBook();
+        book.setIsbn("9780132350884");
+        when(repository.save(book)).thenThrow(new DataIntegrityViolationException("idx_book_isbn_key"));
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn ja cadastrado.");
+        verify(isbnIndex, never()).put(Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve buscar pela chave numerica quando o indice em memoria nao estiver carregado")
+    public void getBookByIsbnKeyTest(){
+        when(repository.findByIsbnKey(9780132350884l)).thenReturn(Optional.of(Book.builder().id(1l).build()));
+
+        assertThat(service.getBookByIsbn("978-0-13-235088-4").isPresent()).isTrue();
+        verify(repository, never()).findByIsbn(Mockito.anyString());
+    }
+
+    @Test
+    @DisplayName("Deve compartilhar uma unica consulta entre buscas concorrentes pelo mesmo livro")
+    public void getByIdThunderingHerdTest() throws Exception {
+        Long id = 1l;
+        Book book = createValidBook();
+        book.setId(id);
+        AtomicInteger queries = new AtomicInteger();
+        when(repository.findById(id)).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            Thread.sleep(300);
+            return Optional.of(book);
+        });
+
+        int clients = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Book>>> results = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return service.getById(id);
+            }));
+        }
+        start.countDown();
+
+        for (Future<Optional<Book>> result : results) {
+            assertThat(result.get().get().getIsbn()).isEqualTo(book.getIsbn());
+        }
+        executor.shutdown();
+
+        assertThat(queries.get()).isLessThan(5);
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.service.impl.EmailServiceImpl;
+import com.library.libraryapi.service.notification.InMemoryMailTransport;
+import com.library.libraryapi.service.notification.MailMessage;
+import com.library.libraryapi.service.notification.MailTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class EmailServiceTest {
+
+    InMemoryMailTransport transport;
+
+    MeterRegistry registry;
+
+    EmailService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        transport = spy(new InMemoryMailTransport(100));
+        registry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(registry);
+        service = new EmailServiceImpl(transport, 2, provider);
+    }
+
+    @Test
+    @DisplayName("Deve entregar as mensagens ao transporte em lotes do tamanho configurado")
+    public void sendInBatchesTest() {
+        List<MailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            messages.add(new MailMessage("cliente" + i + "@email.com", "Atraso", "texto"));
+        }
+
+        service.send(messages);
+
+        verify(transport, times(3)).send(anyList());
+        assertThat(transport.getSentCount()).isEqualTo(5);
+        assertThat(registry.get("library.mail.sent").tag("transport", "memory").counter().count()).isEqualTo(5);
+        assertThat(registry.get("library.mail.batch").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve enviar a mensagem fixa separadamente para cada endereco")
+    public void sendMailsTest() {
+        service.sendMails("Devolva o livro", Arrays.asList("ana@email.com", "bia@email.com"));
+
+        assertThat(transport.getRecent()).extracting(MailMessage::getTo).containsExactly("ana@email.com", "bia@email.com");
+        assertThat(transport.getRecent()).extracting(MailMessage::getText).containsOnly("Devolva o livro");
+    }
+
+    @Test
+    @DisplayName("Nao deve chamar o transporte sem mensagens")
+    public void sendNothingTest() {
+        MailTransport mockTransport = mock(MailTransport.class);
+        when(mockTransport.name()).thenReturn("mock");
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(registry);
+
+        new EmailServiceImpl(mockTransport, 2, provider).send(new ArrayList<>());
+
+        verify(mockTransport, never()).send(anyList());
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.entity.LoanHistory;
+import com.library.libraryapi.model.repository.LoanHistoryRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.impl.LoanArchiveServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanArchiveServiceTest {
+
+    LoanArchiveService service;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    LoanHistoryRepository historyRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new LoanArchiveServiceImpl(loanRepository, historyRepository, transactionManager);
+        ReflectionTestUtils.setField(service, "afterDays", 365);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Deve mover emprestimos devolvidos antigos para o historico em lotes")
+    @SuppressWarnings("unchecked")
+    public void archiveInBatchesTest(){
+        List<Loan> firstBatch = Arrays.asList(createReturnedLoan(1l), createReturnedLoan(2l));
+        List<Loan> lastBatch = Collections.singletonList(createReturnedLoan(3l));
+        when(loanRepository.findReturnedBefore(Mockito.any(LocalDate.class), Mockito.any(Pageable.class)))
+                .thenReturn(firstBatch, lastBatch);
+
+        int archived = service.archiveReturnedLoans();
+
+        assertThat(archived).isEqualTo(3);
+        ArgumentCaptor<Iterable<LoanHistory>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(historyRepository, times(2)).saveAll(saved.capture());
+        assertThat(saved.getAllValues().get(0)).extracting(LoanHistory::getId).containsExactly(1l, 2l);
+        verify(loanRepository).deleteInBatch(firstBatch);
+        verify(loanRepository).deleteInBatch(lastBatch);
+    }
+
+    @Test
+    @DisplayName("Deve usar a data limite de arquivamento configurada")
+    public void archiveCutoffTest(){
+        when(loanRepository.findReturnedBefore(Mockito.any(LocalDate.class), Mockito.any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        assertThat(service.archiveReturnedLoans()).isEqualTo(0);
+
+        verify(loanRepository).findReturnedBefore(Mockito.eq(LocalDate.now().minusDays(365)), Mockito.any(Pageable.class));
+        verify(loanRepository, never()).deleteInBatch(Mockito.any());
+    }
+
+    private Loan createReturnedLoan(Long id){
+        Loan loan = LoanServiceTest.createLoan();
+        loan.setId(id);
+        loan.setReturned(true);
+        return loan;
+    }
+}
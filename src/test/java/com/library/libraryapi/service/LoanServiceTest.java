@@ -5,23 +5,35 @@ import com.library.libraryapi.api.dto.LoanFilterDTO;
 import com.library.libraryapi.exception.BusinessException;
 import com.library.libraryapi.model.entity.Book;
 import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.entity.LoanHistory;
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.LoanHistoryRepository;
 import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.audit.AuditLog;
+import com.library.libraryapi.service.audit.AuditRecord;
+import com.library.libraryapi.service.event.ChangeEvent;
 import com.library.libraryapi.service.impl.LoanServiceImpl;
+import com.library.libraryapi.service.support.LoanReturnQueue;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -39,9 +51,28 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanHistoryRepository historyRepository;
+
+    @MockBean
+    ReportService reportService;
+
+    @MockBean
+    LoanReturnQueue returnQueue;
+
+    ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    @MockBean
+    AuditLog auditLog;
+
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, bookRepository, historyRepository, reportService, returnQueue,
+                eventPublisher, auditLog);
+        when(returnQueue.isEmpty()).thenReturn(true);
     }
 
     @Test
@@ -70,6 +101,29 @@ public class LoanServiceTest {
         assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+
+        verify(reportService).registerLoan(savedLoan);
+        verify(bookRepository).registerLoan(book.getId(), savedLoan.getLoanDate());
+        verify(auditLog).record(AuditRecord.Action.CHECKOUT, savedLoan);
+        verify(eventPublisher).publishEvent(Mockito.<Object>argThat(event ->
+                ((ChangeEvent) event).getType() == ChangeEvent.Type.LOAN_CREATED
+                        && Long.valueOf(1l).equals(((ChangeEvent) event).getData().get("bookId"))));
+    }
+
+    @Test
+    @DisplayName("Deve definir o vencimento e marcar como nao devolvido ao salvar um emprestimo")
+    public void saveLoanDueDateTest(){
+        Book book = Book.builder().id(1l).build();
+        LocalDate loanDate = LocalDate.of(2020, 1, 30);
+        Loan savingLoan = Loan.builder().book(book).customer("Jessica").loanDate(loanDate).build();
+        when(repository.save(savingLoan)).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Loan loan = service.save(savingLoan);
+
+        assertThat(loan.getDueDate()).isEqualTo(LocalDate.of(2020, 2, 3));
+        assertThat(loan.getReturned()).isFalse();
+        assertThat(loan.isOverdue(LocalDate.of(2020, 2, 2))).isFalse();
+        assertThat(loan.isOverdue(LocalDate.of(2020, 2, 3))).isTrue();
     }
 
     @Test
@@ -92,6 +146,7 @@ public class LoanServiceTest {
                 .hasMessage("Book already loaned");
 
         verify(repository, never()).save(savingLoan);
+        verify(reportService, never()).registerLoan(Mockito.any(Loan.class));
     }
 
     @Test
@@ -132,6 +187,88 @@ public class LoanServiceTest {
 
         assertThat(updatedLoan.getReturned()).isTrue();
         verify(repository).save(loan);
+        verify(bookRepository).updateActiveLoan(loan.getBook().getId(), false);
+        verify(auditLog).record(AuditRecord.Action.RETURN, loan);
+    }
+
+    @Test
+    @DisplayName("Deve confirmar a devolucao pelo write-behind sem gravar no banco.")
+    public void updateLoanWriteBehindTest(){
+        Loan loan  = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        when(returnQueue.offer(1l, true)).thenReturn(true);
+
+        Loan updatedLoan = service.update(loan);
+
+        assertThat(updatedLoan.getReturned()).isTrue();
+        verify(repository, never()).save(loan);
+        verify(bookRepository, never()).updateActiveLoan(anyLong(), anyBoolean());
+        verify(auditLog).record(AuditRecord.Action.RETURN, loan);
+    }
+
+    @Test
+    @DisplayName("Deve enxergar a devolucao pendente no write-behind ao obter o emprestimo.")
+    public void getLoanWithPendingReturnTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        when(repository.findById(1l)).thenReturn(Optional.of(loan));
+        when(returnQueue.pendingReturned(1l)).thenReturn(Optional.of(true));
+
+        Optional<Loan> result = service.getById(1l);
+
+        assertThat(result.get().getReturned()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve emprestar o livro cuja devolucao esta pendente no write-behind sem esperar o flush.")
+    public void saveLoanWithPendingReturnTest(){
+        Loan loan = createLoan();
+        when(returnQueue.isEmpty()).thenReturn(false);
+        when(repository.findIdsByBookAndNotReturned(loan.getBook())).thenReturn(Arrays.asList(7l));
+        when(returnQueue.pendingReturned(7l)).thenReturn(Optional.of(true));
+        when(repository.save(loan)).thenReturn(Loan.builder().id(1l).book(loan.getBook()).loanDate(loan.getLoanDate()).build());
+
+        service.save(loan);
+
+        verify(repository).save(loan);
+        verify(returnQueue, never()).flush();
+    }
+
+    @Test
+    @DisplayName("Deve recusar o emprestimo quando o emprestimo em aberto nao tiver devolucao pendente.")
+    public void saveLoanWithoutPendingReturnTest(){
+        Loan loan = createLoan();
+        when(returnQueue.isEmpty()).thenReturn(false);
+        when(repository.findIdsByBookAndNotReturned(loan.getBook())).thenReturn(Arrays.asList(7l));
+        when(returnQueue.pendingReturned(7l)).thenReturn(Optional.empty());
+
+        Throwable exception = catchThrowable(() -> service.save(loan));
+
+        assertThat(exception).isInstanceOf(BusinessException.class);
+        verify(repository, never()).save(loan);
+    }
+
+    @Test
+    @DisplayName("Deve tirar do filtro de nao devolvidos o emprestimo com devolucao pendente, sem alterar a entidade.")
+    public void findLoanWithPendingReturnTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(false);
+        Loan otherLoan = createLoan();
+        otherLoan.setId(2l);
+        otherLoan.setReturned(false);
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findAll(Mockito.any(Specification.class), Mockito.any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(loan, otherLoan), pageRequest, 2));
+        when(returnQueue.isEmpty()).thenReturn(false);
+        when(returnQueue.pendingReturned(1l)).thenReturn(Optional.of(true));
+
+        Page<Loan> result = service.find(LoanFilterDTO.builder().returned(false).build(), pageRequest);
+
+        assertThat(result.getContent()).containsExactly(otherLoan);
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(loan.getReturned()).isFalse();
     }
 
     @Test
@@ -151,7 +288,7 @@ public class LoanServiceTest {
         List<Loan> lista = Arrays.asList(loan);
 
         Page<Loan> page = new PageImpl<Loan>(lista,pageRequest ,lista.size());
-        when(repository.findByBookIsbnOrCustomer(Mockito.anyString(),Mockito.anyString(), Mockito.any(PageRequest.class)))
+        when(repository.findAll(Mockito.any(Specification.class), Mockito.any(PageRequest.class)))
                 .thenReturn(page);
 
         //execucao
@@ -164,6 +301,47 @@ public class LoanServiceTest {
         Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve completar a pagina de emprestimos do livro com o historico arquivado")
+    public void getLoansByBookWithArchiveTest(){
+        Book book = Book.builder().id(1l).build();
+        Loan hotLoan = createLoan();
+        hotLoan.setId(3l);
+        LoanHistory archivedLoan = LoanHistory.builder().id(1l).book(book).customer("Maria").returned(true).build();
+
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findByBook(book, pageRequest)).thenReturn(new PageImpl<>(Arrays.asList(hotLoan), pageRequest, 1));
+        when(historyRepository.countByBook(book)).thenReturn(1L);
+        when(historyRepository.findByBook(Mockito.eq(book), Mockito.any(Pageable.class))).thenReturn(Arrays.asList(archivedLoan));
+
+        Page<Loan> result = service.getLoansByBook(book, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(Loan::getId).containsExactly(3l, 1l);
+
+        ArgumentCaptor<Pageable> archivedPage = ArgumentCaptor.forClass(Pageable.class);
+        verify(historyRepository).findByBook(Mockito.eq(book), archivedPage.capture());
+        assertThat(archivedPage.getValue().getOffset()).isEqualTo(0);
+        assertThat(archivedPage.getValue().getPageSize()).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Deve buscar no historico com o deslocamento alem dos emprestimos ativos")
+    public void getLoansByBookArchiveOffsetTest(){
+        Book book = Book.builder().id(1l).build();
+        PageRequest pageRequest = PageRequest.of(2, 10);
+        when(repository.findByBook(book, pageRequest)).thenReturn(new PageImpl<>(new ArrayList<>(), pageRequest, 15));
+        when(historyRepository.countByBook(book)).thenReturn(30L);
+
+        Page<Loan> result = service.getLoansByBook(book, pageRequest);
+
+        assertThat(result.getTotalElements()).isEqualTo(45);
+        ArgumentCaptor<Pageable> archivedPage = ArgumentCaptor.forClass(Pageable.class);
+        verify(historyRepository).findByBook(Mockito.eq(book), archivedPage.capture());
+        assertThat(archivedPage.getValue().getOffset()).isEqualTo(5);
+        assertThat(archivedPage.getValue().getPageSize()).isEqualTo(10);
+    }
+
     public static Loan createLoan(){
         Book book = Book.builder().id(1l).build();
         String customer = "Jessica";
@@ -0,0 +1,155 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.exception.BusinessException;
+import com.library.libraryapi.model.entity.MailSuppression;
+import com.library.libraryapi.model.repository.MailSuppressionRepository;
+import com.library.libraryapi.service.impl.MailSuppressionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class MailSuppressionServiceTest {
+
+    MailSuppressionServiceImpl service;
+
+    @MockBean
+    MailSuppressionRepository repository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        service = new MailSuppressionServiceImpl(repository, transactionManager, 1000);
+    }
+
+    @Test
+    @DisplayName("Deve consultar no banco apenas os emails que passam pelo filtro de Bloom")
+    public void findSuppressedWithFilterTest() {
+        when(repository.count()).thenReturn(1l);
+        when(repository.streamEmails()).thenReturn(Stream.of("ana@email.com"));
+        service.load();
+        LocalDate today = LocalDate.now();
+        when(repository.findSuppressed(anyCollection(), eq(MailSuppression.Reason.SENT), eq(today)))
+                .thenReturn(Collections.singletonList("ana@email.com"));
+
+        Set<String> suppressed = service.findSuppressed(Arrays.asList("ana@email.com", "bia@email.com"), today);
+
+        assertThat(suppressed).containsExactly("ana@email.com");
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).findSuppressed(captor.capture(), eq(MailSuppression.Reason.SENT), eq(today));
+        assertThat(captor.getValue()).containsExactly("ana@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve consultar todos os emails no banco antes do filtro ser carregado")
+    public void findSuppressedWithoutFilterTest() {
+        LocalDate today = LocalDate.now();
+
+        service.findSuppressed(Arrays.asList("ana@email.com", "bia@email.com"), today);
+
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).findSuppressed(captor.capture(), eq(MailSuppression.Reason.SENT), eq(today));
+        assertThat(captor.getValue()).containsExactly("ana@email.com", "bia@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve registrar os envios do dia sem sobrescrever bounces e opt-outs")
+    public void markSentTest() {
+        LocalDate today = LocalDate.now();
+        MailSuppression sentYesterday = MailSuppression.builder().id(1l).email("ana@email.com")
+                .reason(MailSuppression.Reason.SENT).suppressedAt(today.minusDays(1)).build();
+        MailSuppression bounce = MailSuppression.builder().id(2l).email("bia@email.com")
+                .reason(MailSuppression.Reason.BOUNCE).suppressedAt(today.minusDays(10)).build();
+        List<String> emails = Arrays.asList("ana@email.com", "bia@email.com", "caio@email.com");
+        when(repository.findByEmailIn(emails)).thenReturn(Arrays.asList(sentYesterday, bounce));
+
+        service.markSent(emails, today);
+
+        ArgumentCaptor<List<MailSuppression>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).saveAll(captor.capture());
+        assertThat(captor.getValue()).extracting(MailSuppression::getEmail).containsExactly("ana@email.com", "caio@email.com");
+        assertThat(captor.getValue()).allMatch(suppression -> today.equals(suppression.getSuppressedAt()));
+        assertThat(bounce.getReason()).isEqualTo(MailSuppression.Reason.BOUNCE);
+    }
+
+    @Test
+    @DisplayName("Deve refazer o registro dos envios quando outro envio incluir o mesmo email antes")
+    public void markSentConcurrentInsertTest() {
+        LocalDate today = LocalDate.now();
+        MailSuppression inserted = MailSuppression.builder().id(1l).email("ana@email.com")
+                .reason(MailSuppression.Reason.SENT).suppressedAt(today).build();
+        List<String> emails = Collections.singletonList("ana@email.com");
+        when(repository.findByEmailIn(emails)).thenReturn(Collections.emptyList(), Collections.singletonList(inserted));
+        when(repository.saveAll(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("uk_mail_suppression_email"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.markSent(emails, today);
+
+        ArgumentCaptor<List<MailSuppression>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository, times(2)).saveAll(captor.capture());
+        assertThat(captor.getValue()).containsExactly(inserted);
+    }
+
+    @Test
+    @DisplayName("Deve manter no filtro recarregado o email suprimido durante a recarga")
+    public void suppressDuringLoadTest() {
+        LocalDate today = LocalDate.now();
+        when(repository.count()).thenReturn(1l);
+        when(repository.save(Mockito.any(MailSuppression.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        //a supressao e gravada depois da leitura ter comecado e nao aparece nela
+        when(repository.streamEmails()).thenReturn(Stream.of("ana@email.com")
+                .peek(email -> service.suppress("bia@email.com", MailSuppression.Reason.BOUNCE)));
+        service.load();
+
+        service.findSuppressed(Collections.singletonList("bia@email.com"), today);
+
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repository).findSuppressed(captor.capture(), eq(MailSuppression.Reason.SENT), eq(today));
+        assertThat(captor.getValue()).containsExactly("bia@email.com");
+    }
+
+    @Test
+    @DisplayName("Deve suprimir o email normalizado")
+    public void suppressTest() {
+        when(repository.findByEmail("ana@email.com")).thenReturn(Optional.empty());
+        when(repository.save(Mockito.any(MailSuppression.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MailSuppression suppression = service.suppress(" Ana@Email.COM ", MailSuppression.Reason.OPT_OUT);
+
+        assertThat(suppression.getEmail()).isEqualTo("ana@email.com");
+        assertThat(suppression.getReason()).isEqualTo(MailSuppression.Reason.OPT_OUT);
+    }
+
+    @Test
+    @DisplayName("Deve lancar erro de negocio ao suprimir um email invalido")
+    public void suppressInvalidEmailTest() {
+        Throwable exception = catchThrowable(() -> service.suppress("sem-arroba", MailSuppression.Reason.BOUNCE));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Email invalido.");
+        verify(repository, never()).save(Mockito.any());
+    }
+}
@@ -0,0 +1,190 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.api.dto.BookLoanCountDTO;
+import com.library.libraryapi.model.entity.BookLoanStatistic;
+import com.library.libraryapi.model.entity.DailyLoanStatistic;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.model.repository.BookLoanStatisticRepository;
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.DailyLoanStatisticRepository;
+import com.library.libraryapi.model.repository.LoanHistoryRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.impl.ReportServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ReportServiceTest {
+
+    ReportService service;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    LoanHistoryRepository historyRepository;
+
+    @MockBean
+    BookLoanStatisticRepository bookStatisticRepository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    DailyLoanStatisticRepository dailyStatisticRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new ReportServiceImpl(loanRepository, historyRepository, bookStatisticRepository,
+                bookRepository, dailyStatisticRepository, transactionManager);
+        ReflectionTestUtils.setField(service, "chunkSize", 2L);
+    }
+
+    @Test
+    @DisplayName("Deve incrementar os contadores existentes ao registrar um emprestimo")
+    public void registerLoanIncrementTest(){
+        Loan loan = LoanServiceTest.createLoan();
+        when(bookStatisticRepository.incrementTotalLoans(1l, loan.getLoanDate())).thenReturn(1);
+        when(dailyStatisticRepository.incrementCheckouts(loan.getLoanDate())).thenReturn(1);
+
+        service.registerLoan(loan);
+
+        verify(bookStatisticRepository, never()).save(Mockito.any(BookLoanStatistic.class));
+        verify(dailyStatisticRepository, never()).save(Mockito.any(DailyLoanStatistic.class));
+    }
+
+    @Test
+    @DisplayName("Deve criar os contadores no primeiro emprestimo do livro e do dia na mesma transacao")
+    public void registerFirstLoanTest(){
+        Loan loan = LoanServiceTest.createLoan();
+        when(bookStatisticRepository.incrementTotalLoans(1l, loan.getLoanDate())).thenReturn(0, 1);
+        when(dailyStatisticRepository.incrementCheckouts(loan.getLoanDate())).thenReturn(0, 1);
+
+        service.registerLoan(loan);
+
+        verify(bookStatisticRepository).insertIfAbsent(1l);
+        verify(bookStatisticRepository, times(2)).incrementTotalLoans(1l, loan.getLoanDate());
+        verify(dailyStatisticRepository).insertIfAbsent(loan.getLoanDate());
+        verify(dailyStatisticRepository, times(2)).incrementCheckouts(loan.getLoanDate());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Deve falhar quando o contador criado ainda nao puder ser incrementado")
+    public void registerLoanWithoutStatisticTest(){
+        Loan loan = LoanServiceTest.createLoan();
+        when(bookStatisticRepository.incrementTotalLoans(1l, loan.getLoanDate())).thenReturn(0);
+
+        Throwable exception = catchThrowable(() -> service.registerLoan(loan));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        verify(bookStatisticRepository).insertIfAbsent(1l);
+        verify(dailyStatisticRepository, never()).incrementCheckouts(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve preparar os contadores de hoje e de amanha")
+    public void prepareDailyStatisticsTest(){
+        ((ReportServiceImpl) service).prepareDailyStatistics();
+
+        verify(dailyStatisticRepository).insertIfAbsent(LocalDate.now());
+        verify(dailyStatisticRepository).insertIfAbsent(LocalDate.now().plusDays(1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar zero emprestimos para um livro sem estatistica")
+    public void loanCountWithoutStatisticTest(){
+        when(bookStatisticRepository.findById(1l)).thenReturn(Optional.empty());
+
+        assertThat(service.getLoanCountByBook(1l)).isEqualTo(0L);
+    }
+
+    @Test
+    @DisplayName("Deve obter os livros mais emprestados")
+    public void topBorrowedBooksTest(){
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        List<Object[]> rows = Collections.singletonList(new Object[]{1l, "As aventuras", "123", 5L});
+        when(bookStatisticRepository.findTopBorrowed(pageRequest)).thenReturn(new PageImpl<>(rows, pageRequest, 1));
+
+        Page<BookLoanCountDTO> result = service.getTopBorrowedBooks(pageRequest);
+
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).getTotalLoans()).isEqualTo(5L);
+        assertThat(result.getContent().get(0).getIsbn()).isEqualTo("123");
+    }
+
+    @Test
+    @DisplayName("Deve reconstruir as estatisticas num snapshot somando o que mudou depois dele")
+    public void rebuildTest(){
+        LocalDate today = LocalDate.now();
+        when(loanRepository.findMinId()).thenReturn(1l);
+        when(loanRepository.findMaxId()).thenReturn(4l);
+        when(historyRepository.findMinId()).thenReturn(5l);
+        when(historyRepository.findMaxId()).thenReturn(6l);
+        when(historyRepository.countByBookBetweenIds(5l, 6l))
+                .thenReturn(Collections.singletonList(new Object[]{4l, 1L, today.minusDays(1)}));
+        when(loanRepository.countByBookBetweenIds(Mockito.anyLong(), Mockito.anyLong()))
+                .thenReturn(Collections.singletonList(new Object[]{1l, 2L, today}));
+        when(loanRepository.countByLoanDateBetweenIds(Mockito.anyLong(), Mockito.anyLong()))
+                .thenReturn(Collections.singletonList(new Object[]{today, 2L}));
+        //contadores no snapshot
+        when(bookStatisticRepository.findAll()).thenReturn(Arrays.asList(
+                new BookLoanStatistic(1l, 5L, today), new BookLoanStatistic(2l, 9L, today.minusDays(10))));
+        when(dailyStatisticRepository.findAll()).thenReturn(Collections.singletonList(new DailyLoanStatistic(today, 3L)));
+        //contadores na troca: um emprestimo do livro 1 e dois do livro 3 confirmados depois do snapshot
+        BookLoanStatistic first = new BookLoanStatistic(1l, 6L, today);
+        BookLoanStatistic stale = new BookLoanStatistic(2l, 9L, today.minusDays(10));
+        BookLoanStatistic created = new BookLoanStatistic(3l, 2L, today);
+        BookLoanStatistic archived = new BookLoanStatistic(4l, 0L, null);
+        when(bookStatisticRepository.findAllForUpdate()).thenReturn(Arrays.asList(first, stale, created, archived));
+        DailyLoanStatistic daily = new DailyLoanStatistic(today, 4L);
+        when(dailyStatisticRepository.findAllForUpdate()).thenReturn(Collections.singletonList(daily));
+
+        service.rebuild();
+
+        verify(transactionManager).getTransaction(Mockito.argThat(definition -> definition != null
+                && definition.getIsolationLevel() == TransactionDefinition.ISOLATION_SERIALIZABLE && definition.isReadOnly()));
+        verify(loanRepository).countByBookBetweenIds(1l, 2l);
+        verify(loanRepository).countByBookBetweenIds(3l, 4l);
+        verify(historyRepository).countByBookBetweenIds(5l, 6l);
+        verify(bookStatisticRepository).insertIfAbsent(4l);
+        verify(bookStatisticRepository, never()).insertIfAbsent(1l);
+        verify(dailyStatisticRepository, never()).insertIfAbsent(Mockito.any());
+        assertThat(first.getTotalLoans()).isEqualTo(7L);
+        assertThat(first.getLastLoanDate()).isEqualTo(today);
+        assertThat(stale.getTotalLoans()).isEqualTo(0L);
+        assertThat(stale.getLastLoanDate()).isNull();
+        assertThat(created.getTotalLoans()).isEqualTo(2L);
+        assertThat(created.getLastLoanDate()).isEqualTo(today);
+        assertThat(archived.getTotalLoans()).isEqualTo(1L);
+        assertThat(archived.getLastLoanDate()).isEqualTo(today.minusDays(1));
+        assertThat(daily.getCheckouts()).isEqualTo(7L);
+        verify(bookRepository).copyLoanStatistics();
+    }
+}
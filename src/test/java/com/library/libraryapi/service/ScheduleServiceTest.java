@@ -0,0 +1,128 @@
+package com.library.libraryapi.service;
+
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.notification.MailMessage;
+import com.library.libraryapi.service.notification.OverdueNoticeRenderer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    private static final String TEMPLATE = "Ola {{customer}}, {{message}}\n"
+            + "{{#loans}}{{title}} ({{isbn}}) vencido em {{dueDate}}, {{daysLate}} dia(s)\n{{/loans}}";
+
+    ScheduleService service;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    EmailService emailService;
+
+    @MockBean
+    LoanArchiveService loanArchiveService;
+
+    @MockBean
+    MailSuppressionService mailSuppressionService;
+
+    @BeforeEach
+    public void setUp() {
+        OverdueNoticeRenderer renderer = new OverdueNoticeRenderer("Atraso", "devolva os livros.", TEMPLATE);
+        service = new ScheduleService(loanService, emailService, loanArchiveService, renderer, mailSuppressionService);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    @DisplayName("Deve enviar um email por cliente com todos os seus emprestimos atrasados")
+    public void sendOneMailPerCustomerTest() {
+        LocalDate loanDate = LocalDate.now().minusDays(10);
+        when(loanService.getAllLateLoans()).thenReturn(Arrays.asList(
+                loan("Ana", "ana@email.com", "Dom Casmurro", loanDate),
+                loan("Bia", "bia@email.com", "Iracema", loanDate),
+                loan("Ana", " ANA@email.com", "O Cortico", loanDate),
+                loan("Sem email", null, "Senhora", loanDate)));
+
+        service.sendMainToLateLoans();
+
+        ArgumentCaptor<List<MailMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailService).send(captor.capture());
+        List<MailMessage> messages = captor.getValue();
+        assertThat(messages).extracting(MailMessage::getTo).containsExactly("ana@email.com", "bia@email.com");
+        assertThat(messages.get(0).getSubject()).isEqualTo("Atraso");
+        verify(mailSuppressionService).markSent(Arrays.asList("ana@email.com", "bia@email.com"), LocalDate.now());
+
+        String dueDate = loanDate.plusDays(4).format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        assertThat(messages.get(0).getText()).isEqualTo("Ola Ana, devolva os livros.\n"
+                + "Dom Casmurro (123) vencido em " + dueDate + ", 6 dia(s)\n"
+                + "O Cortico (123) vencido em " + dueDate + ", 6 dia(s)\n");
+    }
+
+    @Test
+    @DisplayName("Nao deve enviar emails para enderecos suprimidos")
+    public void skipSuppressedTest() {
+        LocalDate loanDate = LocalDate.now().minusDays(10);
+        when(loanService.getAllLateLoans()).thenReturn(Arrays.asList(
+                loan("Ana", "ana@email.com", "Dom Casmurro", loanDate),
+                loan("Bia", "bia@email.com", "Iracema", loanDate)));
+        when(mailSuppressionService.findSuppressed(anyCollection(), any(LocalDate.class)))
+                .thenReturn(Collections.singleton("ana@email.com"));
+
+        service.sendMainToLateLoans();
+
+        ArgumentCaptor<List<MailMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailService).send(captor.capture());
+        assertThat(captor.getValue()).extracting(MailMessage::getTo).containsExactly("bia@email.com");
+        verify(mailSuppressionService).purgeExpired(LocalDate.now());
+    }
+
+    @Test
+    @DisplayName("Deve enviar os emails em lotes do tamanho configurado")
+    public void sendInBatchesTest() {
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            loans.add(loan("cliente" + i, "cliente" + i + "@email.com", "Livro", LocalDate.now().minusDays(5)));
+        }
+        when(loanService.getAllLateLoans()).thenReturn(loans);
+
+        service.sendMainToLateLoans();
+
+        ArgumentCaptor<List<MailMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailService, times(3)).send(captor.capture());
+        assertThat(captor.getAllValues()).extracting(List::size).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    @DisplayName("Nao deve enviar emails quando nao houver emprestimos atrasados")
+    public void noLateLoansTest() {
+        when(loanService.getAllLateLoans()).thenReturn(new ArrayList<>());
+
+        service.sendMainToLateLoans();
+
+        verifyNoInteractions(emailService);
+    }
+
+    private static Loan loan(String customer, String email, String title, LocalDate loanDate) {
+        Book book = Book.builder().id(1l).title(title).author("Autor").isbn("123").build();
+        return Loan.builder().customer(customer).customerEmail(email).book(book).loanDate(loanDate).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.library.libraryapi.service.audit;
+
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import com.library.libraryapi.service.support.MappedSegmentLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve codificar e decodificar um registro de auditoria")
+    public void encodeDecodeTest() {
+        AuditRecord record = AuditRecord.builder().timestamp(1577836800000l).action(AuditRecord.Action.RETURN)
+                .loanId(10l).bookId(null).customer("Joao da Conceicao").build();
+
+        assertThat(AuditRecord.decode(record.encode())).isEqualTo(record);
+    }
+
+    @Test
+    @DisplayName("Deve gravar emprestimos e devolucoes e filtra-los na leitura dos segmentos")
+    public void recordAndScanTest() throws Exception {
+        AuditLog auditLog = createLog(false);
+        auditLog.record(AuditRecord.Action.CHECKOUT, loan(1l, 10l, "Fulano"));
+        auditLog.record(AuditRecord.Action.CHECKOUT, loan(2l, 20l, "Ciclano"));
+        auditLog.record(AuditRecord.Action.RETURN, loan(1l, 10l, "Fulano"));
+        auditLog.close();
+
+        List<AuditRecord> all = new ArrayList<>();
+        List<AuditRecord> fulano = new ArrayList<>();
+        AuditLogReader.scan(directory, AuditQuery.builder().build(), all::add);
+        long matched = AuditLogReader.scan(directory, AuditQuery.builder().customer("Fulano").build(), fulano::add);
+
+        assertThat(all).extracting(AuditRecord::getAction).containsExactly(AuditRecord.Action.CHECKOUT,
+                AuditRecord.Action.CHECKOUT, AuditRecord.Action.RETURN);
+        assertThat(matched).isEqualTo(2);
+        assertThat(fulano).allMatch(record -> record.getLoanId() == 1l && record.getBookId() == 10l);
+        assertThat(AuditLogReader.scan(directory, AuditQuery.builder().action(AuditRecord.Action.CHECKOUT).limit(1).build(),
+                record -> { })).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve confirmar gravacoes concorrentes em modo sincrono dividindo os fsyncs")
+    public void syncGroupCommitTest() throws Exception {
+        AuditLog auditLog = createLog(true);
+        ExecutorService writers = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            long id = i;
+            writers.execute(() -> auditLog.record(AuditRecord.Action.CHECKOUT, loan(id, id, "cliente" + id)));
+        }
+        writers.shutdown();
+        assertThat(writers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        auditLog.close();
+
+        assertThat(AuditLogReader.scan(directory, AuditQuery.builder().build(), record -> { })).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Deve falhar a gravacao sincrona quando o fsync falhar, em vez de esperar para sempre")
+    public void syncFlushFailureTest() {
+        MappedSegmentLog segmentLog = mock(MappedSegmentLog.class);
+        when(segmentLog.endOffset()).thenReturn(0L, 100L);
+        when(segmentLog.append(any(byte[].class))).thenReturn(0L);
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(segmentLog).force();
+        AuditLog auditLog = new AuditLog(segmentLog, 50, true);
+
+        Throwable exception = catchThrowable(() -> auditLog.record(AuditRecord.Action.CHECKOUT, loan(1l, 1l, "Fulano")));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class).hasRootCauseInstanceOf(IOException.class);
+        auditLog.close();
+    }
+
+    @Test
+    @DisplayName("Deve falhar a gravacao sincrona e manter a interrupcao quando a thread for interrompida")
+    public void syncInterruptedTest() {
+        MappedSegmentLog segmentLog = mock(MappedSegmentLog.class);
+        when(segmentLog.append(any(byte[].class))).thenReturn(0L);
+        AuditLog auditLog = new AuditLog(segmentLog, 60_000, true);
+
+        Thread.currentThread().interrupt();
+        Throwable exception = catchThrowable(() -> auditLog.record(AuditRecord.Action.CHECKOUT, loan(1l, 1l, "Fulano")));
+
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        auditLog.close();
+    }
+
+    @Test
+    @DisplayName("Nao deve gravar nada com a auditoria desligada")
+    public void disabledTest() throws Exception {
+        AuditLog auditLog = new AuditLog(false, directory.resolve("off").toString(), 1, 0, 50, false);
+
+        auditLog.record(AuditRecord.Action.CHECKOUT, loan(1l, 1l, "Fulano"));
+        auditLog.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isZero();
+        }
+    }
+
+    private AuditLog createLog(boolean sync) {
+        return new AuditLog(true, directory.toString(), 1, 0, 50, sync);
+    }
+
+    private static Loan loan(Long id, Long bookId, String customer) {
+        return Loan.builder().id(id).book(Book.builder().id(bookId).build()).customer(customer).build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.library.libraryapi.service.datagen;
+
+import com.library.libraryapi.model.repository.LoanRepository;
+import com.library.libraryapi.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Import(LibraryDataGenerator.class)
+public class LibraryDataGeneratorTest {
+
+    @Autowired
+    LibraryDataGenerator generator;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    //uma thread para a geracao participar da transacao do teste
+    private final DataGenerationSpec spec = DataGenerationSpec.builder()
+            .books(500)
+            .loans(3000)
+            .customers(200)
+            .openLoanRatio(0.2)
+            .overdueRatio(0.5)
+            .threads(1)
+            .batchSize(128)
+            .build();
+
+    @Test
+    @DisplayName("Deve gerar livros e emprestimos com os contadores dos livros consistentes")
+    public void generateTest() {
+        DataGenerationResult result = generator.generate(spec);
+
+        assertThat(result.getBooks()).isEqualTo(500);
+        assertThat(result.getLoans()).isEqualTo(3000 + result.getOpenLoans());
+        assertThat(result.getOpenLoans()).isBetween(60l, 140l);
+        assertThat(result.getOverdueLoans()).isBetween(1l, result.getOpenLoans() - 1);
+
+        assertThat(count("select count(*) from book")).isEqualTo(500);
+        assertThat(count("select count(*) from loan")).isEqualTo(result.getLoans());
+        assertThat(count("select sum(total_loans) from book_loan_statistic")).isEqualTo(result.getLoans());
+        assertThat(count("select sum(total_loans) from book")).isEqualTo(result.getLoans());
+        assertThat(count("select count(*) from book where active_loan = true")).isEqualTo(result.getOpenLoans());
+        assertThat(count("select count(*) from loan where returned = false")).isEqualTo(result.getOpenLoans());
+        assertThat(count("select count(*) from book b where coalesce((select s.total_loans from book_loan_statistic s "
+                + "where s.id_book = b.id), 0) <> (select count(*) from loan l where l.id_book = b.id)")).isZero();
+        assertThat(count("select count(*) from book_loan_statistic s where s.last_loan_date <> "
+                + "(select max(l.loan_date) from loan l where l.id_book = s.id_book)")).isZero();
+        assertThat(count("select count(*) from book b where b.total_loans <> "
+                + "(select count(*) from loan l where l.id_book = b.id)")).isZero();
+        assertThat(count("select count(*) from book b where b.last_loan_date <> "
+                + "(select max(l.loan_date) from loan l where l.id_book = b.id)")).isZero();
+        assertThat(count("select count(distinct isbn_key) from book")).isEqualTo(500);
+
+        assertThat(loanRepository.findOverdue(LocalDate.now())).hasSize((int) result.getOverdueLoans());
+        assertThat(count("select count(*) from loan where due_date <> dateadd('DAY', " + LoanServiceImpl.LOAN_DAYS + ", loan_date)")).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve concentrar os emprestimos em poucos livros")
+    public void popularityTest() {
+        generator.generate(spec);
+
+        long topTen = count("select sum(total_loans) from (select total_loans from book order by total_loans desc limit 10)");
+        long total = count("select sum(total_loans) from book");
+        assertThat(topTen * 100 / total).isGreaterThan(10);
+    }
+
+    @Test
+    @DisplayName("Deve continuar a numeracao dos isbns ao gerar novamente na mesma base")
+    public void generateTwiceTest() {
+        generator.generate(spec);
+        generator.generate(spec.toBuilder().books(10).loans(10).build());
+
+        assertThat(count("select count(*) from book")).isEqualTo(510);
+        assertThat(count("select count(distinct isbn_key) from book")).isEqualTo(510);
+    }
+
+    @Test
+    @DisplayName("Deve gerar as mesmas linhas para a mesma seed, qualquer que seja a ordem dos lotes")
+    public void deterministicTest() {
+        LibraryDataGenerator.Plan plan = new LibraryDataGenerator.Plan(spec, 0, LocalDate.now().toEpochDay());
+        List<Long> forward = new ArrayList<>();
+        List<Long> backward = new ArrayList<>();
+
+        for (int chunk = 0; chunk < plan.loanChunks; chunk++) {
+            plan.returnedLoans(chunk, (book, customer, day) -> forward.add(book * 1_000_000L + customer * 100_000L + day));
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int chunk = plan.loanChunks - 1; chunk >= 0; chunk--) {
+            List<Long> rows = new ArrayList<>();
+            plan.returnedLoans(chunk, (book, customer, day) -> rows.add(book * 1_000_000L + customer * 100_000L + day));
+            chunks.add(0, rows);
+        }
+        chunks.forEach(backward::addAll);
+
+        assertThat(backward).hasSize(3000).isEqualTo(forward);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
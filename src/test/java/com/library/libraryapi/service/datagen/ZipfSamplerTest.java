@@ -0,0 +1,42 @@
+package com.library.libraryapi.service.datagen;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipfSamplerTest {
+
+    @Test
+    @DisplayName("Deve sortear ranks dentro do intervalo e concentrados nos primeiros")
+    public void skewedSampleTest() {
+        ZipfSampler sampler = new ZipfSampler(1000, 1.0);
+        SplittableRandom random = new SplittableRandom(7);
+        int[] counts = new int[1001];
+
+        for (int i = 0; i < 100_000; i++) {
+            int rank = sampler.sample(random);
+            assertThat(rank).isBetween(1, 1000);
+            counts[rank]++;
+        }
+
+        //com expoente 1 o rank 1 sai ~ H(1000) vezes mais que a media (~13%)
+        assertThat(counts[1]).isBetween(11_000, 16_000);
+        assertThat(counts[1]).isGreaterThan(counts[2]);
+        assertThat(counts[2]).isGreaterThan(counts[10]);
+    }
+
+    @Test
+    @DisplayName("Deve gerar a mesma sequencia para a mesma seed")
+    public void deterministicTest() {
+        ZipfSampler sampler = new ZipfSampler(500, 0.8);
+        SplittableRandom first = new SplittableRandom(42);
+        SplittableRandom second = new SplittableRandom(42);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(sampler.sample(first)).isEqualTo(sampler.sample(second));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.library.libraryapi.service.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.libraryapi.exception.BusinessException;
+import com.library.libraryapi.model.entity.Book;
+import com.library.libraryapi.model.entity.Loan;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ChangeEventLogTest {
+
+    @TempDir
+    Path directory;
+
+    MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Deve gravar os eventos e le-los com o offset de cada um, inclusive apos reabrir o log")
+    public void appendAndReadTest() {
+        ChangeEventLog eventLog = createLog();
+        Book book = Book.builder().id(1l).title("As aventuras").author("Fulano").isbn("978-0-306-40615-7").build();
+        eventLog.append(ChangeEvent.of(ChangeEvent.Type.BOOK_CREATED, book));
+        eventLog.append(ChangeEvent.of(ChangeEvent.Type.LOAN_CREATED, Loan.builder().id(2l).book(book)
+                .customer("Fulano").customerEmail("fulano@email.com").returned(false).loanDate(LocalDate.of(2020, 1, 1)).build()));
+        eventLog.close();
+
+        ChangeEventLog reopened = createLog();
+        ChangeEventBatch batch = reopened.read(reopened.startOffset(), 10);
+
+        assertThat(batch.getEvents()).extracting(ChangeEvent::getType)
+                .containsExactly(ChangeEvent.Type.BOOK_CREATED, ChangeEvent.Type.LOAN_CREATED);
+        assertThat(batch.getEvents().get(0).getOffset()).isZero();
+        assertThat(batch.getEvents().get(0).getData()).containsEntry("title", "As aventuras");
+        assertThat(batch.getEvents().get(1).getData()).containsEntry("loanDate", "2020-01-01")
+                .doesNotContainKey("customerEmail").doesNotContainValue("fulano@email.com");
+        assertThat(batch.getNextOffset()).isEqualTo(reopened.endOffset());
+        assertThat(reopened.read(batch.getEvents().get(1).getOffset(), 10).getEvents()).hasSize(1);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Deve guardar o offset de um consumidor e recusar nomes invalidos")
+    public void consumerOffsetTest() {
+        ChangeEventLog eventLog = createLog();
+
+        assertThat(eventLog.getConsumerOffset("search-index")).isEmpty();
+        eventLog.commitOffset("search-index", 42);
+        eventLog.commitOffset("search-index", 84);
+
+        ChangeEventLog reopened = createLog();
+        assertThat(reopened.getConsumerOffset("search-index")).hasValue(84);
+        reopened.close();
+        assertThat(catchThrowable(() -> eventLog.commitOffset("../etc", 1))).isInstanceOf(BusinessException.class);
+        eventLog.close();
+    }
+
+    @Test
+    @DisplayName("Deve contar a falha ao gravar um evento sem falhar a alteracao ja confirmada")
+    public void appendFailureTest() {
+        ChangeEventLog eventLog = createLog();
+        char[] title = new char[2 * 1024 * 1024];
+        Arrays.fill(title, 'a');
+        Book book = Book.builder().id(1l).title(new String(title)).build();
+
+        eventLog.append(ChangeEvent.of(ChangeEvent.Type.BOOK_CREATED, book));
+
+        assertThat(registry.get("library.events.append.failed").counter().count()).isEqualTo(1);
+        assertThat(eventLog.endOffset()).isEqualTo(eventLog.startOffset());
+        eventLog.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChangeEventLog createLog() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(registry);
+        return new ChangeEventLog(directory.toString(), 1, 4, new ObjectMapper(), provider);
+    }
+}
@@ -0,0 +1,96 @@
+package com.library.libraryapi.service.notification;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MailTransportTest {
+
+    @TempDir
+    Path directory;
+
+    FakeSmtpServer server;
+
+    private final List<MailMessage> messages = Arrays.asList(
+            new MailMessage("ana@email.com", "Livro atrasado", "Ola Ana,\n.linha com ponto\nfim"),
+            new MailMessage("bia@email.com", "Emprestimo atrasado", "Ola Bia"));
+
+    @AfterEach
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar cada mensagem como um arquivo no maildir")
+    public void maildirTest() throws Exception {
+        MaildirMailTransport transport = new MaildirMailTransport(directory, "biblioteca@email.com");
+
+        transport.send(messages);
+
+        List<String> delivered = read(directory.resolve("new"));
+        assertThat(delivered).hasSize(2);
+        assertThat(delivered).anySatisfy(message -> assertThat(message)
+                .contains("From: biblioteca@email.com\r\n")
+                .contains("To: ana@email.com\r\n")
+                .contains("Subject: Livro atrasado\r\n")
+                .endsWith("\r\n\r\nOla Ana,\r\n.linha com ponto\r\nfim\r\n"));
+        try (Stream<Path> tmp = Files.list(directory.resolve("tmp"))) {
+            assertThat(tmp.count()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve enviar pelo protocolo SMTP para o servidor embutido")
+    public void fakeSmtpTest() throws Exception {
+        server = new FakeSmtpServer(0, new Maildir(directory));
+        server.start();
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(server.getPort());
+
+        new SmtpMailTransport(sender, "biblioteca@email.com", "fake-smtp").send(messages);
+
+        assertThat(server.getReceivedCount()).isEqualTo(2);
+        List<String> delivered = read(directory.resolve("new"));
+        assertThat(delivered).anySatisfy(message -> assertThat(message)
+                .contains("To: ana@email.com")
+                .contains("\r\n.linha com ponto\r\n"));
+    }
+
+    @Test
+    @DisplayName("Deve guardar apenas as mensagens mais recentes em memoria")
+    public void inMemoryTest() {
+        InMemoryMailTransport transport = new InMemoryMailTransport(1);
+
+        transport.send(messages);
+
+        assertThat(transport.getSentCount()).isEqualTo(2);
+        assertThat(transport.getRecent()).extracting(MailMessage::getTo).containsExactly("bia@email.com");
+    }
+
+    private static List<String> read(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> {
+                try {
+                    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.library.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BloomFilterTest {
+
+    @Test
+    @DisplayName("Deve encontrar todos os elementos inseridos e poucos falsos positivos")
+    public void falsePositiveRateTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("customer" + i + "@email.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("customer" + i + "@email.com")).isTrue();
+        }
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("customer" + i + "@email.com")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2_000);
+        //~9.6 bits por elemento a 1%
+        assertThat(filter.bitSize()).isLessThan(10_000 * 10 + 64);
+    }
+
+    @Test
+    @DisplayName("Deve responder que nao contem quando vazio")
+    public void emptyFilterTest() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertThat(filter.mightContain("ana@email.com")).isFalse();
+    }
+}
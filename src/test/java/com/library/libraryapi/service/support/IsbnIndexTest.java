@@ -0,0 +1,96 @@
+package com.library.libraryapi.service.support;
+
+import com.library.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IsbnIndexTest {
+
+    @Test
+    @DisplayName("Deve converter ISBN-10 e ISBN-13, com ou sem hifens, para o mesmo numero")
+    public void packTest() {
+        assertThat(Isbn.pack("978-0-13-235088-4")).isEqualTo(9780132350884L);
+        assertThat(Isbn.pack("9780132350884")).isEqualTo(9780132350884L);
+        assertThat(Isbn.pack("0-13-235088-2")).isEqualTo(9780132350884L);
+        assertThat(Isbn.pack("080442957X")).isEqualTo(9780804429573L);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar textos que nao sao ISBN ou com digito verificador errado")
+    public void packInvalidTest() {
+        assertThat(Isbn.pack("123")).isNull();
+        assertThat(Isbn.pack("9780132350885")).isNull();
+        assertThat(Isbn.pack("0132350881")).isNull();
+        assertThat(Isbn.pack("0000000000000")).isNull();
+        assertThat(Isbn.pack("1230000000000")).isNull();
+        assertThat(Isbn.pack(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve manter o mapa primitivo consistente com um HashMap em inclusoes e remocoes")
+    public void longLongHashMapTest() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = 1 + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+        }
+
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(map.get(0)).isEqualTo(LongLongHashMap.NO_VALUE);
+        for (long key = 1; key <= 5_000; key++) {
+            assertThat(map.get(key)).isEqualTo(expected.getOrDefault(key, LongLongHashMap.NO_VALUE));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve responder pelo indice apenas depois de carregado")
+    public void loadTest() {
+        BookRepository repository = mock(BookRepository.class);
+        when(repository.streamIdAndIsbnKey()).thenReturn(Stream.<Object[]>of(
+                new Object[]{1l, 9780132350884l}));
+        IsbnIndex index = new IsbnIndex(repository, 16);
+
+        assertThat(index.covers("9780132350884")).isFalse();
+
+        index.load();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.covers("9780132350884")).isTrue();
+        assertThat(index.find("9780132350884")).hasValue(1l);
+        assertThat(index.find("0-13-235088-2")).hasValue(1l);
+        assertThat(index.find("9780804429573")).isEmpty();
+        assertThat(index.covers("123")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve manter o primeiro livro quando registros antigos tiverem a mesma chave de ISBN")
+    public void loadCollisionTest() {
+        BookRepository repository = mock(BookRepository.class);
+        when(repository.streamIdAndIsbnKey()).thenReturn(Stream.<Object[]>of(
+                new Object[]{1l, 9780132350884l}, new Object[]{2l, 9780132350884l}));
+        IsbnIndex index = new IsbnIndex(repository, 16);
+
+        index.load();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.find("9780132350884")).hasValue(1l);
+    }
+}
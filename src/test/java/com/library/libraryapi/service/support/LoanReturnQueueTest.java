@@ -0,0 +1,158 @@
+package com.library.libraryapi.service.support;
+
+import com.library.libraryapi.model.repository.BookRepository;
+import com.library.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class LoanReturnQueueTest {
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path journal;
+
+    @Test
+    @DisplayName("Deve recusar devolucoes quando o write-behind estiver desligado")
+    public void disabledTest() {
+        LoanReturnQueue queue = new LoanReturnQueue(loanRepository, bookRepository, transactionManager,
+                false, journal.toString(), 10, true);
+
+        assertThat(queue.offer(1l, true)).isFalse();
+        assertThat(queue.pendingReturned(1l)).isEmpty();
+        assertThat(queue.flush()).isZero();
+        verifyNoInteractions(loanRepository, bookRepository);
+    }
+
+    @Test
+    @DisplayName("Deve gravar as devolucoes em lote, separadas pelo estado, e limpar o journal")
+    public void flushInBatchesTest() throws Exception {
+        LoanReturnQueue queue = createQueue(10);
+        queue.offer(1l, true);
+        queue.offer(3l, false);
+        queue.offer(1l, false);
+
+        assertThat(queue.pendingReturned(1l)).hasValue(false);
+
+        assertThat(queue.flush()).isEqualTo(2);
+
+        verify(loanRepository).updateReturned(Mockito.<Collection<Long>>argThat(ids -> ids.containsAll(Arrays.asList(1l, 3l))), eq(false));
+        verify(bookRepository).updateActiveLoanByLoans(Mockito.anyCollection(), eq(true));
+        verify(loanRepository, never()).updateReturned(Mockito.anyCollection(), eq(true));
+        assertThat(queue.isEmpty()).isTrue();
+        assertThat(queue.pendingReturned(1l)).isEmpty();
+        try (Stream<Path> files = Files.list(journal)) {
+            assertThat(files.allMatch(file -> file.toFile().length() == 0)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve gravar automaticamente, fora da thread e da transacao de quem devolve, ao atingir o tamanho do lote")
+    public void flushOnSizeTest() {
+        LoanReturnQueue queue = createQueue(2);
+        Thread caller = Thread.currentThread();
+        when(loanRepository.updateReturned(Mockito.anyCollection(), Mockito.anyBoolean())).thenAnswer(invocation -> {
+            assertThat(Thread.currentThread()).isNotSameAs(caller);
+            return 2;
+        });
+
+        queue.offer(1l, true);
+        verifyNoInteractions(loanRepository, bookRepository);
+
+        queue.offer(2l, true);
+        verify(loanRepository, timeout(1000)).updateReturned(Mockito.anyCollection(), eq(true));
+        verify(transactionManager).getTransaction(Mockito.argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+
+        //o flush do close nao encontra mais nada pendente
+        queue.close();
+        verify(loanRepository, times(1)).updateReturned(Mockito.anyCollection(), Mockito.anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Deve manter as devolucoes pendentes quando o banco falhar")
+    public void flushFailureTest() {
+        LoanReturnQueue queue = createQueue(10);
+        queue.offer(1l, true);
+        when(loanRepository.updateReturned(Mockito.anyCollection(), Mockito.anyBoolean()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        assertThat(queue.flush()).isZero();
+        assertThat(queue.pendingReturned(1l)).hasValue(true);
+
+        assertThat(queue.flush()).isEqualTo(1);
+        assertThat(queue.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve manter pendente e no journal a devolucao mais nova que chegar durante o flush")
+    public void offerDuringFlushTest() {
+        LoanReturnQueue queue = createQueue(10);
+        queue.offer(1l, true);
+        when(loanRepository.updateReturned(Mockito.anyCollection(), Mockito.anyBoolean())).thenAnswer(invocation -> {
+            queue.offer(1l, false);
+            return 1;
+        });
+
+        assertThat(queue.flush()).isEqualTo(1);
+
+        assertThat(queue.pendingReturned(1l)).hasValue(false);
+        assertThat(createQueue(10).pendingReturned(1l)).hasValue(false);
+    }
+
+    @Test
+    @DisplayName("Deve recuperar do journal as devolucoes confirmadas e nao gravadas antes de uma queda")
+    public void recoverTest() throws Exception {
+        LoanReturnQueue crashed = createQueue(10);
+        crashed.offer(1l, true);
+        crashed.offer(2l, true);
+        //linha parcial de uma escrita interrompida
+        Files.write(journal.resolve("returns-000000000001.log"), "3;".getBytes(), StandardOpenOption.APPEND);
+
+        LoanReturnQueue recovered = createQueue(10);
+
+        assertThat(recovered.pendingReturned(1l)).hasValue(true);
+        assertThat(recovered.pendingReturned(2l)).hasValue(true);
+        assertThat(recovered.pendingReturned(3l)).isEmpty();
+
+        assertThat(recovered.flush()).isEqualTo(2);
+        assertThat(createQueue(10).isEmpty()).isTrue();
+        verify(loanRepository).updateReturned(Mockito.anyCollection(), eq(true));
+        verify(loanRepository, never()).updateReturned(Collections.singletonList(3l), true);
+    }
+
+    private LoanReturnQueue createQueue(int flushSize) {
+        return new LoanReturnQueue(loanRepository, bookRepository, transactionManager,
+                true, journal.toString(), flushSize, false);
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MappedSegmentLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Deve ler os registros na ordem a partir de um offset")
+    public void appendAndReadTest() {
+        MappedSegmentLog log = new MappedSegmentLog(directory, 1024, 4);
+        long first = log.append(bytes("a"));
+        long second = log.append(bytes("bb"));
+        log.append(bytes("ccc"));
+
+        List<String> read = new ArrayList<>();
+        long next = log.read(second, 10, (offset, payload) -> read.add(offset + ":" + text(payload)));
+
+        assertThat(first).isZero();
+        assertThat(read).containsExactly(second + ":bb", (second + 10) + ":ccc");
+        assertThat(next).isEqualTo(log.endOffset());
+        log.close();
+    }
+
+    @Test
+    @DisplayName("Deve passar para o proximo segmento e apagar os mais antigos alem do limite")
+    public void rollAndRetentionTest() throws Exception {
+        MappedSegmentLog log = new MappedSegmentLog(directory, 64, 2);
+        for (int i = 0; i < 10; i++) {
+            log.append(bytes("record-" + i + "-padding"));
+        }
+
+        List<String> read = new ArrayList<>();
+        log.read(0, 100, (offset, payload) -> read.add(text(payload)));
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isEqualTo(2);
+        }
+        assertThat(log.startOffset()).isPositive();
+        assertThat(read).isNotEmpty().endsWith("record-9-padding");
+        log.close();
+    }
+
+    @Test
+    @DisplayName("Deve descartar o registro incompleto de uma escrita interrompida ao reabrir")
+    public void recoverTest() throws Exception {
+        MappedSegmentLog log = new MappedSegmentLog(directory, 1024, 4);
+        log.append(bytes("ok"));
+        long torn = log.append(bytes("torn"));
+        log.close();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve(String.format("%020d.log", 0)).toFile(), "rw")) {
+            file.seek(torn + 8);
+            file.write('X');
+        }
+
+        MappedSegmentLog reopened = new MappedSegmentLog(directory, 1024, 4);
+        List<String> read = new ArrayList<>();
+        reopened.read(0, 10, (offset, payload) -> read.add(text(payload)));
+
+        assertThat(read).containsExactly("ok");
+        assertThat(reopened.endOffset()).isEqualTo(torn);
+        assertThat(reopened.append(bytes("after"))).isEqualTo(torn);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Deve recusar a leitura a partir de um offset no meio de um registro")
+    public void invalidOffsetTest() {
+        MappedSegmentLog log = new MappedSegmentLog(directory, 1024, 4);
+        log.append(bytes("abcdefgh"));
+
+        Throwable error = catchThrowable(() -> log.read(3, 10, (offset, payload) -> { }));
+
+        assertThat(error).isInstanceOf(IllegalArgumentException.class);
+        log.close();
+    }
+
+    @Test
+    @DisplayName("Deve acordar o leitor que aguarda dados quando um registro e gravado")
+    public void awaitDataTest() throws Exception {
+        MappedSegmentLog log = new MappedSegmentLog(directory, 1024, 4);
+        assertThat(log.awaitData(0, 10)).isFalse();
+
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return log.awaitData(0, 10_000);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+        Thread.sleep(50);
+        log.append(bytes("x"));
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isTrue();
+        log.close();
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.libraryapi.service.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    SingleFlight<String, StringBuilder> singleFlight = new SingleFlight<>();
+
+    @Test
+    @DisplayName("Deve entregar uma copia do resultado para quem aguardou a chamada em andamento")
+    public void shareResultTest() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringBuilder original = new StringBuilder("livro");
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<StringBuilder> leader = executor.submit(() -> singleFlight.execute("1", () -> {
+            loading.countDown();
+            await(release);
+            return original;
+        }));
+        loading.await();
+
+        AtomicInteger loads = new AtomicInteger();
+        AtomicReference<StringBuilder> shared = new AtomicReference<>();
+        Thread follower = new Thread(() -> shared.set(singleFlight.execute("1", () -> {
+            loads.incrementAndGet();
+            return new StringBuilder();
+        }, StringBuilder::new)));
+        follower.start();
+        Thread.sleep(100);
+        release.countDown();
+        follower.join();
+
+        assertThat(leader.get()).isSameAs(original);
+        assertThat(shared.get()).isNotSameAs(original);
+        assertThat(shared.get().toString()).isEqualTo("livro");
+        assertThat(loads.get()).isEqualTo(0);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve liberar a chave apos uma falha para que a proxima chamada consulte novamente")
+    public void failureReleasesKeyTest() {
+        Throwable exception = catchThrowable(() -> singleFlight.execute("1", () -> {
+            throw new IllegalStateException("falha");
+        }));
+
+        assertThat(exception).isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute("1", () -> new StringBuilder("ok")).toString()).isEqualTo("ok");
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.libraryapi.service.template;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MessageTemplateTest {
+
+    private final TemplateSchema<List<String>> itemSchema = new TemplateSchema<List<String>>()
+            .text("name", items -> items.get(0))
+            .variable("size", (items, out) -> out.append(items.size()))
+            .section("items", items -> items, new TemplateSchema<String>().text("item", item -> item));
+
+    @Test
+    @DisplayName("Deve renderizar variaveis, secoes repetidas e texto literal")
+    public void renderTest() {
+        MessageTemplate<List<String>> template = MessageTemplate.compile(
+                "Ola {{ name }}, {{size}} itens:\n{{#items}}- {{item}}\n{{/items}}fim", itemSchema);
+
+        String text = template.render(Arrays.asList("Ana", "Dom Casmurro"));
+
+        assertThat(text).isEqualTo("Ola Ana, 2 itens:\n- Ana\n- Dom Casmurro\nfim");
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o template compilado entre renderizacoes")
+    public void reuseTest() {
+        MessageTemplate<List<String>> template = MessageTemplate.compile("{{#items}}[{{item}}]{{/items}}", itemSchema);
+
+        assertThat(template.render(Arrays.asList("a", "b", "c"))).isEqualTo("[a][b][c]");
+        assertThat(template.render(Collections.singletonList("x"))).isEqualTo("[x]");
+    }
+
+    @Test
+    @DisplayName("Deve falhar na compilacao com variavel ou secao invalida")
+    public void invalidTemplateTest() {
+        assertThat(catchThrowable(() -> MessageTemplate.compile("{{nome}}", itemSchema)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown template variable: nome");
+        assertThat(catchThrowable(() -> MessageTemplate.compile("{{#items}}{{item}}", itemSchema)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unclosed template section: items");
+        assertThat(catchThrowable(() -> MessageTemplate.compile("{{#items}}{{/other}}", itemSchema)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> MessageTemplate.compile("Ola {{name", itemSchema)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
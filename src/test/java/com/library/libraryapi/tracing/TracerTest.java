@@ -0,0 +1,158 @@
+package com.library.libraryapi.tracing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TracerTest {
+
+    @TempDir
+    Path directory;
+
+    InMemorySpanExporter exporter = new InMemorySpanExporter(100);
+
+    @AfterEach
+    public void tearDown() {
+        Tracer.clearCurrent();
+    }
+
+    @Test
+    @DisplayName("Deve encadear os spans filhos no mesmo trace e restaurar o span corrente no fim")
+    public void nestedSpansTest() {
+        Tracer tracer = new Tracer(exporter, 1.0);
+
+        Span server = tracer.startServerSpan("POST", null);
+        Span service = tracer.startSpan("LoanServiceImpl.save", Span.Kind.INTERNAL);
+        Span repository = tracer.startSpan("LoanRepository.save", Span.Kind.CLIENT);
+        repository.setAttribute("db.operation", "save").end();
+        assertThat(Tracer.current()).isSameAs(service);
+        service.end();
+        server.end();
+
+        assertThat(Tracer.current()).isNull();
+        List<Span> spans = exporter.getSpans();
+        assertThat(spans).extracting(Span::getName).containsExactly("LoanRepository.save", "LoanServiceImpl.save", "POST");
+        assertThat(spans).extracting(Span::getTraceId).containsOnly(server.getTraceId());
+        assertThat(repository.getParentSpanId()).isEqualTo(service.getSpanId());
+        assertThat(service.getParentSpanId()).isEqualTo(server.getSpanId());
+        assertThat(server.getParentSpanId()).isNull();
+        assertThat(repository.getAttributes()).containsEntry("db.operation", "save");
+        assertThat(repository.getEndEpochNanos()).isGreaterThanOrEqualTo(repository.getStartEpochNanos());
+    }
+
+    @Test
+    @DisplayName("Deve descartar o trace inteiro quando a raiz nao for amostrada")
+    public void unsampledTraceTest() {
+        Tracer tracer = new Tracer(exporter, 0);
+
+        Span root = tracer.startSpan("BookServiceImpl.getById", Span.Kind.INTERNAL);
+        Span child = tracer.startSpan("BookRepository.findById", Span.Kind.CLIENT);
+        child.setAttribute("db.operation", "findById").end();
+        root.end();
+
+        assertThat(root.isSampled()).isFalse();
+        assertThat(root.getTraceId()).isNotNull();
+        assertThat(child.isSampled()).isFalse();
+        assertThat(Tracer.current()).isNull();
+        assertThat(exporter.getSpans()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve amostrar aproximadamente a fracao configurada dos traces")
+    public void sampleRatioTest() {
+        Tracer tracer = new Tracer(exporter, 0.1);
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Span span = tracer.startSpan("root", Span.Kind.INTERNAL);
+            if (span.isSampled()) {
+                sampled++;
+            }
+            span.end();
+        }
+        assertThat(sampled).isBetween(800, 1200);
+    }
+
+    @Test
+    @DisplayName("Deve continuar o trace do header traceparent e seguir a amostragem do chamador")
+    public void traceparentTest() {
+        Tracer tracer = new Tracer(exporter, 0);
+
+        Span sampled = tracer.startServerSpan("GET", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        assertThat(sampled.isSampled()).isTrue();
+        assertThat(sampled.getTraceId()).isEqualTo("0af7651916cd43dd8448eb211c80319c");
+        assertThat(sampled.getParentSpanId()).isEqualTo("b7ad6b7169203331");
+        assertThat(Tracer.current()).isSameAs(sampled);
+        sampled.end();
+
+        Span notSampled = tracer.startServerSpan("GET", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-00");
+        assertThat(notSampled.isSampled()).isFalse();
+        assertThat(notSampled.getTraceId()).isEqualTo("0af7651916cd43dd8448eb211c80319c");
+        notSampled.end();
+
+        Span invalid = tracer.startServerSpan("GET", "00-zzzz-b7ad6b7169203331-01");
+        assertThat(invalid.isSampled()).isFalse();
+        invalid.end();
+
+        assertThat(exporter.getSpans()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Deve levar o span corrente para as tarefas executadas em outra thread")
+    public void propagateTest() throws Exception {
+        Tracer tracer = new Tracer(exporter, 1.0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        Span server = tracer.startServerSpan("GET", null);
+        executor.submit(Tracer.propagate(() -> tracer.startSpan("BookServiceImpl.find", Span.Kind.INTERNAL).end())).get();
+        server.end();
+        executor.submit(() -> assertThat(Tracer.current()).isNull()).get();
+        executor.shutdown();
+
+        Span child = exporter.getSpans().get(0);
+        assertThat(child.getTraceId()).isEqualTo(server.getTraceId());
+        assertThat(child.getParentSpanId()).isEqualTo(server.getSpanId());
+    }
+
+    @Test
+    @DisplayName("Deve gravar os spans no arquivo em lotes OTLP/JSON")
+    public void fileExporterTest() throws Exception {
+        Path file = directory.resolve("traces").resolve("spans.jsonl");
+        OtlpJsonFileSpanExporter fileExporter = new OtlpJsonFileSpanExporter(file, "library-api", 100);
+        Tracer tracer = new Tracer(fileExporter, 1.0);
+
+        Span server = tracer.startServerSpan("POST", null);
+        tracer.startSpan("EmailServiceImpl.sendMails", Span.Kind.INTERNAL)
+                .recordError(new IllegalStateException("smtp down"))
+                .end();
+        server.setAttribute("http.status_code", 201).end();
+        fileExporter.shutdown();
+
+        ObjectMapper mapper = new ObjectMapper();
+        int spans = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            JsonNode resource = mapper.readTree(line).get("resourceSpans").get(0);
+            assertThat(resource.at("/resource/attributes/0/value/stringValue").asText()).isEqualTo("library-api");
+            for (JsonNode span : resource.at("/scopeSpans/0/spans")) {
+                assertThat(span.get("traceId").asText()).isEqualTo(server.getTraceId());
+                spans++;
+            }
+        }
+        assertThat(spans).isEqualTo(2);
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertThat(content).contains("\"message\":\"java.lang.IllegalStateException: smtp down\"");
+        assertThat(content).contains("{\"key\":\"http.status_code\",\"value\":{\"intValue\":\"201\"}}");
+        assertThat(fileExporter.getDroppedCount()).isZero();
+    }
+}
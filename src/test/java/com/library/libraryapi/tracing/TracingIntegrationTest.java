@@ -0,0 +1,101 @@
+package com.library.libraryapi.tracing;
+
+import com.library.libraryapi.api.tracing.TracingFilter;
+import com.library.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"application.tracing.sample-ratio=1.0", "application.tracing.exporter=memory"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class TracingIntegrationTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    Tracer tracer;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    InMemorySpanExporter exporter;
+
+    @BeforeEach
+    public void setUp() {
+        exporter = (InMemorySpanExporter) tracer.getExporter();
+        exporter.clear();
+    }
+
+    @Test
+    @DisplayName("Deve gerar spans do controller, do servico e do repositorio no trace do traceparent")
+    public void layersTest() throws Exception {
+        mvc.perform(post("/api/books")
+                .header(TracingFilter.HEADER, "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Tracing\",\"author\":\"Fulano\",\"isbn\":\"9780306406157\"}"))
+                .andExpect(status().isCreated());
+
+        Map<String, Span> spans = exporter.getSpans().stream()
+                .filter(span -> TRACE_ID.equals(span.getTraceId()))
+                .collect(Collectors.toMap(Span::getName, Function.identity(), (first, second) -> first));
+        Span server = spans.get("POST /api/books");
+        Span service = spans.get("BookServiceImpl.save");
+        Span repository = spans.get("BookRepository.save");
+
+        assertThat(server.getKind()).isEqualTo(Span.Kind.SERVER);
+        assertThat(server.getParentSpanId()).isEqualTo("00f067aa0ba902b7");
+        assertThat(server.getAttributes()).containsEntry("code.function", "BookController.create")
+                .containsEntry("http.route", "/api/books")
+                .containsEntry("http.status_code", 201);
+        assertThat(service.getParentSpanId()).isEqualTo(server.getSpanId());
+        assertThat(repository.getKind()).isEqualTo(Span.Kind.CLIENT);
+        assertThat(repository.getParentSpanId()).isEqualTo(service.getSpanId());
+        assertThat(repository.getAttributes()).containsEntry("db.operation", "save");
+    }
+
+    @Test
+    @DisplayName("Deve encerrar o span dos requests assincronos so no fim da resposta")
+    public void asyncRequestTest() throws Exception {
+        MvcResult result = mvc.perform(get("/api/books?title=Tracing&page=0&size=10")).andReturn();
+        mvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        List<Span> spans = exporter.getSpans();
+        Span server = spans.stream().filter(span -> span.getKind() == Span.Kind.SERVER).findFirst().get();
+        assertThat(server.getName()).isEqualTo("GET /api/books");
+        assertThat(spans).filteredOn(span -> span.getName().equals("BookServiceImpl.find"))
+                .extracting(Span::getParentSpanId)
+                .containsExactly(server.getSpanId());
+    }
+
+    @Test
+    @DisplayName("Nao deve abrir um trace para cada consulta ao banco feita fora de um trace")
+    public void parentlessClientSpanTest() {
+        Tracer.clearCurrent();
+
+        bookRepository.count();
+
+        assertThat(exporter.getSpans()).isEmpty();
+    }
+}